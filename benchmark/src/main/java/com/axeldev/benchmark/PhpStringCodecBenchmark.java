@@ -0,0 +1,101 @@
+package com.axeldev.benchmark;
+
+import com.axeldev.PhpStringCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the PHP string codecs over each kind of {@link PhpStringLiteralCorpus}. Every operation processes the whole
+ * corpus, so scores of different kinds aren't comparable with each other, only with the same kind on another build.
+ * <p>
+ * Run with <tt>java -jar target/benchmarks.jar</tt>; the GC profiler is always enabled, so besides the throughput the
+ * allocation rate is reported for each benchmark as <tt>gc.alloc.rate</tt> and <tt>gc.alloc.rate.norm</tt>.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PhpStringCodecBenchmark {
+
+    @Param({"PLAIN_ASCII", "ESCAPE_DENSE", "DOLLAR_DENSE", "NUMERIC_ESCAPES", "MULTI_MEGABYTE"})
+    public PhpStringLiteralCorpus.Kind corpus;
+
+    @Param({"" + PhpStringLiteralCorpus.DEFAULT_SEED})
+    public long seed;
+
+    private String[] doubleQuotedContents;
+    private String[] singleQuotedContents;
+    private String[] unescapedContents;
+
+    @Setup
+    public void setUp() {
+        doubleQuotedContents = PhpStringLiteralCorpus.generateDoubleQuotedContents(corpus, seed);
+        singleQuotedContents = new String[doubleQuotedContents.length];
+        unescapedContents = new String[doubleQuotedContents.length];
+        for (int i = 0; i < doubleQuotedContents.length; i++) {
+            unescapedContents[i] = PhpStringCodec.unescapePhpDoubleQuotedStringContent(doubleQuotedContents[i]);
+            singleQuotedContents[i] = PhpStringCodec.escapePhpSingleQuotedStringContent(unescapedContents[i]);
+        }
+    }
+
+    @Benchmark
+    public void unescapePhpDoubleQuotedStringContent(Blackhole blackhole) {
+        for (String content : doubleQuotedContents) {
+            blackhole.consume(PhpStringCodec.unescapePhpDoubleQuotedStringContent(content));
+        }
+    }
+
+    @Benchmark
+    public void unescapePhpSingleQuotedStringContent(Blackhole blackhole) {
+        for (String content : singleQuotedContents) {
+            blackhole.consume(PhpStringCodec.unescapePhpSingleQuotedStringContent(content));
+        }
+    }
+
+    @Benchmark
+    public void escapePhpDoubleQuotedStringContent(Blackhole blackhole) {
+        for (String content : unescapedContents) {
+            blackhole.consume(PhpStringCodec.escapePhpDoubleQuotedStringContent(content));
+        }
+    }
+
+    @Benchmark
+    public void escapePhpSingleQuotedStringContent(Blackhole blackhole) {
+        for (String content : unescapedContents) {
+            blackhole.consume(PhpStringCodec.escapePhpSingleQuotedStringContent(content));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        // any JMH command line option is accepted, and the GC profiler is always added to report allocations
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions).addProfiler(GCProfiler.class);
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            options.include(PhpStringCodecBenchmark.class.getSimpleName());
+        }
+        new Runner(options.build()).run();
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.axeldev.benchmark;
+
+import java.util.Random;
+
+/**
+ * Generates reproducible sets of PHP double quoted string contents resembling the SQL templates and HTML fragments
+ * usually found in PHP code. Every corpus kind mixes plain words with a different proportion and kind of escape
+ * sequences, so each codec path can be measured on its own.
+ */
+public class PhpStringLiteralCorpus {
+
+    public static final long DEFAULT_SEED = 0x5EEDL;
+
+    public enum Kind {
+        /** Short and mid sized literals without any character needing escaping in double quotes. */
+        PLAIN_ASCII(1000, 16, 512, 0, null),
+        /** Literals where about half of the tokens are single character escape sequences. */
+        ESCAPE_DENSE(1000, 16, 512, 50, SINGLE_CHAR_ESCAPE_TOKENS),
+        /** Literals full of escaped variables, dollar signs and escaped embedded expression openings. */
+        DOLLAR_DENSE(1000, 16, 512, 50, DOLLAR_SIGN_TOKENS),
+        /** Literals full of octal, hexadecimal and unicode code point escape sequences. */
+        NUMERIC_ESCAPES(1000, 16, 512, 50, NUMERIC_ESCAPE_TOKENS),
+        /** A single literal of some megabytes mixing all of the above, like a big embedded template. */
+        MULTI_MEGABYTE(1, 4 * 1024 * 1024, 4 * 1024 * 1024, 15, ALL_ESCAPE_TOKENS);
+
+        private final int      literalCount;
+        private final int      minLength;
+        private final int      maxLength;
+        private final int      escapePercentage;
+        private final String[] escapes;
+
+        Kind(int literalCount, int minLength, int maxLength, int escapePercentage, String[] escapes) {
+            this.literalCount = literalCount;
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+            this.escapePercentage = escapePercentage;
+            this.escapes = escapes;
+        }
+    }
+
+    private static final String[] WORD_TOKENS = {
+        "SELECT", "id", "name", "email", "FROM", "users", "u", "LEFT JOIN", "orders", "o", "ON", "o.user_id = u.id",
+        "WHERE", "status", "=", "'active'", "AND", "created_at", ">", "?", "ORDER BY", "LIMIT", "10", "OFFSET", "20",
+        "<div class='row'>", "</div>", "<a href='/account'>", "</a>", "<td>", "</td>", "<span>", "</span>", "Welcome",
+        "back,", "your", "cart", "has", "items", "total:", "&nbsp;", "<br/>", "INSERT INTO", "VALUES", "(1, 2, 3)",
+    };
+
+    private static final String[] SINGLE_CHAR_ESCAPE_TOKENS = {
+        "\\n", "\\t", "\\r\\n", "\\\"", "\\\\", "\\e", "\\v", "\\f", "\\'", "\\q",
+    };
+
+    private static final String[] DOLLAR_SIGN_TOKENS = {
+        "\\$id", "\\$this->name", "\\$row[0]", "{\\$user}", "\\${total}", "$", "$1", "US$ 10", "\\$",
+    };
+
+    private static final String[] NUMERIC_ESCAPE_TOKENS = {
+        "\\101", "\\x41", "\\0", "\\7", "\\177", "\\0410", "\\xA", "\\x7f", "\\x", "\\u{e9}", "\\u{1F600}", "\\u{41",
+    };
+
+    private static final String[] ALL_ESCAPE_TOKENS = concat(SINGLE_CHAR_ESCAPE_TOKENS, DOLLAR_SIGN_TOKENS, NUMERIC_ESCAPE_TOKENS);
+
+    /**
+     * Generates the escaped contents of a set of PHP double quoted strings, without the delimiter quotes.
+     *
+     * @param kind The kind of corpus to generate
+     * @param seed The seed for the pseudorandom generator; the same seed always leads to the same corpus
+     * @return The contents of the generated literals
+     */
+    public static String[] generateDoubleQuotedContents(Kind kind, long seed) {
+        Random random = new Random(seed ^ kind.ordinal());
+        String[] contents = new String[kind.literalCount];
+        for (int i = 0; i < contents.length; i++) {
+            int length = kind.minLength + random.nextInt(kind.maxLength - kind.minLength + 1);
+            contents[i] = generateDoubleQuotedContent(kind, length, random);
+        }
+        return contents;
+    }
+
+    private static String generateDoubleQuotedContent(Kind kind, int length, Random random) {
+        StringBuilder content = new StringBuilder(length + 32);
+        while (content.length() < length) {
+            if (kind.escapes != null && random.nextInt(100) < kind.escapePercentage) {
+                content.append(kind.escapes[random.nextInt(kind.escapes.length)]);
+            } else {
+                content.append(WORD_TOKENS[random.nextInt(WORD_TOKENS.length)]);
+            }
+            content.append(' ');
+        }
+        return content.toString();
+    }
+
+    private static String[] concat(String[]... arrays) {
+        int length = 0;
+        for (String[] array : arrays) length += array.length;
+        String[] result = new String[length];
+        int offset = 0;
+        for (String[] array : arrays) {
+            System.arraycopy(array, 0, result, offset, array.length);
+            offset += array.length;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,243 @@
+package com.axeldev.cli;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Command line tool replacing the double quoted strings of PHP files with single quoted ones, the same way the
+ * "Normalize PHP Quotes" action of the plugin does, but without an IDE, e.g. in a pre-commit hook or in CI.
+ * <p>
+ * Files are processed in parallel by a fork-join pool. Each file is read through a memory mapped buffer and written
+ * back only if any string was converted. In check mode files are never written, the files which would be changed are
+ * just reported.
+ * </p>
+ */
+public class PhpQuotesNormalizer {
+
+    public static final int EXIT_CODE_OK           = 0;
+    public static final int EXIT_CODE_CHECK_FAILED = 1;
+    public static final int EXIT_CODE_ERROR        = 2;
+
+    static final String USAGE = "Usage: php-1up-normalize [--check] [--concatenate-embedded-expressions] [--threads N] <file or directory>...\n" +
+        "\n" +
+        "Replaces double quoted strings with single quoted ones in the given PHP files and directories.\n" +
+        "\n" +
+        "  --check                             Don't write any file, just list the files which would be changed\n" +
+        "                                      and exit with code " + EXIT_CODE_CHECK_FAILED + " if there's any\n" +
+        "  --concatenate-embedded-expressions  Also convert strings with embedded variables or expressions, by\n" +
+        "                                      concatenating them\n" +
+        "  --threads N                         Number of files processed in parallel, defaults to the CPU count\n";
+
+    private static final String  PHP_FILE_EXTENSION = ".php";
+    private static final int     FILES_PER_TASK     = 4;
+    private static final Charset UTF_8              = Charset.forName("UTF-8");
+    // any byte sequence can be decoded as Latin-1 and encoded back unchanged
+    private static final Charset ISO_8859_1         = Charset.forName("ISO-8859-1");
+
+    private final boolean     checkOnly;
+    private final boolean     concatenateEmbeddedExpressions;
+    private final PrintStream out;
+    private final PrintStream err;
+
+    PhpQuotesNormalizer(boolean checkOnly, boolean concatenateEmbeddedExpressions, PrintStream out, PrintStream err) {
+        this.checkOnly = checkOnly;
+        this.concatenateEmbeddedExpressions = concatenateEmbeddedExpressions;
+        this.out = out;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        boolean checkOnly = false;
+        boolean concatenateEmbeddedExpressions = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> paths = new ArrayList<Path>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--check")) {
+                checkOnly = true;
+            } else if (arg.equals("--concatenate-embedded-expressions")) {
+                concatenateEmbeddedExpressions = true;
+            } else if (arg.equals("--threads") && i + 1 < args.length) {
+                try {
+                    threads = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    threads = 0;
+                }
+                if (threads < 1) {
+                    err.print(USAGE);
+                    return EXIT_CODE_ERROR;
+                }
+            } else if (arg.startsWith("-")) {
+                err.print(USAGE);
+                return EXIT_CODE_ERROR;
+            } else {
+                paths.add(Paths.get(arg));
+            }
+        }
+        if (paths.isEmpty()) {
+            err.print(USAGE);
+            return EXIT_CODE_ERROR;
+        }
+        List<Path> phpFiles;
+        try {
+            phpFiles = collectPhpFiles(paths);
+        } catch (IOException e) {
+            err.println("Error: " + e.getMessage());
+            return EXIT_CODE_ERROR;
+        }
+        PhpQuotesNormalizer normalizer = new PhpQuotesNormalizer(checkOnly, concatenateEmbeddedExpressions, out, err);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Summary summary;
+        try {
+            summary = pool.invoke(normalizer.new NormalizeFilesTask(phpFiles, 0, phpFiles.size()));
+        } finally {
+            pool.shutdown();
+        }
+        if (checkOnly) {
+            err.println(summary.changedFiles + " of " + phpFiles.size() + " files need their quotes normalized");
+        } else {
+            err.println("Normalized quotes in " + summary.changedFiles + " of " + phpFiles.size() + " files");
+        }
+        if (summary.failedFiles > 0) return EXIT_CODE_ERROR;
+        return checkOnly && summary.changedFiles > 0 ? EXIT_CODE_CHECK_FAILED : EXIT_CODE_OK;
+    }
+
+    static List<Path> collectPhpFiles(List<Path> paths) throws IOException {
+        final List<Path> phpFiles = new ArrayList<Path>();
+        for (Path path : paths) {
+            if (!Files.isDirectory(path)) {
+                if (!Files.isRegularFile(path)) throw new IOException("File not found: " + path);
+                phpFiles.add(path);
+                continue;
+            }
+            Files.walkFileTree(path, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && file.getFileName().toString().endsWith(PHP_FILE_EXTENSION)) {
+                        phpFiles.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        return phpFiles;
+    }
+
+    /**
+     * Normalizes the quotes of a file.
+     *
+     * @return <code>true</code> if any string was or would be converted
+     */
+    boolean normalizeFile(Path phpFile) throws IOException {
+        Charset charset = UTF_8;
+        CharBuffer source;
+        try (FileChannel channel = FileChannel.open(phpFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("File too big: " + phpFile);
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            try {
+                source = decode(bytes, UTF_8);
+            } catch (CharacterCodingException e) {
+                // not a UTF-8 file, so keep every byte as-is
+                bytes.rewind();
+                charset = ISO_8859_1;
+                source = decode(bytes, ISO_8859_1);
+            }
+        }
+        String convertedSource = PhpQuotesSourceConverter.convertDoubleQuotedStrings(source, concatenateEmbeddedExpressions);
+        if (convertedSource == null) return false;
+        if (!checkOnly) {
+            Files.write(phpFile, toByteArray(charset.newEncoder().encode(CharBuffer.wrap(convertedSource))));
+        }
+        return true;
+    }
+
+    private static CharBuffer decode(ByteBuffer bytes, Charset charset) throws CharacterCodingException {
+        return charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT)
+            .decode(bytes);
+    }
+
+    private static byte[] toByteArray(ByteBuffer bytes) {
+        byte[] array = new byte[bytes.remaining()];
+        bytes.get(array);
+        return array;
+    }
+
+    static class Summary {
+        final int changedFiles;
+        final int failedFiles;
+
+        Summary(int changedFiles, int failedFiles) {
+            this.changedFiles = changedFiles;
+            this.failedFiles = failedFiles;
+        }
+    }
+
+    /**
+     * Normalizes a range of the files, splitting it in halves to be processed in parallel until it's small enough.
+     */
+    private class NormalizeFilesTask extends RecursiveTask<Summary> {
+        private final List<Path> phpFiles;
+        private final int        from;
+        private final int        to;
+
+        NormalizeFilesTask(List<Path> phpFiles, int from, int to) {
+            this.phpFiles = phpFiles;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Summary compute() {
+            if (to - from > FILES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                NormalizeFilesTask firstHalf = new NormalizeFilesTask(phpFiles, from, middle);
+                firstHalf.fork();
+                Summary secondHalfSummary = new NormalizeFilesTask(phpFiles, middle, to).compute();
+                Summary firstHalfSummary = firstHalf.join();
+                return new Summary(firstHalfSummary.changedFiles + secondHalfSummary.changedFiles,
+                    firstHalfSummary.failedFiles + secondHalfSummary.failedFiles);
+            }
+            int changedFiles = 0;
+            int failedFiles = 0;
+            for (int i = from; i < to; i++) {
+                Path phpFile = phpFiles.get(i);
+                try {
+                    if (normalizeFile(phpFile)) {
+                        changedFiles++;
+                        out.println(phpFile);
+                    }
+                } catch (IOException e) {
+                    failedFiles++;
+                    err.println("Error: " + phpFile + ": " + e.getMessage());
+                }
+            }
+            return new Summary(changedFiles, failedFiles);
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.axeldev.cli;
+
+import com.axeldev.PhpStringCodec;
+
+import java.util.List;
+
+/**
+ * Replaces the double quoted strings of a PHP source with single quoted ones, completely keeping semantics and
+ * producing the same text as the "Replace quotes" intentions and the "Normalize PHP Quotes" action of the plugin.
+ * Strings found inside the embedded expressions of a converted string are left untouched, and so are the strings
+ * which can't be written as single quoted ones without adding escaping, like those holding control characters or
+ * bytes written as escape sequences, which would be written raw or re-encoded.
+ */
+class PhpQuotesSourceConverter {
+
+    private static final String CONCATENATION_OPERATOR = " . ";
+
+    private PhpQuotesSourceConverter() {
+    }
+
+    /**
+     * Converts the double quoted strings of a PHP source.
+     *
+     * @param source                         The source code of the PHP file
+     * @param concatenateEmbeddedExpressions Whether to also convert strings with embedded variables or expressions, by
+     *                                       concatenating them, or to leave them untouched
+     * @return The converted source code, or <code>null</code> if there's nothing to convert
+     */
+    static String convertDoubleQuotedStrings(CharSequence source, boolean concatenateEmbeddedExpressions) {
+        List<PhpStringLiteral> literals = PhpStringLiteralLexer.findStringLiterals(source);
+        StringBuilder convertedSource = null;
+        // the unescaped text of each string piece is kept in a reused buffer before being escaped again
+        StringBuilder unescapedContentBuffer = new StringBuilder();
+        int copiedUpTo = 0;
+        for (PhpStringLiteral literal : literals) {
+            // skip the literals nested in an already converted one
+            if (literal.startOffset < copiedUpTo) continue;
+            if (!literal.doubleQuoted || !literal.convertible) continue;
+            if (!concatenateEmbeddedExpressions && !literal.isSimple()) continue;
+            if (!isSingleQuotable(source, literal)) continue;
+            if (convertedSource == null) convertedSource = new StringBuilder(source.length() + 16);
+            convertedSource.append(source, copiedUpTo, literal.startOffset);
+            appendSingleQuotedText(source, literal, convertedSource, unescapedContentBuffer);
+            copiedUpTo = literal.endOffset;
+        }
+        if (convertedSource == null) return null;
+        return convertedSource.append(source, copiedUpTo, source.length()).toString();
+    }
+
+    /**
+     * Tells whether every text fragment of a PHP double quoted string reads the same in a single quoted string, as
+     * told by {@link PhpStringCodec#isPhpDoubleQuotedStringContentSingleQuotable(CharSequence, int, int)}.
+     */
+    private static boolean isSingleQuotable(CharSequence source, PhpStringLiteral literal) {
+        for (PhpStringLiteral.Piece piece : literal.pieces) {
+            if (piece.kind != PhpStringLiteral.Piece.Kind.FRAGMENT) continue;
+            if (!PhpStringCodec.isPhpDoubleQuotedStringContentSingleQuotable(source, piece.startOffset, piece.endOffset)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Appends the source code of the PHP expression resulting of replacing the quotes of a PHP double quoted string: a
+     * single quoted string for a simple string, or the concatenation of single quoted strings and the embedded
+     * variables and expressions for a complex one.
+     */
+    private static void appendSingleQuotedText(CharSequence source, PhpStringLiteral literal, StringBuilder textBuffer, StringBuilder unescapedContentBuffer) {
+        if (literal.isSimple()) {
+            appendSingleQuotedFragment(source, literal.startOffset + 1, literal.endOffset - 1, textBuffer, unescapedContentBuffer);
+            return;
+        }
+        boolean firstPiece = true;
+        for (PhpStringLiteral.Piece piece : literal.pieces) {
+            if (!firstPiece) textBuffer.append(CONCATENATION_OPERATOR);
+            firstPiece = false;
+            switch (piece.kind) {
+                case FRAGMENT:
+                    appendSingleQuotedFragment(source, piece.startOffset, piece.endOffset, textBuffer, unescapedContentBuffer);
+                    break;
+                case ARRAY_ACCESS:
+                    // an unquoted string key must be quoted outside of the string
+                    textBuffer.append(source, piece.startOffset, piece.indexStartOffset);
+                    if (PhpStringCodec.isPhpSimpleSyntaxArrayStringKey(source, piece.indexStartOffset, piece.indexEndOffset)) {
+                        textBuffer.append(PhpStringCodec.CHAR_SINGLE_QUOTE)
+                            .append(source, piece.indexStartOffset, piece.indexEndOffset)
+                            .append(PhpStringCodec.CHAR_SINGLE_QUOTE);
+                    } else {
+                        textBuffer.append(source, piece.indexStartOffset, piece.indexEndOffset);
+                    }
+                    textBuffer.append(source, piece.indexEndOffset, piece.endOffset);
+                    break;
+                case BRACED_EXPRESSION:
+                    // remove braces and append the expression as-is
+                    textBuffer.append(source, piece.startOffset + 1, piece.endOffset - 1);
+                    break;
+                default:
+                    textBuffer.append(source, piece.startOffset, piece.endOffset);
+                    break;
+            }
+        }
+    }
+
+    private static void appendSingleQuotedFragment(CharSequence source, int startOffset, int endOffset, StringBuilder textBuffer, StringBuilder unescapedContentBuffer) {
+        unescapedContentBuffer.setLength(0);
+        PhpStringCodec.unescapePhpDoubleQuotedStringContent(source, startOffset, endOffset, unescapedContentBuffer);
+        textBuffer.append(PhpStringCodec.CHAR_SINGLE_QUOTE);
+        PhpStringCodec.escapePhpSingleQuotedStringContent(unescapedContentBuffer, textBuffer);
+        textBuffer.append(PhpStringCodec.CHAR_SINGLE_QUOTE);
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.axeldev.cli;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A PHP single or double quoted string literal found by {@link PhpStringLiteralLexer}. Offsets are relative to the
+ * source text the literal was found in, so no text is copied out of it.
+ */
+class PhpStringLiteral {
+
+    /**
+     * A piece of the content of a double quoted string: either a fragment of text or an embedded variable or
+     * expression.
+     */
+    static class Piece {
+        enum Kind {
+            /** A fragment of escaped text. */
+            FRAGMENT,
+            /** A variable or property access embedded with the simple syntax, like <tt>$foo</tt> or <tt>$foo->bar</tt>. */
+            VARIABLE,
+            /** An array access embedded with the simple syntax, like <tt>$foo[bar]</tt>. */
+            ARRAY_ACCESS,
+            /** An expression embedded with the complex syntax, like <tt>{$foo->bar()}</tt>. */
+            BRACED_EXPRESSION
+        }
+
+        final Kind kind;
+        final int  startOffset;
+        final int  endOffset;
+        // only for array accesses, the range of the index between the square brackets
+        final int  indexStartOffset;
+        final int  indexEndOffset;
+
+        Piece(Kind kind, int startOffset, int endOffset) {
+            this(kind, startOffset, endOffset, -1, -1);
+        }
+
+        Piece(Kind kind, int startOffset, int endOffset, int indexStartOffset, int indexEndOffset) {
+            this.kind = kind;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.indexStartOffset = indexStartOffset;
+            this.indexEndOffset = indexEndOffset;
+        }
+    }
+
+    final int         startOffset;
+    final int         endOffset;
+    final boolean     doubleQuoted;
+    // whether the content only uses syntax the lexer fully understands, so it can be safely converted
+    final boolean     convertible;
+    final List<Piece> pieces;
+
+    PhpStringLiteral(int startOffset, int endOffset, boolean doubleQuoted, boolean convertible, List<Piece> pieces) {
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.doubleQuoted = doubleQuoted;
+        this.convertible = convertible;
+        this.pieces = pieces != null ? pieces : Collections.<Piece>emptyList();
+    }
+
+    /**
+     * Tells whether this is a double quoted string without embedded variables or expressions.
+     */
+    boolean isSimple() {
+        for (Piece piece : pieces) {
+            if (piece.kind != Piece.Kind.FRAGMENT) return false;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,308 @@
+package com.axeldev.cli;
+
+import com.axeldev.PhpStringCodec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A minimal PHP lexer which only recognises what's needed to find the single and double quoted string literals of a
+ * file: inline HTML, open and close tags, comments, heredocs and nowdocs, backtick strings and the curly braces of
+ * embedded expressions. Double quoted strings are split into text fragments and embedded variables and expressions,
+ * understanding <tt>$var</tt>, <tt>$var[index]</tt>, <tt>$var->property</tt> and <tt>{$expression}</tt>.
+ * <p>
+ * Any string using a syntax the lexer doesn't fully understand, like <tt>${expression}</tt>, is marked as not
+ * convertible, so it's left untouched.
+ * </p>
+ */
+class PhpStringLiteralLexer {
+
+    private static final Comparator<PhpStringLiteral> LITERAL_OFFSET_COMPARATOR = new Comparator<PhpStringLiteral>() {
+        @Override
+        public int compare(PhpStringLiteral literal1, PhpStringLiteral literal2) {
+            return literal1.startOffset - literal2.startOffset;
+        }
+    };
+
+    private final CharSequence           source;
+    private final int                    length;
+    private final List<PhpStringLiteral> literals = new ArrayList<PhpStringLiteral>();
+
+    private PhpStringLiteralLexer(CharSequence source) {
+        this.source = source;
+        this.length = source.length();
+    }
+
+    /**
+     * Finds all the single and double quoted string literals of a PHP file, including the ones nested in the
+     * expressions embedded in double quoted strings.
+     *
+     * @param source The source code of the PHP file
+     * @return The string literals, sorted by their offset in the source
+     */
+    static List<PhpStringLiteral> findStringLiterals(CharSequence source) {
+        PhpStringLiteralLexer lexer = new PhpStringLiteralLexer(source);
+        lexer.lexInlineHtml(0);
+        // nested literals are found before the literal they're nested in is complete
+        Collections.sort(lexer.literals, LITERAL_OFFSET_COMPARATOR);
+        return lexer.literals;
+    }
+
+    private void lexInlineHtml(int index) {
+        while (index < length) {
+            int openTagIndex = indexOf("<?", index);
+            if (openTagIndex < 0) return;
+            index = openTagIndex + 2;
+            if (regionMatchesIgnoreCase(index, "php")) {
+                index += 3;
+            } else if (index < length && source.charAt(index) == '=') {
+                index++;
+            }
+            index = lexPhpCode(index, false);
+        }
+    }
+
+    /**
+     * Lexes PHP code up to the close tag or, for an expression embedded in a string, up to its closing curly brace.
+     *
+     * @return The offset following the close tag or the closing curly brace
+     */
+    private int lexPhpCode(int index, boolean embedded) {
+        int braceDepth = 0;
+        while (index < length) {
+            char currentChar = source.charAt(index);
+            switch (currentChar) {
+                case '\'':
+                    index = lexSingleQuotedString(index);
+                    break;
+                case '"':
+                    index = lexDoubleQuotedString(index);
+                    break;
+                case '`':
+                    index = skipBacktickString(index);
+                    break;
+                case '#':
+                    // `#[` starts an attribute, not a comment
+                    index = index + 1 < length && source.charAt(index + 1) == '[' ? index + 1 : skipLineComment(index);
+                    break;
+                case '/':
+                    if (index + 1 < length && source.charAt(index + 1) == '/') {
+                        index = skipLineComment(index);
+                    } else if (index + 1 < length && source.charAt(index + 1) == '*') {
+                        int commentEnd = indexOf("*/", index + 2);
+                        index = commentEnd < 0 ? length : commentEnd + 2;
+                    } else {
+                        index++;
+                    }
+                    break;
+                case '<':
+                    index = regionMatches(index, "<<<") ? skipHeredoc(index) : index + 1;
+                    break;
+                case '{':
+                    braceDepth++;
+                    index++;
+                    break;
+                case '}':
+                    if (embedded && braceDepth == 0) return index + 1;
+                    braceDepth--;
+                    index++;
+                    break;
+                case '?':
+                    if (!embedded && index + 1 < length && source.charAt(index + 1) == '>') return index + 2;
+                    index++;
+                    break;
+                default:
+                    index++;
+                    break;
+            }
+        }
+        return length;
+    }
+
+    private int skipLineComment(int index) {
+        while (index < length) {
+            char currentChar = source.charAt(index);
+            // a close tag ends a line comment too
+            if (currentChar == '\n' || currentChar == '\r' || regionMatches(index, "?>")) return index;
+            index++;
+        }
+        return length;
+    }
+
+    private int skipBacktickString(int index) {
+        for (index++; index < length; index++) {
+            char currentChar = source.charAt(index);
+            if (currentChar == '\\') {
+                index++;
+            } else if (currentChar == '`') {
+                return index + 1;
+            }
+        }
+        return length;
+    }
+
+    private int skipHeredoc(int startIndex) {
+        int index = startIndex + 3;
+        while (index < length && (source.charAt(index) == ' ' || source.charAt(index) == '\t')) index++;
+        boolean quoted = index < length && (source.charAt(index) == '"' || source.charAt(index) == '\'');
+        if (quoted) index++;
+        int identifierStart = index;
+        index = skipIdentifier(index);
+        if (index == identifierStart) return startIndex + 3;
+        String identifier = source.subSequence(identifierStart, index).toString();
+        if (quoted) index++;
+        // the body starts on the next line, and ends on the first line starting with the identifier
+        index = skipLine(index);
+        while (index < length) {
+            int lineContentStart = index;
+            while (lineContentStart < length && (source.charAt(lineContentStart) == ' ' || source.charAt(lineContentStart) == '\t')) {
+                lineContentStart++;
+            }
+            int identifierEnd = lineContentStart + identifier.length();
+            if (regionMatches(lineContentStart, identifier) &&
+                (identifierEnd == length || !PhpStringCodec.isIdentifierChar(source.charAt(identifierEnd)))) {
+                return identifierEnd;
+            }
+            index = skipLine(index);
+        }
+        return length;
+    }
+
+    private int skipLine(int index) {
+        int newlineIndex = indexOf("\n", index);
+        return newlineIndex < 0 ? length : newlineIndex + 1;
+    }
+
+    private int lexSingleQuotedString(int startIndex) {
+        for (int index = startIndex + 1; index < length; index++) {
+            char currentChar = source.charAt(index);
+            if (currentChar == '\\') {
+                index++;
+            } else if (currentChar == '\'') {
+                literals.add(new PhpStringLiteral(startIndex, index + 1, false, true, null));
+                return index + 1;
+            }
+        }
+        // an unterminated string isn't a literal
+        return length;
+    }
+
+    private int lexDoubleQuotedString(int startIndex) {
+        List<PhpStringLiteral.Piece> pieces = new ArrayList<PhpStringLiteral.Piece>();
+        boolean convertible = true;
+        int fragmentStart = startIndex + 1;
+        int index = fragmentStart;
+        while (index < length) {
+            char currentChar = source.charAt(index);
+            char nextChar = index + 1 < length ? source.charAt(index + 1) : 0;
+            if (currentChar == '\\') {
+                // whatever follows a backslash is part of the text, be it an escape sequence or not
+                index += 2;
+            } else if (currentChar == '"') {
+                addFragment(pieces, fragmentStart, index);
+                literals.add(new PhpStringLiteral(startIndex, index + 1, true, convertible, pieces));
+                return index + 1;
+            } else if (currentChar == '$' && PhpStringCodec.isIdentifierStartChar(nextChar)) {
+                addFragment(pieces, fragmentStart, index);
+                PhpStringLiteral.Piece piece = lexSimpleSyntaxVariable(index);
+                if (piece == null) {
+                    convertible = false;
+                    index = skipIdentifier(index + 1);
+                } else {
+                    pieces.add(piece);
+                    index = piece.endOffset;
+                }
+                fragmentStart = index;
+            } else if (currentChar == '$' && nextChar == '{') {
+                // variable variable syntax, which the lexer doesn't convert
+                addFragment(pieces, fragmentStart, index);
+                convertible = false;
+                index = lexPhpCode(index + 2, true);
+                fragmentStart = index;
+            } else if (currentChar == '{' && nextChar == '$') {
+                addFragment(pieces, fragmentStart, index);
+                int expressionEnd = lexPhpCode(index + 1, true);
+                pieces.add(new PhpStringLiteral.Piece(PhpStringLiteral.Piece.Kind.BRACED_EXPRESSION, index, expressionEnd));
+                index = expressionEnd;
+                fragmentStart = index;
+            } else {
+                index++;
+            }
+        }
+        // an unterminated string isn't a literal
+        return length;
+    }
+
+    /**
+     * Lexes a variable embedded with the simple syntax, along with the array index or property name following it.
+     *
+     * @return The embedded variable, or <code>null</code> if it uses a syntax not understood by the lexer
+     */
+    private PhpStringLiteral.Piece lexSimpleSyntaxVariable(int startIndex) {
+        int nameEnd = skipIdentifier(startIndex + 1);
+        if (nameEnd < length && source.charAt(nameEnd) == '[') {
+            int indexStart = nameEnd + 1;
+            int indexEnd = skipSimpleSyntaxArrayIndex(indexStart);
+            if (indexEnd == indexStart || indexEnd >= length || source.charAt(indexEnd) != ']') return null;
+            return new PhpStringLiteral.Piece(PhpStringLiteral.Piece.Kind.ARRAY_ACCESS, startIndex, indexEnd + 1, indexStart, indexEnd);
+        }
+        if (regionMatches(nameEnd, "->") && nameEnd + 2 < length && PhpStringCodec.isIdentifierStartChar(source.charAt(nameEnd + 2))) {
+            return new PhpStringLiteral.Piece(PhpStringLiteral.Piece.Kind.VARIABLE, startIndex, skipIdentifier(nameEnd + 2));
+        }
+        // a nullsafe property access isn't understood by the lexer
+        if (regionMatches(nameEnd, "?->")) return null;
+        return new PhpStringLiteral.Piece(PhpStringLiteral.Piece.Kind.VARIABLE, startIndex, nameEnd);
+    }
+
+    private int skipSimpleSyntaxArrayIndex(int index) {
+        if (index >= length) return index;
+        char firstChar = source.charAt(index);
+        if (firstChar == '$') {
+            int nameStart = index + 1;
+            int nameEnd = nameStart < length && PhpStringCodec.isIdentifierStartChar(source.charAt(nameStart)) ? skipIdentifier(nameStart) : nameStart;
+            return nameEnd == nameStart ? index : nameEnd;
+        }
+        if (PhpStringCodec.isIdentifierStartChar(firstChar)) return skipIdentifier(index);
+        int digitsStart = firstChar == '-' ? index + 1 : index;
+        int digitsEnd = digitsStart;
+        while (digitsEnd < length && source.charAt(digitsEnd) >= '0' && source.charAt(digitsEnd) <= '9') digitsEnd++;
+        return digitsEnd == digitsStart ? index : digitsEnd;
+    }
+
+    private int skipIdentifier(int index) {
+        while (index < length && PhpStringCodec.isIdentifierChar(source.charAt(index))) index++;
+        return index;
+    }
+
+    private static void addFragment(List<PhpStringLiteral.Piece> pieces, int startOffset, int endOffset) {
+        if (endOffset > startOffset) {
+            pieces.add(new PhpStringLiteral.Piece(PhpStringLiteral.Piece.Kind.FRAGMENT, startOffset, endOffset));
+        }
+    }
+
+    private int indexOf(String text, int fromIndex) {
+        for (int index = fromIndex; index <= length - text.length(); index++) {
+            if (regionMatches(index, text)) return index;
+        }
+        return -1;
+    }
+
+    private boolean regionMatches(int index, String text) {
+        if (index < 0 || index + text.length() > length) return false;
+        for (int i = 0; i < text.length(); i++) {
+            if (source.charAt(index + i) != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private boolean regionMatchesIgnoreCase(int index, String text) {
+        if (index < 0 || index + text.length() > length) return false;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.toLowerCase(source.charAt(index + i)) != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.axeldev.cli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PhpQuotesNormalizerTest {
+    private static final byte[] CONVERTIBLE_SOURCE     = "<?php\n$foo = \"foo\";\n".getBytes();
+    private static final byte[] CONVERTED_SOURCE       = "<?php\n$foo = 'foo';\n".getBytes();
+    private static final byte[] NOT_CONVERTIBLE_SOURCE = "<?php\n$foo = \"foo $bar\";\n".getBytes();
+    // a Latin-1 source which isn't valid UTF-8
+    private static final byte[] LATIN_1_SOURCE         = {'<', '?', 'p', 'h', 'p', ' ', '"', (byte) 0xe9, '"', ';'};
+    private static final byte[] LATIN_1_CONVERTED      = {'<', '?', 'p', 'h', 'p', ' ', '\'', (byte) 0xe9, '\'', ';'};
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File createFile(String path, byte[] content) throws IOException {
+        File file = new File(temporaryFolder.getRoot(), path);
+        assertTrue(file.getParentFile().isDirectory() || file.getParentFile().mkdirs());
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    private static int runNormalizer(String... args) {
+        PrintStream output = new PrintStream(new ByteArrayOutputStream());
+        return PhpQuotesNormalizer.run(args, output, output);
+    }
+
+    @Test
+    public void testCheckDoesNotWriteFiles() throws IOException {
+        File convertibleFile = createFile("src/convertible.php", CONVERTIBLE_SOURCE);
+        int exitCode = runNormalizer("--check", temporaryFolder.getRoot().getPath());
+        assertEquals(PhpQuotesNormalizer.EXIT_CODE_CHECK_FAILED, exitCode);
+        assertArrayEquals(CONVERTIBLE_SOURCE, Files.readAllBytes(convertibleFile.toPath()));
+    }
+
+    @Test
+    public void testCheckPassesWhenNothingToConvert() throws IOException {
+        createFile("src/not_convertible.php", NOT_CONVERTIBLE_SOURCE);
+        assertEquals(PhpQuotesNormalizer.EXIT_CODE_OK, runNormalizer("--check", temporaryFolder.getRoot().getPath()));
+    }
+
+    @Test
+    public void testOnlyChangedFilesAreWritten() throws IOException {
+        File convertibleFile = createFile("src/convertible.php", CONVERTIBLE_SOURCE);
+        File notConvertibleFile = createFile("src/lib/not_convertible.php", NOT_CONVERTIBLE_SOURCE);
+        File otherFile = createFile("src/other.txt", CONVERTIBLE_SOURCE);
+        long notConvertibleLastModified = notConvertibleFile.lastModified() - 10000;
+        assertTrue(notConvertibleFile.setLastModified(notConvertibleLastModified));
+        int exitCode = runNormalizer("--threads", "2", temporaryFolder.getRoot().getPath());
+        assertEquals(PhpQuotesNormalizer.EXIT_CODE_OK, exitCode);
+        assertArrayEquals(CONVERTED_SOURCE, Files.readAllBytes(convertibleFile.toPath()));
+        assertArrayEquals(NOT_CONVERTIBLE_SOURCE, Files.readAllBytes(notConvertibleFile.toPath()));
+        assertEquals(notConvertibleLastModified, notConvertibleFile.lastModified());
+        assertArrayEquals(CONVERTIBLE_SOURCE, Files.readAllBytes(otherFile.toPath()));
+    }
+
+    @Test
+    public void testNonUtf8FilesKeepTheirBytes() throws IOException {
+        File latin1File = createFile("latin1.php", LATIN_1_SOURCE);
+        assertEquals(PhpQuotesNormalizer.EXIT_CODE_OK, runNormalizer(latin1File.getPath()));
+        assertArrayEquals(LATIN_1_CONVERTED, Files.readAllBytes(latin1File.toPath()));
+    }
+
+    @Test
+    public void testManyFilesInParallel() throws IOException {
+        for (int i = 0; i < 100; i++) createFile("src/file" + i + ".php", CONVERTIBLE_SOURCE);
+        assertEquals(PhpQuotesNormalizer.EXIT_CODE_OK, runNormalizer("--threads", "4", temporaryFolder.getRoot().getPath()));
+        for (int i = 0; i < 100; i++) {
+            assertArrayEquals(CONVERTED_SOURCE, Files.readAllBytes(new File(temporaryFolder.getRoot(), "src/file" + i + ".php").toPath()));
+        }
+    }
+
+    @Test
+    public void testUsageErrors() {
+        assertEquals(PhpQuotesNormalizer.EXIT_CODE_ERROR, runNormalizer());
+        assertEquals(PhpQuotesNormalizer.EXIT_CODE_ERROR, runNormalizer("--unknown", "."));
+        assertEquals(PhpQuotesNormalizer.EXIT_CODE_ERROR, runNormalizer("--threads", "0", "."));
+    }
+
+}
@@ -0,0 +1,151 @@
+package com.axeldev.cli;
+
+import com.axeldev.PhpStringCodec;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the command line conversion against the test data of the plugin, so it always produces the same text as the
+ * intentions and the batch conversion do.
+ */
+public class PhpQuotesSourceConverterTest {
+    private static final String CARET_MARKER     = "<caret>";
+    private static final String SELECTION_MARKER = "<selection>";
+
+    private static File getTestDataDirectory(String testClassName) {
+        return new File(System.getProperty("testDataPath", "../testData"), testClassName);
+    }
+
+    private static String readTestData(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), "UTF-8").replace(CARET_MARKER, "");
+    }
+
+    private static void phpSourceConversionTest(File testDataDirectory, String testName, boolean concatenateEmbeddedExpressions) throws IOException {
+        String source = readTestData(new File(testDataDirectory, "before" + testName + ".php"));
+        String expectedSource = readTestData(new File(testDataDirectory, "after" + testName + ".php"));
+        String convertedSource = PhpQuotesSourceConverter.convertDoubleQuotedStrings(source, concatenateEmbeddedExpressions);
+        assertEquals(testName, expectedSource, convertedSource != null ? convertedSource : source);
+    }
+
+    /**
+     * Tells whether a test data file is about the strings under many carets or within a selection, which are the only
+     * ones replaced there, rather than about converting a string as a whole file conversion does.
+     */
+    private static boolean isCaretOrSelectionTestData(File file) throws IOException {
+        String source = new String(Files.readAllBytes(file.toPath()), "UTF-8");
+        return source.contains(SELECTION_MARKER) || source.indexOf(CARET_MARKER) != source.lastIndexOf(CARET_MARKER);
+    }
+
+    /**
+     * Tells whether a source has a double quoted string the intentions convert but the command line leaves untouched,
+     * as it can't be written as a single quoted string without adding escaping.
+     */
+    private static boolean hasNotSingleQuotableDoubleQuotedString(String source) {
+        for (PhpStringLiteral literal : PhpStringLiteralLexer.findStringLiterals(source)) {
+            if (!literal.doubleQuoted) continue;
+            for (PhpStringLiteral.Piece piece : literal.pieces) {
+                if (piece.kind != PhpStringLiteral.Piece.Kind.FRAGMENT) continue;
+                if (!PhpStringCodec.isPhpDoubleQuotedStringContentSingleQuotable(source, piece.startOffset, piece.endOffset)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasDoubleQuotedString(String source) {
+        for (PhpStringLiteral literal : PhpStringLiteralLexer.findStringLiterals(source)) {
+            if (literal.doubleQuoted) return true;
+        }
+        return false;
+    }
+
+    @Test
+    public void testDoubleQuotesIntentionTestData() throws IOException {
+        File testDataDirectory = getTestDataDirectory("com.axeldev.PhpReplaceDoubleQuotesWithEscapingIntentionTest");
+        File[] testDataFiles = testDataDirectory.listFiles();
+        assertTrue("Test data not found at " + testDataDirectory, testDataFiles != null && testDataFiles.length > 0);
+        int testCount = 0;
+        for (File testDataFile : testDataFiles) {
+            String fileName = testDataFile.getName();
+            if (!fileName.startsWith("before") || isCaretOrSelectionTestData(testDataFile)) continue;
+            // some of the intention test data is about replacing single quotes, which isn't done from the command line
+            String source = readTestData(testDataFile);
+            if (!hasDoubleQuotedString(source) || hasNotSingleQuotableDoubleQuotedString(source)) continue;
+            phpSourceConversionTest(testDataDirectory, fileName.substring("before".length(), fileName.length() - ".php".length()), true);
+            testCount++;
+        }
+        assertTrue(testCount > 0);
+    }
+
+    @Test
+    public void testBatchConverterSimpleStrings() throws IOException {
+        phpSourceConversionTest(getTestDataDirectory("com.axeldev.PhpQuotesBatchConverterTest"), "SimpleStrings", false);
+    }
+
+    @Test
+    public void testBatchConverterEmbeddedExpressions() throws IOException {
+        phpSourceConversionTest(getTestDataDirectory("com.axeldev.PhpQuotesBatchConverterTest"), "EmbeddedExpressions", true);
+    }
+
+    @Test
+    public void testNoStringsToConvert() {
+        assertNull(PhpQuotesSourceConverter.convertDoubleQuotedStrings("<?php\n$foo = 'bar';\n", true));
+    }
+
+    @Test
+    public void testCommentsHeredocsAndInlineHtmlAreSkipped() {
+        String source = "<p>\"html\"</p>\n" +
+            "<?php\n" +
+            "// \"comment\" ?> <b>\"html\"</b> <?php\n" +
+            "# \"comment\"\n" +
+            "/* \"comment\" */\n" +
+            "$foo = <<<EOT\n" +
+            "\"heredoc\"\n" +
+            "  EOT;\n" +
+            "$bar = `echo \"backtick\"`;\n" +
+            "$baz = \"string\";\n" +
+            "?>\n" +
+            "<p>\"html\"</p>\n";
+        String expectedSource = source.replace("\"string\"", "'string'");
+        assertEquals(expectedSource, PhpQuotesSourceConverter.convertDoubleQuotedStrings(source, true));
+    }
+
+    @Test
+    public void testNestedStringsOfUnconvertedStringsAreConverted() {
+        String source = "<?php\n$foo = \"{$bar[\"key\"]} $baz\";\n";
+        String expectedSource = "<?php\n$foo = \"{$bar['key']} $baz\";\n";
+        assertEquals(expectedSource, PhpQuotesSourceConverter.convertDoubleQuotedStrings(source, false));
+    }
+
+    @Test
+    public void testByteEscapesAreLeftUntouched() {
+        String source = "<?php\n$foo = \"caf\\xc3\\xa9\";\n$bar = \"x\\400y\";\n$baz = \"\\u{e9}\";\n";
+        assertNull(PhpQuotesSourceConverter.convertDoubleQuotedStrings(source, true));
+    }
+
+    @Test
+    public void testControlCharacterEscapesAreLeftUntouched() {
+        String source = "<?php\n$foo = \"line\\n\";\n$bar = \"a\\r\\nb\";\n$baz = \"tab\\there\";\n$qux = \"nul\\0\";\n";
+        assertNull(PhpQuotesSourceConverter.convertDoubleQuotedStrings(source, true));
+    }
+
+    @Test
+    public void testOnlySingleQuotableStringsAreConverted() {
+        String source = "<?php\n$foo = \"foo \\$bar\";\n$bar = \"line $foo\\n\";\n";
+        String expectedSource = "<?php\n$foo = 'foo $bar';\n$bar = \"line $foo\\n\";\n";
+        assertEquals(expectedSource, PhpQuotesSourceConverter.convertDoubleQuotedStrings(source, true));
+    }
+
+    @Test
+    public void testUnsupportedSyntaxIsLeftUntouched() {
+        String source = "<?php\n$foo = \"${bar}\";\n$baz = \"$qux?->quux\";\n";
+        assertNull(PhpQuotesSourceConverter.convertDoubleQuotedStrings(source, true));
+    }
+
+}
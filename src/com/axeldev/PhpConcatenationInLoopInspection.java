@@ -0,0 +1,264 @@
+package com.axeldev;
+
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.LocalQuickFix;
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.codeStyle.CodeStyleSettingsManager;
+import com.intellij.psi.codeStyle.CommonCodeStyleSettings;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.tree.TokenSet;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.lexer.PhpTokenTypes;
+import com.jetbrains.php.lang.parser.PhpElementTypes;
+import com.jetbrains.php.lang.psi.elements.DoWhile;
+import com.jetbrains.php.lang.psi.elements.For;
+import com.jetbrains.php.lang.psi.elements.ForeachStatement;
+import com.jetbrains.php.lang.psi.elements.Function;
+import com.jetbrains.php.lang.psi.elements.GroupStatement;
+import com.jetbrains.php.lang.psi.elements.SelfAssignmentExpression;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.jetbrains.php.lang.psi.elements.Variable;
+import com.jetbrains.php.lang.psi.elements.While;
+import com.jetbrains.php.lang.psi.visitors.PhpElementVisitor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reports strings built by appending a concatenation of string literals and other expressions with <tt>.=</tt> inside
+ * the body of a <tt>for</tt>, <tt>foreach</tt>, <tt>while</tt> or <tt>do</tt> loop, which copies the string built so
+ * far and creates the intermediate strings of the concatenation on every iteration. The appended parts can be
+ * collected in an array which is imploded once after the loop, when the string isn't used anywhere else in the loop,
+ * or the concatenation can be replaced with a single interpolated string, when it's made of strings and variables only.
+ * <p>
+ * Parts which aren't strings already are cast when collected, so objects are converted to string on the iteration
+ * they're appended on, and the implode is skipped when nothing was collected, so a loop which doesn't run leaves the
+ * variable untouched.
+ * </p>
+ */
+public class PhpConcatenationInLoopInspection extends LocalInspectionTool {
+
+    public static final String DISPLAY_NAME                 = "String concatenation in loop";
+    public static final String PROBLEM                      = "String built by appending a concatenation in a loop";
+    public static final String IMPLODE_FIX_NAME             = "Collect parts in an array and implode after the loop";
+    public static final String INTERPOLATED_APPEND_FIX_NAME = "Replace with a single interpolated append";
+
+    static final String PARTS_VARIABLE_SUFFIX = "Parts";
+
+    /**
+     * The tokens which can leave a loop without reaching the statement following it, which would skip the implode.
+     */
+    private static final TokenSet LOOP_EXIT_TOKENS = TokenSet.create(PhpTokenTypes.kwRETURN, PhpTokenTypes.kwTHROW, PhpTokenTypes.kwEXIT);
+    private static final TokenSet LOOP_JUMP_TOKENS = TokenSet.create(PhpTokenTypes.kwBREAK, PhpTokenTypes.kwCONTINUE);
+
+    private static final LocalQuickFix IMPLODE_QUICK_FIX             = new ImplodeQuickFix();
+    private static final LocalQuickFix INTERPOLATED_APPEND_QUICK_FIX = new InterpolatedAppendQuickFix();
+
+    @NotNull
+    @Override
+    public String getDisplayName() {
+        return DISPLAY_NAME;
+    }
+
+    @NotNull
+    @Override
+    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+        return new PhpElementVisitor() {
+            @Override
+            public void visitPhpSelfAssignmentExpression(SelfAssignmentExpression expression) {
+                if (!isPhpAppendStatement(expression) || !PhpStringUtil.isPhpConcatenation(expression.getValue())) return;
+                if (getEnclosingPhpLoop(expression) == null) return;
+                List<PsiElement> operands = PhpStringUtil.getPhpConcatenationOperands(expression.getValue());
+                if (operands == null || !hasStringLiteral(operands)) return;
+                List<LocalQuickFix> quickFixes = new ArrayList<LocalQuickFix>(2);
+                if (getImplodableLoop(expression) != null) quickFixes.add(IMPLODE_QUICK_FIX);
+                if (PhpStringUtil.isPhpConcatenationInterpolatable(expression.getValue())) quickFixes.add(INTERPOLATED_APPEND_QUICK_FIX);
+                holder.registerProblem(expression, PROBLEM, quickFixes.toArray(new LocalQuickFix[quickFixes.size()]));
+            }
+        };
+    }
+
+    private static boolean hasStringLiteral(List<PsiElement> operands) {
+        for (PsiElement operand : operands) {
+            if (operand instanceof StringLiteralExpression) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether an element is a statement appending to a variable, like <tt>$foo .= $bar;</tt>.
+     */
+    static boolean isPhpAppendStatement(PsiElement psiElement) {
+        if (!(psiElement instanceof SelfAssignmentExpression)) return false;
+        SelfAssignmentExpression selfAssignment = (SelfAssignmentExpression) psiElement;
+        PsiElement parent = selfAssignment.getParent();
+        return parent != null && parent.getNode().getElementType() == PhpElementTypes.STATEMENT &&
+            selfAssignment.getNode().findChildByType(PhpTokenTypes.opCONCAT_ASGN) != null &&
+            selfAssignment.getVariable() instanceof Variable && selfAssignment.getValue() != null;
+    }
+
+    static boolean isPhpLoop(PsiElement psiElement) {
+        return psiElement instanceof For || psiElement instanceof ForeachStatement || psiElement instanceof While || psiElement instanceof DoWhile;
+    }
+
+    /**
+     * Finds the innermost loop an element is in, without leaving the function or closure the element belongs to.
+     */
+    static PsiElement getEnclosingPhpLoop(PsiElement psiElement) {
+        for (PsiElement currentPsi = psiElement.getParent(); currentPsi != null; currentPsi = currentPsi.getParent()) {
+            if (isPhpLoop(currentPsi)) return currentPsi;
+            if (currentPsi instanceof Function || currentPsi instanceof PsiFile) return null;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the loop whose appends to a variable can be replaced with array pushes followed by a single implode: the
+     * innermost loop of the append, if it's a statement of a block, if it never reads the variable other than by
+     * appending to it in statements, and if it can't be left other than by reaching its end or breaking out of it.
+     *
+     * @param selfAssignment A statement appending a concatenation to a variable
+     * @return The loop, or <code>null</code> if the appends can't be replaced with an implode
+     */
+    static PsiElement getImplodableLoop(SelfAssignmentExpression selfAssignment) {
+        PsiElement loop = getEnclosingPhpLoop(selfAssignment);
+        if (loop == null || !(loop.getParent() instanceof GroupStatement)) return null;
+        String variableName = ((Variable) selfAssignment.getVariable()).getName();
+        if (variableName == null) return null;
+        for (Variable variable : PsiTreeUtil.findChildrenOfType(loop, Variable.class)) {
+            if (variableName.equals(variable.getName()) && !isAppendedVariable(variable)) return null;
+        }
+        int loopEndOffset = loop.getTextRange().getEndOffset();
+        for (PsiElement leaf = PsiTreeUtil.firstChild(loop); leaf != null && leaf.getTextRange().getEndOffset() <= loopEndOffset; leaf = PsiTreeUtil.nextLeaf(leaf)) {
+            IElementType leafType = leaf.getNode().getElementType();
+            if (LOOP_EXIT_TOKENS.contains(leafType)) return null;
+            // breaking out of several loops at once could jump past the implode too
+            if (LOOP_JUMP_TOKENS.contains(leafType)) {
+                PsiElement nextLeaf = PsiTreeUtil.nextVisibleLeaf(leaf);
+                if (nextLeaf == null || nextLeaf.getNode().getElementType() != PhpTokenTypes.opSEMICOLON) return null;
+            }
+        }
+        return loop;
+    }
+
+    private static boolean isAppendedVariable(Variable variable) {
+        PsiElement parent = variable.getParent();
+        return parent instanceof SelfAssignmentExpression && ((SelfAssignmentExpression) parent).getVariable() == variable &&
+            isPhpAppendStatement(parent);
+    }
+
+    /**
+     * Gets a name for the array collecting the parts appended to a variable which isn't used by any variable in a scope.
+     */
+    private static String getPartsVariableName(String variableName, PsiElement scope) {
+        Set<String> usedNames = new HashSet<String>();
+        for (Variable variable : PsiTreeUtil.findChildrenOfType(scope, Variable.class)) usedNames.add(variable.getName());
+        String partsVariableName = variableName + PARTS_VARIABLE_SUFFIX;
+        for (int i = 2; usedNames.contains(partsVariableName); i++) partsVariableName = variableName + PARTS_VARIABLE_SUFFIX + i;
+        return partsVariableName;
+    }
+
+    /**
+     * Replaces the appends to the reported variable inside its loop with pushes to an array which is initialized right
+     * before the loop and imploded into the variable right after it, if anything was pushed, by editing the document in
+     * a single batch.
+     */
+    private static class ImplodeQuickFix implements LocalQuickFix {
+        @NotNull
+        @Override
+        public String getName() {
+            return IMPLODE_FIX_NAME;
+        }
+
+        @NotNull
+        @Override
+        public String getFamilyName() {
+            return IMPLODE_FIX_NAME;
+        }
+
+        @Override
+        public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+            PsiElement psiElement = descriptor.getPsiElement();
+            if (psiElement == null || !psiElement.isValid() || !isPhpAppendStatement(psiElement)) return;
+            SelfAssignmentExpression selfAssignment = (SelfAssignmentExpression) psiElement;
+            PsiElement loop = getImplodableLoop(selfAssignment);
+            if (loop == null) return;
+            PsiFile psiFile = loop.getContainingFile();
+            PsiDocumentManager psiDocumentManager = PsiDocumentManager.getInstance(project);
+            Document document = psiDocumentManager.getDocument(psiFile);
+            if (document == null) return;
+            String variableName = ((Variable) selfAssignment.getVariable()).getName();
+            PsiElement scope = PsiTreeUtil.getParentOfType(loop, Function.class);
+            String partsVariable = "$" + getPartsVariableName(variableName, scope != null ? scope : psiFile);
+            // the appends, in document order, to be replaced from the end backwards so offsets stay valid
+            List<SelfAssignmentExpression> appends = new ArrayList<SelfAssignmentExpression>();
+            for (Variable variable : PsiTreeUtil.findChildrenOfType(loop, Variable.class)) {
+                if (variableName.equals(variable.getName())) appends.add((SelfAssignmentExpression) variable.getParent());
+            }
+            TextRange loopRange = loop.getTextRange();
+            CharSequence documentChars = document.getCharsSequence();
+            int lineStartOffset = document.getLineStartOffset(document.getLineNumber(loopRange.getStartOffset()));
+            int indentEndOffset = lineStartOffset;
+            while (indentEndOffset < loopRange.getStartOffset() && Character.isWhitespace(documentChars.charAt(indentEndOffset))) indentEndOffset++;
+            String indent = documentChars.subSequence(lineStartOffset, indentEndOffset).toString();
+            CommonCodeStyleSettings.IndentOptions indentOptions = CodeStyleSettingsManager.getSettings(project).getIndentOptions(psiFile.getFileType());
+            String indentUnit = indentOptions.USE_TAB_CHARACTER ? "\t" : StringUtil.repeatSymbol(' ', indentOptions.INDENT_SIZE);
+            // the appended parts are read before the document is edited
+            List<String> partTexts = new ArrayList<String>(appends.size());
+            for (SelfAssignmentExpression append : appends) {
+                StringBuilder partBuffer = new StringBuilder(partsVariable).append("[] = ");
+                PhpStringUtil.appendPhpStringExpression(append.getValue(), partBuffer);
+                partTexts.add(partBuffer.toString());
+            }
+            psiDocumentManager.doPostponedOperationsAndUnblockDocument(document);
+            document.insertString(loopRange.getEndOffset(), "\n" + indent + "if (" + partsVariable + ") {\n" +
+                indent + indentUnit + "$" + variableName + " .= implode('', " + partsVariable + ");\n" + indent + "}");
+            for (int i = appends.size() - 1; i >= 0; i--) {
+                SelfAssignmentExpression append = appends.get(i);
+                document.replaceString(append.getTextRange().getStartOffset(), append.getValue().getTextRange().getEndOffset(), partTexts.get(i));
+            }
+            document.insertString(loopRange.getStartOffset(), partsVariable + " = array();\n" + indent);
+            psiDocumentManager.commitDocument(document);
+        }
+    }
+
+    /**
+     * Replaces the appended concatenation with the equivalent double quoted string, the same way the "Replace
+     * concatenation with interpolated string" intention does.
+     */
+    private static class InterpolatedAppendQuickFix implements LocalQuickFix {
+        @NotNull
+        @Override
+        public String getName() {
+            return INTERPOLATED_APPEND_FIX_NAME;
+        }
+
+        @NotNull
+        @Override
+        public String getFamilyName() {
+            return INTERPOLATED_APPEND_FIX_NAME;
+        }
+
+        @Override
+        public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+            PsiElement psiElement = descriptor.getPsiElement();
+            if (!(psiElement instanceof SelfAssignmentExpression) || !psiElement.isValid()) return;
+            PsiElement concatenation = ((SelfAssignmentExpression) psiElement).getValue();
+            if (concatenation == null || !PhpStringUtil.isPhpConcatenationInterpolatable(concatenation)) return;
+            PhpStringUtil.replacePhpConcatenationWithDoubleQuotedString(concatenation);
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+package com.axeldev;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.analysis.BaseAnalysisAction;
+import com.intellij.analysis.BaseAnalysisActionDialog;
+import com.intellij.ide.util.PropertiesComponent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.jetbrains.php.lang.psi.PhpFile;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.BorderFactory;
+import javax.swing.BoxLayout;
+import javax.swing.ButtonGroup;
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.JRadioButton;
+import java.awt.event.ItemEvent;
+import java.awt.event.ItemListener;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the double quoted strings of every PHP file in a scope with single quoted ones or, the other way around, its
+ * concatenation chains with interpolated double quoted strings, completely keeping semantics. Replacement texts are
+ * computed file by file in background, and each file is then modified with a single batch of document edits in its own
+ * command, so every file can be undone on its own. When replacing double quoted strings, files without any of them to
+ * convert are told apart through {@link PhpStringLiteralIndex}, so they aren't parsed.
+ */
+public class PhpNormalizeQuotesAction extends BaseAnalysisAction {
+
+    public static final String ACTION_TITLE                           = "Normalize Quotes";
+    public static final String ANALYSIS_NOUN                          = "Quotes normalization";
+    public static final String PROGRESS_TITLE                         = "Normalizing quotes";
+    public static final String COMMAND_NAME                           = "Normalize quotes";
+    public static final String CONCATENATE_EMBEDDED_EXPRESSIONS_LABEL = "Concatenate variables embedded in double quoted strings";
+    public static final String SINGLE_QUOTES_MODE_LABEL               = "Replace double quoted strings with single quoted ones";
+    public static final String INTERPOLATION_MODE_LABEL               = "Replace concatenations with interpolated double quoted strings";
+
+    private static final String CONCATENATE_EMBEDDED_EXPRESSIONS_PROPERTY = "com.axeldev.php1Up.normalizeQuotes.concatenateEmbeddedExpressions";
+    private static final String INTERPOLATE_CONCATENATIONS_PROPERTY       = "com.axeldev.php1Up.normalizeQuotes.interpolateConcatenations";
+
+    public PhpNormalizeQuotesAction() {
+        super(ACTION_TITLE, ANALYSIS_NOUN);
+    }
+
+    @Override
+    protected void analyze(@NotNull final Project project, @NotNull final AnalysisScope scope) {
+        final boolean concatenateEmbeddedExpressions = PropertiesComponent.getInstance().getBoolean(CONCATENATE_EMBEDDED_EXPRESSIONS_PROPERTY, false);
+        final boolean interpolateConcatenations = PropertiesComponent.getInstance().getBoolean(INTERPOLATE_CONCATENATIONS_PROPERTY, false);
+        // replacements are computed from the PSI trees, so they must be up to date with the documents
+        PsiDocumentManager.getInstance(project).commitAllDocuments();
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, PROGRESS_TITLE, true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(true);
+                List<VirtualFile> phpFiles = collectPhpFiles(scope);
+                indicator.setIndeterminate(false);
+                for (int i = 0; i < phpFiles.size(); i++) {
+                    indicator.checkCanceled();
+                    VirtualFile phpFile = phpFiles.get(i);
+                    indicator.setFraction((double) i / phpFiles.size());
+                    indicator.setText2(phpFile.getPresentableUrl());
+                    final PendingFileChange pendingFileChange = computeFileChange(project, phpFile, concatenateEmbeddedExpressions, interpolateConcatenations);
+                    if (pendingFileChange == null) continue;
+                    ApplicationManager.getApplication().invokeAndWait(new Runnable() {
+                        @Override
+                        public void run() {
+                            pendingFileChange.apply(project);
+                        }
+                    }, ModalityState.defaultModalityState());
+                }
+            }
+        });
+    }
+
+    @Override
+    protected JComponent getAdditionalActionSettings(Project project, BaseAnalysisActionDialog dialog) {
+        final PropertiesComponent propertiesComponent = PropertiesComponent.getInstance();
+        boolean interpolateConcatenations = propertiesComponent.getBoolean(INTERPOLATE_CONCATENATIONS_PROPERTY, false);
+        final JRadioButton singleQuotesRadioButton = new JRadioButton(SINGLE_QUOTES_MODE_LABEL, !interpolateConcatenations);
+        final JRadioButton interpolationRadioButton = new JRadioButton(INTERPOLATION_MODE_LABEL, interpolateConcatenations);
+        ButtonGroup modeButtonGroup = new ButtonGroup();
+        modeButtonGroup.add(singleQuotesRadioButton);
+        modeButtonGroup.add(interpolationRadioButton);
+        final JCheckBox concatenateCheckBox = new JCheckBox(CONCATENATE_EMBEDDED_EXPRESSIONS_LABEL,
+            propertiesComponent.getBoolean(CONCATENATE_EMBEDDED_EXPRESSIONS_PROPERTY, false));
+        concatenateCheckBox.setEnabled(!interpolateConcatenations);
+        concatenateCheckBox.setBorder(BorderFactory.createEmptyBorder(0, 20, 0, 0));
+        concatenateCheckBox.addItemListener(new ItemListener() {
+            @Override
+            public void itemStateChanged(ItemEvent e) {
+                propertiesComponent.setValue(CONCATENATE_EMBEDDED_EXPRESSIONS_PROPERTY, String.valueOf(concatenateCheckBox.isSelected()));
+            }
+        });
+        interpolationRadioButton.addItemListener(new ItemListener() {
+            @Override
+            public void itemStateChanged(ItemEvent e) {
+                propertiesComponent.setValue(INTERPOLATE_CONCATENATIONS_PROPERTY, String.valueOf(interpolationRadioButton.isSelected()));
+                concatenateCheckBox.setEnabled(!interpolationRadioButton.isSelected());
+            }
+        });
+        JPanel settingsPanel = new JPanel();
+        settingsPanel.setLayout(new BoxLayout(settingsPanel, BoxLayout.Y_AXIS));
+        settingsPanel.add(singleQuotesRadioButton);
+        settingsPanel.add(concatenateCheckBox);
+        settingsPanel.add(interpolationRadioButton);
+        return settingsPanel;
+    }
+
+    private static List<VirtualFile> collectPhpFiles(AnalysisScope scope) {
+        final List<VirtualFile> phpFiles = new ArrayList<VirtualFile>();
+        // the scope takes a read action for visiting each file
+        scope.accept(new PsiElementVisitor() {
+            @Override
+            public void visitFile(PsiFile file) {
+                if (file instanceof PhpFile && file.getVirtualFile() != null) {
+                    phpFiles.add(file.getVirtualFile());
+                }
+            }
+        });
+        return phpFiles;
+    }
+
+    private static PendingFileChange computeFileChange(final Project project, final VirtualFile virtualFile, final boolean concatenateEmbeddedExpressions,
+                                                       final boolean interpolateConcatenations) {
+        return ApplicationManager.getApplication().runReadAction(new Computable<PendingFileChange>() {
+            @Override
+            public PendingFileChange compute() {
+                if (project.isDisposed() || !virtualFile.isValid()) return null;
+                // the index is unavailable while indexing, in which case every file is parsed; concatenations aren't indexed
+                if (!interpolateConcatenations && !DumbService.isDumb(project) &&
+                    !hasConvertibleStrings(project, virtualFile, concatenateEmbeddedExpressions)) return null;
+                PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
+                if (!(psiFile instanceof PhpFile)) return null;
+                PsiDocumentManager psiDocumentManager = PsiDocumentManager.getInstance(project);
+                Document document = psiDocumentManager.getDocument(psiFile);
+                // a document being edited meanwhile doesn't match its PSI tree, so it's left untouched
+                if (document == null || psiDocumentManager.isUncommited(document)) return null;
+                List<PhpQuotesBatchConverter.Replacement> replacements = interpolateConcatenations ?
+                    PhpQuotesBatchConverter.computeConcatenationReplacements(psiFile) :
+                    PhpQuotesBatchConverter.computeDoubleQuotedStringReplacements(psiFile, concatenateEmbeddedExpressions);
+                if (replacements.isEmpty()) return null;
+                return new PendingFileChange(psiFile, document, document.getModificationStamp(), replacements);
+            }
+        });
+    }
+
+    private static boolean hasConvertibleStrings(Project project, VirtualFile virtualFile, boolean concatenateEmbeddedExpressions) {
+        if (concatenateEmbeddedExpressions) {
+            return PhpStringLiteralIndex.hasStringLiterals(project, virtualFile,
+                PhpStringLiteralIndex.Kind.SIMPLE_DOUBLE_QUOTED, PhpStringLiteralIndex.Kind.INTERPOLATED_DOUBLE_QUOTED);
+        }
+        return PhpStringLiteralIndex.hasStringLiterals(project, virtualFile, PhpStringLiteralIndex.Kind.SIMPLE_DOUBLE_QUOTED);
+    }
+
+    /**
+     * The replacements computed for a file, along with the modification stamp of the document they were computed from.
+     */
+    private static class PendingFileChange {
+        private final PsiFile                                   psiFile;
+        private final Document                                  document;
+        private final long                                      modificationStamp;
+        private final List<PhpQuotesBatchConverter.Replacement> replacements;
+
+        PendingFileChange(PsiFile psiFile, Document document, long modificationStamp, List<PhpQuotesBatchConverter.Replacement> replacements) {
+            this.psiFile = psiFile;
+            this.document = document;
+            this.modificationStamp = modificationStamp;
+            this.replacements = replacements;
+        }
+
+        void apply(final Project project) {
+            // skip the file if it was modified since the replacements were computed
+            if (project.isDisposed() || !psiFile.isValid() || document.getModificationStamp() != modificationStamp) return;
+            new WriteCommandAction.Simple(project, COMMAND_NAME, psiFile) {
+                @Override
+                protected void run() throws Throwable {
+                    PhpQuotesBatchConverter.applyReplacements(project, document, replacements);
+                }
+            }.execute();
+        }
+    }
+
+}
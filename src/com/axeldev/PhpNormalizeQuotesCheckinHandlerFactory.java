@@ -0,0 +1,223 @@
+package com.axeldev;
+
+import com.intellij.ide.util.PropertiesComponent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.Condition;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.text.LineTokenizer;
+import com.intellij.openapi.vcs.CheckinProjectPanel;
+import com.intellij.openapi.vcs.VcsException;
+import com.intellij.openapi.vcs.changes.Change;
+import com.intellij.openapi.vcs.changes.CommitContext;
+import com.intellij.openapi.vcs.changes.ContentRevision;
+import com.intellij.openapi.vcs.checkin.CheckinHandler;
+import com.intellij.openapi.vcs.checkin.CheckinHandlerFactory;
+import com.intellij.openapi.vcs.ui.RefreshableOnComponent;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.util.diff.Diff;
+import com.intellij.util.diff.FilesTooBigForDiffException;
+import com.jetbrains.php.lang.psi.PhpFile;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import java.awt.BorderLayout;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Replaces, before committing, the double quoted strings without embedded variables found on the changed lines of the
+ * committed PHP files with single quoted ones, so quotes get normalized as code is touched without rewriting whole
+ * legacy files. Only the literals overlapping the changed line ranges are looked for and converted, and each file is
+ * modified with a single batch of document edits in its own command, so the cost depends on the size of the diff
+ * rather than on the size of the files. The committed contents are read and the replacements computed under a
+ * cancelable progress, and only then applied; strings needing new escaping as single quoted strings are left alone.
+ */
+public class PhpNormalizeQuotesCheckinHandlerFactory extends CheckinHandlerFactory {
+
+    public static final String CHECKBOX_LABEL = "Normalize PHP quotes on changed lines";
+    public static final String COMMAND_NAME   = "Normalize quotes on changed lines";
+    public static final String PROGRESS_TITLE = "Normalizing quotes on changed lines";
+
+    private static final String NORMALIZE_QUOTES_PROPERTY = "com.axeldev.php1Up.normalizeQuotesBeforeCheckin";
+
+    static final Condition<PsiElement> IS_SIMPLE_DOUBLE_QUOTED_STRING = new Condition<PsiElement>() {
+        @Override
+        public boolean value(PsiElement stringLiteralExpression) {
+            // strings needing new escaping are left alone, as their control characters and bytes would be written raw
+            return PhpStringUtil.isPhpDoubleQuotedStringSingleQuotable(stringLiteralExpression) &&
+                !PhpStringUtil.isPhpDoubleQuotedEmptyString(stringLiteralExpression);
+        }
+    };
+
+    @NotNull
+    @Override
+    public CheckinHandler createHandler(@NotNull CheckinProjectPanel panel, @NotNull CommitContext commitContext) {
+        return new NormalizeQuotesCheckinHandler(panel);
+    }
+
+    private static class NormalizeQuotesCheckinHandler extends CheckinHandler {
+        private final CheckinProjectPanel panel;
+
+        NormalizeQuotesCheckinHandler(CheckinProjectPanel panel) {
+            this.panel = panel;
+        }
+
+        @Override
+        public RefreshableOnComponent getBeforeCheckinConfigurationPanel() {
+            final PropertiesComponent propertiesComponent = PropertiesComponent.getInstance(panel.getProject());
+            final JCheckBox normalizeQuotesCheckBox = new JCheckBox(CHECKBOX_LABEL);
+            return new RefreshableOnComponent() {
+                @Override
+                public JComponent getComponent() {
+                    JPanel settingsPanel = new JPanel(new BorderLayout());
+                    settingsPanel.add(normalizeQuotesCheckBox, BorderLayout.WEST);
+                    return settingsPanel;
+                }
+
+                @Override
+                public void refresh() {
+                }
+
+                @Override
+                public void saveState() {
+                    propertiesComponent.setValue(NORMALIZE_QUOTES_PROPERTY, String.valueOf(normalizeQuotesCheckBox.isSelected()));
+                }
+
+                @Override
+                public void restoreState() {
+                    normalizeQuotesCheckBox.setSelected(propertiesComponent.getBoolean(NORMALIZE_QUOTES_PROPERTY, false));
+                }
+            };
+        }
+
+        @Override
+        public ReturnResult beforeCheckin() {
+            final Project project = panel.getProject();
+            if (!PropertiesComponent.getInstance(project).getBoolean(NORMALIZE_QUOTES_PROPERTY, false)) return ReturnResult.COMMIT;
+            PsiDocumentManager.getInstance(project).commitAllDocuments();
+            final Collection<Change> changes = panel.getSelectedChanges();
+            final List<FileReplacements> fileReplacements = new ArrayList<FileReplacements>();
+            // the committed contents are read and the files scanned off the event dispatch thread
+            boolean computed = ProgressManager.getInstance().runProcessWithProgressSynchronously(new Runnable() {
+                @Override
+                public void run() {
+                    for (Change change : changes) {
+                        ProgressManager.checkCanceled();
+                        FileReplacements changeReplacements = computeChangedLinesReplacements(project, change);
+                        if (changeReplacements != null) fileReplacements.add(changeReplacements);
+                    }
+                }
+            }, PROGRESS_TITLE, true, project);
+            if (!computed) return ReturnResult.CANCEL;
+            for (FileReplacements changeReplacements : fileReplacements) {
+                applyReplacements(project, changeReplacements);
+            }
+            return ReturnResult.COMMIT;
+        }
+    }
+
+    /**
+     * The replacements computed for the changed lines of a committed file, to be applied once all of them are known.
+     */
+    private static class FileReplacements {
+        final PsiFile                                   psiFile;
+        final Document                                  document;
+        final long                                      modificationStamp;
+        final List<PhpQuotesBatchConverter.Replacement> replacements;
+
+        FileReplacements(PsiFile psiFile, Document document, long modificationStamp, List<PhpQuotesBatchConverter.Replacement> replacements) {
+            this.psiFile = psiFile;
+            this.document = document;
+            this.modificationStamp = modificationStamp;
+            this.replacements = replacements;
+        }
+    }
+
+    private static FileReplacements computeChangedLinesReplacements(final Project project, Change change) {
+        ContentRevision afterRevision = change.getAfterRevision();
+        final VirtualFile virtualFile = change.getVirtualFile();
+        if (afterRevision == null || virtualFile == null) return null;
+        ContentRevision beforeRevision = change.getBeforeRevision();
+        final String beforeContent;
+        try {
+            beforeContent = beforeRevision == null ? null : beforeRevision.getContent();
+        } catch (VcsException e) {
+            // without the committed content the changed lines are unknown, so the file is left untouched
+            return null;
+        }
+        return ApplicationManager.getApplication().runReadAction(new Computable<FileReplacements>() {
+            @Override
+            public FileReplacements compute() {
+                if (!virtualFile.isValid()) return null;
+                PsiFile psiFile = PsiManager.getInstance(project).findFile(virtualFile);
+                if (!(psiFile instanceof PhpFile)) return null;
+                Document document = PsiDocumentManager.getInstance(project).getDocument(psiFile);
+                if (document == null) return null;
+                List<TextRange> changedLineRanges = beforeContent == null ? wholeDocumentRange(document) : computeChangedLineRanges(beforeContent, document);
+                if (changedLineRanges == null || changedLineRanges.isEmpty()) return null;
+                List<PhpQuotesBatchConverter.Replacement> replacements =
+                    PhpQuotesBatchConverter.computeStringLiteralRangeReplacements(psiFile, changedLineRanges, IS_SIMPLE_DOUBLE_QUOTED_STRING);
+                if (replacements.isEmpty()) return null;
+                return new FileReplacements(psiFile, document, document.getModificationStamp(), replacements);
+            }
+        });
+    }
+
+    private static void applyReplacements(final Project project, final FileReplacements fileReplacements) {
+        // a file edited while its replacements were computed is left untouched, as the offsets would be stale
+        if (fileReplacements.document.getModificationStamp() != fileReplacements.modificationStamp) return;
+        new WriteCommandAction.Simple(project, COMMAND_NAME, fileReplacements.psiFile) {
+            @Override
+            protected void run() throws Throwable {
+                PhpQuotesBatchConverter.applyReplacements(project, fileReplacements.document, fileReplacements.replacements);
+            }
+        }.execute();
+        FileDocumentManager.getInstance().saveDocument(fileReplacements.document);
+    }
+
+    private static List<TextRange> wholeDocumentRange(Document document) {
+        List<TextRange> ranges = new ArrayList<TextRange>(1);
+        if (document.getTextLength() > 0) ranges.add(new TextRange(0, document.getTextLength()));
+        return ranges;
+    }
+
+    /**
+     * Computes the ranges of the lines of a document which were inserted or modified since a previous version of it.
+     *
+     * @param beforeContent The previous version of the document content
+     * @param document      The document
+     * @return The non empty ranges of the changed lines of the document, sorted by offset, or <code>null</code> if the
+     * contents are too big to be compared
+     */
+    static List<TextRange> computeChangedLineRanges(CharSequence beforeContent, Document document) {
+        Diff.Change change;
+        try {
+            change = Diff.buildChanges(LineTokenizer.tokenize(beforeContent, false), LineTokenizer.tokenize(document.getCharsSequence(), false));
+        } catch (FilesTooBigForDiffException e) {
+            return null;
+        }
+        List<TextRange> ranges = new ArrayList<TextRange>();
+        int lastLine = document.getLineCount() - 1;
+        for (; change != null; change = change.link) {
+            if (change.inserted == 0 || change.line1 > lastLine) continue;
+            int startOffset = document.getLineStartOffset(change.line1);
+            int endOffset = document.getLineEndOffset(Math.min(change.line1 + change.inserted - 1, lastLine));
+            if (startOffset < endOffset) ranges.add(new TextRange(startOffset, endOffset));
+        }
+        return ranges;
+    }
+
+}
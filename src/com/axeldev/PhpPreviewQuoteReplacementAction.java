@@ -0,0 +1,52 @@
+package com.axeldev;
+
+import com.intellij.codeInsight.hint.HintManager;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.jetbrains.php.lang.psi.PhpFile;
+
+/**
+ * Shows the PHP single or double quoted string at the caret as "Replace quotes with escaping" would replace it, before
+ * applying it. The replacement text is computed off the event dispatch thread and kept for the intention to reuse.
+ */
+public class PhpPreviewQuoteReplacementAction extends AnAction {
+
+    public static final String NO_STRING_MESSAGE = "No PHP single or double quoted string at caret";
+
+    @Override
+    public void update(AnActionEvent e) {
+        e.getPresentation().setEnabled(e.getData(CommonDataKeys.EDITOR) != null && e.getData(CommonDataKeys.PSI_FILE) instanceof PhpFile);
+    }
+
+    @Override
+    public void actionPerformed(AnActionEvent e) {
+        Project project = e.getData(CommonDataKeys.PROJECT);
+        Editor editor = e.getData(CommonDataKeys.EDITOR);
+        PsiFile psiFile = e.getData(CommonDataKeys.PSI_FILE);
+        if (project == null || editor == null || !(psiFile instanceof PhpFile)) return;
+        PsiDocumentManager.getInstance(project).commitDocument(editor.getDocument());
+        int offset = editor.getCaretModel().getOffset();
+        PsiElement stringLiteralExpression = findPhpQuotedStringExpression(psiFile, offset);
+        // a caret right after a literal still targets it
+        if (stringLiteralExpression == null && offset > 0) stringLiteralExpression = findPhpQuotedStringExpression(psiFile, offset - 1);
+        if (stringLiteralExpression == null) {
+            HintManager.getInstance().showErrorHint(editor, NO_STRING_MESSAGE);
+            return;
+        }
+        PhpQuotesReplacementPreview.showPreviewHint(editor, stringLiteralExpression);
+    }
+
+    private static PsiElement findPhpQuotedStringExpression(PsiFile psiFile, int offset) {
+        PsiElement psiElement = psiFile.findElementAt(offset);
+        if (psiElement == null) return null;
+        if (PhpStringUtil.isPhpSingleQuotedString(psiElement)) return psiElement.getParent();
+        return PhpStringUtil.getPhpDoubleQuotedStringExpression(psiElement);
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.axeldev;
+
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.LocalQuickFix;
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.codeInspection.ui.SingleCheckboxOptionsPanel;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.jetbrains.php.lang.psi.visitors.PhpElementVisitor;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.JComponent;
+import java.util.List;
+
+/**
+ * Reports double quoted strings which read the same with single quotes, and single quoted strings which would be
+ * cleaner with double quotes because of their escaped single quotes. Convertibility is decided by scanning the token
+ * types and the source code of each string, without unescaping it, so the inspection is cheap enough for the daemon.
+ * <p>
+ * In the cheapest quoting mode, strings are reported instead whenever they can be written with fewer escapes, as
+ * single or double quoted strings or as a concatenation, which is decided by counting escapes on the same scan. A
+ * string is measured by the escapes its own quoting needs at least, so an over-escaped string isn't reported.
+ * </p>
+ */
+public class PhpQuoteStyleInspection extends LocalInspectionTool {
+
+    public static final String DISPLAY_NAME                        = "Quote style";
+    public static final String DOUBLE_QUOTED_STRING_PROBLEM        = "Double quoted string can be single quoted";
+    public static final String SINGLE_QUOTED_STRING_PROBLEM        = "Single quoted string with escaped quotes can be double quoted";
+    public static final String CONCATENATION_PROBLEM               = "Double quoted string needs fewer escapes as a concatenation";
+    public static final String FEWER_ESCAPES_SINGLE_QUOTED_PROBLEM = "Double quoted string needs fewer escapes single quoted";
+    public static final String FEWER_ESCAPES_DOUBLE_QUOTED_PROBLEM = "Single quoted string needs fewer escapes double quoted";
+    public static final String FIX_ALL_IN_FILE_NAME                = "Fix all quote style problems in file";
+    public static final String CHEAPEST_QUOTING_OPTION             = "Report any string which can be written with fewer escapes";
+
+    private static final LocalQuickFix REPLACE_QUOTES_QUICK_FIX                          = new ReplaceQuotesQuickFix();
+    private static final LocalQuickFix REPLACE_QUOTES_IN_FILE_QUICK_FIX                  = new ReplaceQuotesInFileQuickFix(false);
+    private static final LocalQuickFix REPLACE_QUOTES_IN_FILE_CHEAPEST_QUOTING_QUICK_FIX = new ReplaceQuotesInFileQuickFix(true);
+
+    public boolean cheapestQuoting = false;
+
+    @NotNull
+    @Override
+    public String getDisplayName() {
+        return DISPLAY_NAME;
+    }
+
+    @Override
+    public JComponent createOptionsPanel() {
+        return new SingleCheckboxOptionsPanel(CHEAPEST_QUOTING_OPTION, this, "cheapestQuoting");
+    }
+
+    @NotNull
+    @Override
+    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+        if (cheapestQuoting) {
+            return new PhpElementVisitor() {
+                @Override
+                public void visitPhpStringLiteralExpression(StringLiteralExpression expression) {
+                    PhpStringUtil.Quoting cheaperQuoting = PhpStringUtil.getPhpStringLiteralCheaperQuoting(expression);
+                    if (cheaperQuoting == null) return;
+                    String problem = cheaperQuoting == PhpStringUtil.Quoting.SINGLE_QUOTED ? FEWER_ESCAPES_SINGLE_QUOTED_PROBLEM :
+                        cheaperQuoting == PhpStringUtil.Quoting.DOUBLE_QUOTED ? FEWER_ESCAPES_DOUBLE_QUOTED_PROBLEM : CONCATENATION_PROBLEM;
+                    holder.registerProblem(expression, problem, REPLACE_QUOTES_QUICK_FIX, REPLACE_QUOTES_IN_FILE_CHEAPEST_QUOTING_QUICK_FIX);
+                }
+            };
+        }
+        return new PhpElementVisitor() {
+            @Override
+            public void visitPhpStringLiteralExpression(StringLiteralExpression expression) {
+                if (PhpStringUtil.isPhpDoubleQuotedStringSingleQuotable(expression)) {
+                    holder.registerProblem(expression, DOUBLE_QUOTED_STRING_PROBLEM, REPLACE_QUOTES_QUICK_FIX, REPLACE_QUOTES_IN_FILE_QUICK_FIX);
+                } else if (PhpStringUtil.isPhpSingleQuotedStringDoubleQuotable(expression.getFirstChild())) {
+                    holder.registerProblem(expression, SINGLE_QUOTED_STRING_PROBLEM, REPLACE_QUOTES_QUICK_FIX, REPLACE_QUOTES_IN_FILE_QUICK_FIX);
+                }
+            }
+        };
+    }
+
+    /**
+     * Replaces the quotes of the reported string the same way the "Replace quotes with escaping" intentions do.
+     */
+    private static class ReplaceQuotesQuickFix implements LocalQuickFix {
+        @NotNull
+        @Override
+        public String getName() {
+            return PhpReplaceSingleQuotesWithEscapingIntention.INTENTION_NAME;
+        }
+
+        @NotNull
+        @Override
+        public String getFamilyName() {
+            return PhpReplaceSingleQuotesWithEscapingIntention.FAMILY_NAME;
+        }
+
+        @Override
+        public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+            PsiElement stringLiteralExpression = descriptor.getPsiElement();
+            if (stringLiteralExpression == null || !stringLiteralExpression.isValid()) return;
+            if (PhpStringUtil.isPhpDoubleQuotedString(stringLiteralExpression)) {
+                PhpStringUtil.replacePhpDoubleQuotedStringWithSingleQuoted(stringLiteralExpression);
+            } else if (PhpStringUtil.isPhpSingleQuotedString(stringLiteralExpression.getFirstChild())) {
+                PhpStringUtil.replacePhpSingleQuotedStringWithDoubleQuoted(stringLiteralExpression.getFirstChild());
+            }
+        }
+    }
+
+    /**
+     * Replaces the quotes of every string of the file which the inspection reports, as a single batch of document
+     * edits followed by a single commit.
+     */
+    private static class ReplaceQuotesInFileQuickFix implements LocalQuickFix {
+        private final boolean cheapestQuoting;
+
+        ReplaceQuotesInFileQuickFix(boolean cheapestQuoting) {
+            this.cheapestQuoting = cheapestQuoting;
+        }
+
+        @NotNull
+        @Override
+        public String getName() {
+            return FIX_ALL_IN_FILE_NAME;
+        }
+
+        @NotNull
+        @Override
+        public String getFamilyName() {
+            return FIX_ALL_IN_FILE_NAME;
+        }
+
+        @Override
+        public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+            PsiElement psiElement = descriptor.getPsiElement();
+            if (psiElement == null || !psiElement.isValid()) return;
+            PsiFile psiFile = psiElement.getContainingFile();
+            Document document = PsiDocumentManager.getInstance(project).getDocument(psiFile);
+            if (document == null) return;
+            List<PhpQuotesBatchConverter.Replacement> replacements = PhpQuotesBatchConverter.computeQuoteStyleReplacements(psiFile, cheapestQuoting);
+            if (replacements.isEmpty()) return;
+            PhpQuotesBatchConverter.applyReplacements(project, document, replacements);
+        }
+    }
+
+}
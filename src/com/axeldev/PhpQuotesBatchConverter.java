@@ -0,0 +1,268 @@
+package com.axeldev;
+
+import com.intellij.openapi.editor.Caret;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Condition;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Converts many PHP string literals of a file at once. Replacement texts are computed from the PSI tree, which only
+ * requires a read action and so can be done in background, and then applied as a single batch of document edits
+ * followed by a single commit, instead of replacing and reparsing each literal on its own.
+ */
+public class PhpQuotesBatchConverter {
+
+    /**
+     * A replacement text for a range of a document.
+     */
+    static class Replacement {
+        final int    startOffset;
+        final int    endOffset;
+        final String text;
+
+        Replacement(int startOffset, int endOffset, String text) {
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.text = text;
+        }
+    }
+
+    private static final Comparator<Replacement> REPLACEMENT_OFFSET_COMPARATOR = new Comparator<Replacement>() {
+        @Override
+        public int compare(Replacement replacement1, Replacement replacement2) {
+            return replacement1.startOffset - replacement2.startOffset;
+        }
+    };
+
+    /**
+     * Computes the replacements which convert all the PHP double quoted strings of a file to single quoted strings,
+     * but for those which can't be written as single quoted strings without adding escaping, as told by
+     * {@link PhpStringUtil#isPhpDoubleQuotedStringPiecesSingleQuotable(PsiElement)}. Must be called inside a read
+     * action. String literals found inside the embedded expressions of a converted string are left untouched, so the
+     * resulting replacements never overlap.
+     *
+     * @param psiFile                        The PHP file whose string literals are wanted to convert
+     * @param concatenateEmbeddedExpressions Whether to also convert strings with embedded variables or expressions, by
+     *                                       concatenating them, or to leave them untouched
+     * @return The replacements, sorted by their offset in the file
+     */
+    static List<Replacement> computeDoubleQuotedStringReplacements(PsiFile psiFile, final boolean concatenateEmbeddedExpressions) {
+        final List<Replacement> replacements = new ArrayList<Replacement>();
+        psiFile.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                // strings needing new escaping are left alone, as their control characters and bytes would be written raw
+                if (PhpStringUtil.isPhpDoubleQuotedString(element) && PhpStringUtil.isPhpDoubleQuotedStringPiecesSingleQuotable(element) &&
+                    (concatenateEmbeddedExpressions || !PhpStringUtil.isPhpDoubleQuotedComplexString(element))) {
+                    ProgressManager.checkCanceled();
+                    TextRange textRange = element.getTextRange();
+                    String replacementText = PhpStringUtil.convertPhpDoubleQuotedStringToSingleQuotedText(element);
+                    replacements.add(new Replacement(textRange.getStartOffset(), textRange.getEndOffset(), replacementText));
+                    // don't visit the string children, any nested string is kept as-is inside the embedded expressions
+                    return;
+                }
+                super.visitElement(element);
+            }
+        });
+        return replacements;
+    }
+
+    /**
+     * Computes the replacements which fix all the problems reported by {@link PhpQuoteStyleInspection} on a file, this
+     * is, which convert the double quoted strings that read the same with single quotes and the single quoted strings
+     * that would be cleaner with double quotes, or, in the cheapest quoting mode, the strings which can be written in
+     * a cheaper way. Must be called inside a read action.
+     *
+     * @param psiFile         The PHP file whose string literals are wanted to convert
+     * @param cheapestQuoting Whether to convert the strings which can be written in a cheaper way, as told by
+     *                        {@link PhpStringUtil#getPhpStringLiteralCheaperQuoting(PsiElement)}
+     * @return The replacements, sorted by their offset in the file
+     */
+    static List<Replacement> computeQuoteStyleReplacements(PsiFile psiFile, final boolean cheapestQuoting) {
+        final List<Replacement> replacements = new ArrayList<Replacement>();
+        psiFile.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                if (element instanceof StringLiteralExpression) {
+                    String replacementText = null;
+                    if (cheapestQuoting) {
+                        if (PhpStringUtil.getPhpStringLiteralCheaperQuoting(element) != null) {
+                            replacementText = PhpStringUtil.convertPhpStringLiteralText(element);
+                        }
+                    } else if (PhpStringUtil.isPhpDoubleQuotedStringSingleQuotable(element)) {
+                        replacementText = PhpStringUtil.convertPhpDoubleQuotedStringToSingleQuotedText(element);
+                    } else if (PhpStringUtil.isPhpSingleQuotedStringDoubleQuotable(element.getFirstChild())) {
+                        replacementText = PhpStringUtil.convertPhpSingleQuotedStringToDoubleQuotedText(element.getFirstChild());
+                    }
+                    if (replacementText != null) {
+                        ProgressManager.checkCanceled();
+                        TextRange textRange = element.getTextRange();
+                        replacements.add(new Replacement(textRange.getStartOffset(), textRange.getEndOffset(), replacementText));
+                        return;
+                    }
+                }
+                super.visitElement(element);
+            }
+        });
+        return replacements;
+    }
+
+    /**
+     * Computes the replacements which convert all the PHP concatenation chains of a file that can be interpolated to
+     * double quoted strings. Must be called inside a read action. Only whole chains are converted, and concatenations
+     * nested in a converted chain are left untouched, so the resulting replacements never overlap.
+     *
+     * @param psiFile The PHP file whose concatenations are wanted to convert
+     * @return The replacements, sorted by their offset in the file
+     */
+    static List<Replacement> computeConcatenationReplacements(PsiFile psiFile) {
+        final List<Replacement> replacements = new ArrayList<Replacement>();
+        psiFile.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                if (PhpStringUtil.isPhpConcatenation(element) && !PhpStringUtil.isPhpConcatenation(element.getParent())) {
+                    ProgressManager.checkCanceled();
+                    String replacementText = PhpStringUtil.convertPhpConcatenationToDoubleQuotedText(element);
+                    if (replacementText != null) {
+                        TextRange textRange = element.getTextRange();
+                        replacements.add(new Replacement(textRange.getStartOffset(), textRange.getEndOffset(), replacementText));
+                        return;
+                    }
+                }
+                super.visitElement(element);
+            }
+        });
+        return replacements;
+    }
+
+    /**
+     * Replaces every string literal under the carets of an editor or within their selections which the given condition
+     * accepts, as a single batch of document edits followed by a single commit, so it's undone in a single step. Must
+     * be called inside a write command. Nothing is done when the editor has a single caret without selection, which is
+     * left to the caller.
+     *
+     * @param project       The project the file belongs to
+     * @param editor        The editor whose carets and selections tell the string literals to replace
+     * @param psiFile       The PHP file open in the editor
+     * @param isConvertible Whether a PHP string literal expression is wanted to replace
+     * @return <code>true</code> if the editor has many carets or a selection, so the literals were replaced
+     */
+    static boolean replaceStringLiteralsAtCarets(Project project, Editor editor, PsiFile psiFile, Condition<PsiElement> isConvertible) {
+        List<Caret> carets = editor.getCaretModel().getAllCarets();
+        if (carets.size() == 1 && !carets.get(0).hasSelection()) return false;
+        List<TextRange> caretRanges = new ArrayList<TextRange>(carets.size());
+        for (Caret caret : carets) {
+            caretRanges.add(caret.hasSelection() ? new TextRange(caret.getSelectionStart(), caret.getSelectionEnd()) :
+                new TextRange(caret.getOffset(), caret.getOffset()));
+        }
+        applyReplacements(project, editor.getDocument(), computeStringLiteralRangeReplacements(psiFile, caretRanges, isConvertible));
+        return true;
+    }
+
+    /**
+     * Computes the replacements which convert the string literals accepted by a condition which contain any of the
+     * given offsets, for empty ranges, or which intersect any of the given ranges. Must be called inside a read action.
+     * A literal is converted once even if many ranges hit it, and literals nested in another converted literal are left
+     * untouched, so the resulting replacements never overlap.
+     *
+     * @param psiFile       The PHP file whose string literals are wanted to convert
+     * @param ranges        The ranges of the file, like the carets or selections of an editor
+     * @param isConvertible Whether a PHP string literal expression is wanted to convert
+     * @return The replacements, in no particular order
+     */
+    static List<Replacement> computeStringLiteralRangeReplacements(PsiFile psiFile, List<TextRange> ranges, final Condition<PsiElement> isConvertible) {
+        final Set<PsiElement> stringLiteralExpressions = new LinkedHashSet<PsiElement>();
+        for (final TextRange range : ranges) {
+            PsiElement rangeRoot = getRangeRoot(psiFile, range);
+            if (rangeRoot == null) continue;
+            rangeRoot.accept(new PsiRecursiveElementWalkingVisitor() {
+                @Override
+                public void visitElement(PsiElement element) {
+                    TextRange textRange = element.getTextRange();
+                    // a caret touching a literal targets it, but a selection must share some text with it
+                    if (range.isEmpty() ? !textRange.intersects(range) : !textRange.intersectsStrict(range)) return;
+                    if (element instanceof StringLiteralExpression && isConvertible.value(element)) {
+                        stringLiteralExpressions.add(element);
+                        return;
+                    }
+                    super.visitElement(element);
+                }
+            });
+        }
+        List<Replacement> replacements = new ArrayList<Replacement>(stringLiteralExpressions.size());
+        for (PsiElement stringLiteralExpression : stringLiteralExpressions) {
+            // another range may have hit a literal this one is embedded in
+            if (hasConvertedAncestor(stringLiteralExpression, stringLiteralExpressions)) continue;
+            TextRange textRange = stringLiteralExpression.getTextRange();
+            String replacementText = PhpStringUtil.getCachedPhpStringLiteralReplacementText(stringLiteralExpression);
+            replacements.add(new Replacement(textRange.getStartOffset(), textRange.getEndOffset(), replacementText));
+        }
+        return replacements;
+    }
+
+    /**
+     * Gets the element to look for string literals from for a range of a file: the innermost string literal holding a
+     * caret, or the innermost string literal or common parent holding a selection.
+     */
+    private static PsiElement getRangeRoot(PsiFile psiFile, TextRange range) {
+        PsiElement startElement = psiFile.findElementAt(range.getStartOffset());
+        if (range.isEmpty()) {
+            // a caret right after a literal still targets it
+            if (range.getStartOffset() > 0 && PsiTreeUtil.getParentOfType(startElement, StringLiteralExpression.class, false) == null) {
+                startElement = psiFile.findElementAt(range.getStartOffset() - 1);
+            }
+            return startElement == null ? null : PsiTreeUtil.getParentOfType(startElement, StringLiteralExpression.class, false);
+        }
+        PsiElement endElement = psiFile.findElementAt(range.getEndOffset() - 1);
+        if (startElement == null || endElement == null) return null;
+        PsiElement commonParent = PsiTreeUtil.findCommonParent(startElement, endElement);
+        if (commonParent == null) return null;
+        PsiElement stringLiteralExpression = PsiTreeUtil.getParentOfType(commonParent, StringLiteralExpression.class, false);
+        return stringLiteralExpression != null ? stringLiteralExpression : commonParent;
+    }
+
+    private static boolean hasConvertedAncestor(PsiElement psiElement, Set<PsiElement> convertedElements) {
+        for (PsiElement parent = psiElement.getParent(); parent != null && !(parent instanceof PsiFile); parent = parent.getParent()) {
+            if (convertedElements.contains(parent)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Applies a set of non overlapping replacements to a document and commits it once. Must be called inside a write
+     * action, and the replacements must have been computed from the current contents of the document.
+     *
+     * @param project      The project the document belongs to
+     * @param document     The document to modify
+     * @param replacements The replacements to apply, in any order
+     */
+    static void applyReplacements(Project project, Document document, List<Replacement> replacements) {
+        PsiDocumentManager psiDocumentManager = PsiDocumentManager.getInstance(project);
+        psiDocumentManager.doPostponedOperationsAndUnblockDocument(document);
+        List<Replacement> sortedReplacements = new ArrayList<Replacement>(replacements);
+        Collections.sort(sortedReplacements, REPLACEMENT_OFFSET_COMPARATOR);
+        // apply from the end of the document backwards, so the offsets of pending replacements are still valid
+        for (int i = sortedReplacements.size() - 1; i >= 0; i--) {
+            Replacement replacement = sortedReplacements.get(i);
+            document.replaceString(replacement.startOffset, replacement.endOffset, replacement.text);
+        }
+        psiDocumentManager.commitDocument(document);
+    }
+
+}
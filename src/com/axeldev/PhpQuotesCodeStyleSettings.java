@@ -0,0 +1,34 @@
+package com.axeldev;
+
+import com.intellij.psi.codeStyle.CodeStyleSettings;
+import com.intellij.psi.codeStyle.CustomCodeStyleSettings;
+
+/**
+ * The code style settings of the plugin, telling how "Reformat Code" normalizes the quotes of PHP string literals.
+ * Double quoted strings are only single quoted when that needs no new escaping.
+ */
+public class PhpQuotesCodeStyleSettings extends CustomCodeStyleSettings {
+
+    /** Quotes are left as they are. */
+    public static final int QUOTE_STYLE_AS_IS                           = 0;
+    /** Every double quoted string is single quoted, concatenating its embedded variables. */
+    public static final int QUOTE_STYLE_SINGLE_QUOTES                   = 1;
+    /** Double quoted strings without embedded variables are single quoted. */
+    public static final int QUOTE_STYLE_DOUBLE_QUOTES_FOR_INTERPOLATION = 2;
+    /** Every string is written the way needing the fewest escapes, as told by the "Quote style" inspection. */
+    public static final int QUOTE_STYLE_CHEAPEST                        = 3;
+
+    static final String[] QUOTE_STYLE_NAMES = {
+        "Keep as is",
+        "Single quotes, concatenating embedded variables",
+        "Single quotes, double quotes only for interpolation",
+        "Fewest escapes"
+    };
+
+    public int QUOTE_STYLE = QUOTE_STYLE_AS_IS;
+
+    public PhpQuotesCodeStyleSettings(CodeStyleSettings container) {
+        super("Php1UpQuotesCodeStyleSettings", container);
+    }
+
+}
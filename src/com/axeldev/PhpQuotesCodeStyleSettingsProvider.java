@@ -0,0 +1,96 @@
+package com.axeldev;
+
+import com.intellij.openapi.options.Configurable;
+import com.intellij.psi.codeStyle.CodeStyleSettings;
+import com.intellij.psi.codeStyle.CodeStyleSettingsProvider;
+import com.intellij.psi.codeStyle.CustomCodeStyleSettings;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.JComboBox;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+
+/**
+ * Registers {@link PhpQuotesCodeStyleSettings} and the code style page editing them.
+ */
+public class PhpQuotesCodeStyleSettingsProvider extends CodeStyleSettingsProvider {
+
+    public static final String CONFIGURABLE_DISPLAY_NAME = "PHP 1Up!";
+    public static final String QUOTE_STYLE_LABEL         = "Normalize PHP quotes on reformat:";
+
+    @Override
+    public CustomCodeStyleSettings createCustomSettings(CodeStyleSettings settings) {
+        return new PhpQuotesCodeStyleSettings(settings);
+    }
+
+    @Override
+    public String getConfigurableDisplayName() {
+        return CONFIGURABLE_DISPLAY_NAME;
+    }
+
+    @NotNull
+    @Override
+    public Configurable createSettingsPage(CodeStyleSettings settings, CodeStyleSettings originalSettings) {
+        return new PhpQuotesCodeStyleConfigurable(settings);
+    }
+
+    private static class PhpQuotesCodeStyleConfigurable implements Configurable {
+        private final CodeStyleSettings settings;
+        private JComboBox               quoteStyleComboBox;
+
+        PhpQuotesCodeStyleConfigurable(CodeStyleSettings settings) {
+            this.settings = settings;
+        }
+
+        private PhpQuotesCodeStyleSettings getQuotesSettings() {
+            return settings.getCustomSettings(PhpQuotesCodeStyleSettings.class);
+        }
+
+        @Override
+        public String getDisplayName() {
+            return CONFIGURABLE_DISPLAY_NAME;
+        }
+
+        @Nullable
+        @Override
+        public String getHelpTopic() {
+            return null;
+        }
+
+        @Override
+        public JComponent createComponent() {
+            quoteStyleComboBox = new JComboBox(PhpQuotesCodeStyleSettings.QUOTE_STYLE_NAMES);
+            JPanel quoteStylePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            quoteStylePanel.add(new JLabel(QUOTE_STYLE_LABEL));
+            quoteStylePanel.add(quoteStyleComboBox);
+            JPanel settingsPanel = new JPanel(new BorderLayout());
+            settingsPanel.add(quoteStylePanel, BorderLayout.NORTH);
+            return settingsPanel;
+        }
+
+        @Override
+        public boolean isModified() {
+            return quoteStyleComboBox.getSelectedIndex() != getQuotesSettings().QUOTE_STYLE;
+        }
+
+        @Override
+        public void apply() {
+            getQuotesSettings().QUOTE_STYLE = quoteStyleComboBox.getSelectedIndex();
+        }
+
+        @Override
+        public void reset() {
+            quoteStyleComboBox.setSelectedIndex(getQuotesSettings().QUOTE_STYLE);
+        }
+
+        @Override
+        public void disposeUIResources() {
+            quoteStyleComboBox = null;
+        }
+    }
+
+}
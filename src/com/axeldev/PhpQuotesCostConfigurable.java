@@ -0,0 +1,104 @@
+package com.axeldev;
+
+import com.intellij.openapi.options.Configurable;
+import com.intellij.openapi.options.ConfigurationException;
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.BoxLayout;
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+
+/**
+ * Edits the settings of {@link PhpQuotesCostGuard}, telling which files and literals the quote replacing intentions
+ * treat as too costly.
+ */
+public class PhpQuotesCostConfigurable implements Configurable {
+
+    public static final String DISPLAY_NAME                  = "PHP 1Up!";
+    public static final String LARGE_LITERAL_LENGTH_LABEL    = "Replace quotes under a progress for strings longer than (characters):";
+    public static final String SKIP_EXCLUDED_FILES_LABEL     = "Don't replace quotes in excluded, library and generated files";
+    public static final String SKIPPED_DIRECTORY_NAMES_LABEL = "Don't replace quotes under directories named (comma separated):";
+    public static final String INVALID_LENGTH_MESSAGE        = "The string length must be a positive number";
+
+    private JTextField largeLiteralLengthTextField;
+    private JCheckBox  skipExcludedFilesCheckBox;
+    private JTextField skippedDirectoryNamesTextField;
+
+    @Nls
+    @Override
+    public String getDisplayName() {
+        return DISPLAY_NAME;
+    }
+
+    @Nullable
+    @Override
+    public String getHelpTopic() {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public JComponent createComponent() {
+        largeLiteralLengthTextField = new JTextField(8);
+        skipExcludedFilesCheckBox = new JCheckBox(SKIP_EXCLUDED_FILES_LABEL);
+        skippedDirectoryNamesTextField = new JTextField(20);
+        JPanel largeLiteralLengthPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        largeLiteralLengthPanel.add(new JLabel(LARGE_LITERAL_LENGTH_LABEL));
+        largeLiteralLengthPanel.add(largeLiteralLengthTextField);
+        JPanel skipExcludedFilesPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        skipExcludedFilesPanel.add(skipExcludedFilesCheckBox);
+        JPanel skippedDirectoryNamesPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        skippedDirectoryNamesPanel.add(new JLabel(SKIPPED_DIRECTORY_NAMES_LABEL));
+        skippedDirectoryNamesPanel.add(skippedDirectoryNamesTextField);
+        JPanel optionsPanel = new JPanel();
+        optionsPanel.setLayout(new BoxLayout(optionsPanel, BoxLayout.Y_AXIS));
+        optionsPanel.add(largeLiteralLengthPanel);
+        optionsPanel.add(skipExcludedFilesPanel);
+        optionsPanel.add(skippedDirectoryNamesPanel);
+        JPanel settingsPanel = new JPanel(new BorderLayout());
+        settingsPanel.add(optionsPanel, BorderLayout.NORTH);
+        return settingsPanel;
+    }
+
+    @Override
+    public boolean isModified() {
+        return !largeLiteralLengthTextField.getText().trim().equals(String.valueOf(PhpQuotesCostGuard.getLargeLiteralLength())) ||
+            skipExcludedFilesCheckBox.isSelected() != PhpQuotesCostGuard.isSkipExcludedFiles() ||
+            !skippedDirectoryNamesTextField.getText().equals(PhpQuotesCostGuard.getSkippedDirectoryNamesText());
+    }
+
+    @Override
+    public void apply() throws ConfigurationException {
+        int largeLiteralLength;
+        try {
+            largeLiteralLength = Integer.parseInt(largeLiteralLengthTextField.getText().trim());
+        } catch (NumberFormatException e) {
+            throw new ConfigurationException(INVALID_LENGTH_MESSAGE);
+        }
+        if (largeLiteralLength <= 0) throw new ConfigurationException(INVALID_LENGTH_MESSAGE);
+        PhpQuotesCostGuard.setLargeLiteralLength(largeLiteralLength);
+        PhpQuotesCostGuard.setSkipExcludedFiles(skipExcludedFilesCheckBox.isSelected());
+        PhpQuotesCostGuard.setSkippedDirectoryNamesText(skippedDirectoryNamesTextField.getText());
+    }
+
+    @Override
+    public void reset() {
+        largeLiteralLengthTextField.setText(String.valueOf(PhpQuotesCostGuard.getLargeLiteralLength()));
+        skipExcludedFilesCheckBox.setSelected(PhpQuotesCostGuard.isSkipExcludedFiles());
+        skippedDirectoryNamesTextField.setText(PhpQuotesCostGuard.getSkippedDirectoryNamesText());
+    }
+
+    @Override
+    public void disposeUIResources() {
+        largeLiteralLengthTextField = null;
+        skipExcludedFilesCheckBox = null;
+        skippedDirectoryNamesTextField = null;
+    }
+
+}
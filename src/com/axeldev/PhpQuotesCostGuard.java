@@ -0,0 +1,144 @@
+package com.axeldev;
+
+import com.intellij.ide.util.PropertiesComponent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.GeneratedSourcesFilter;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps the quote replacing intentions cheap on vendor code and generated files, which aren't meant to be edited and
+ * may hold literals of several megabytes. Files excluded from the project, in libraries, generated or under a skipped
+ * directory are ignored altogether, and literals longer than a threshold are converted under a cancelable progress
+ * before the intention's write action starts, so the event dispatch thread isn't frozen meanwhile. The settings are
+ * application wide and edited in {@link PhpQuotesCostConfigurable}.
+ */
+public class PhpQuotesCostGuard {
+
+    public static final String PROGRESS_TITLE = "Replacing quotes";
+
+    static final int    DEFAULT_LARGE_LITERAL_LENGTH    = 64 * 1024;
+    static final String DEFAULT_SKIPPED_DIRECTORY_NAMES = "vendor";
+
+    private static final String LARGE_LITERAL_LENGTH_PROPERTY    = "com.axeldev.php1Up.costGuard.largeLiteralLength";
+    private static final String SKIP_EXCLUDED_FILES_PROPERTY     = "com.axeldev.php1Up.costGuard.skipExcludedFiles";
+    private static final String SKIPPED_DIRECTORY_NAMES_PROPERTY = "com.axeldev.php1Up.costGuard.skippedDirectoryNames";
+
+    // the parsed directory names, kept as long as the property is unchanged, as they're checked on every availability
+    private static volatile String      skippedDirectoryNamesText;
+    private static volatile Set<String> skippedDirectoryNames = Collections.emptySet();
+
+    static int getLargeLiteralLength() {
+        return PropertiesComponent.getInstance().getOrInitInt(LARGE_LITERAL_LENGTH_PROPERTY, DEFAULT_LARGE_LITERAL_LENGTH);
+    }
+
+    static void setLargeLiteralLength(int largeLiteralLength) {
+        PropertiesComponent.getInstance().setValue(LARGE_LITERAL_LENGTH_PROPERTY, String.valueOf(largeLiteralLength));
+    }
+
+    static boolean isSkipExcludedFiles() {
+        return PropertiesComponent.getInstance().getBoolean(SKIP_EXCLUDED_FILES_PROPERTY, true);
+    }
+
+    static void setSkipExcludedFiles(boolean skipExcludedFiles) {
+        PropertiesComponent.getInstance().setValue(SKIP_EXCLUDED_FILES_PROPERTY, String.valueOf(skipExcludedFiles));
+    }
+
+    /**
+     * Gets the names of the directories whose files are skipped, as a comma separated list.
+     */
+    static String getSkippedDirectoryNamesText() {
+        return PropertiesComponent.getInstance().getValue(SKIPPED_DIRECTORY_NAMES_PROPERTY, DEFAULT_SKIPPED_DIRECTORY_NAMES);
+    }
+
+    static void setSkippedDirectoryNamesText(String skippedDirectoryNamesText) {
+        PropertiesComponent.getInstance().setValue(SKIPPED_DIRECTORY_NAMES_PROPERTY, skippedDirectoryNamesText);
+    }
+
+    private static Set<String> getSkippedDirectoryNames() {
+        String text = getSkippedDirectoryNamesText();
+        if (!text.equals(skippedDirectoryNamesText)) {
+            Set<String> names = new HashSet<String>();
+            for (String name : StringUtil.split(text, ",")) {
+                if (!name.trim().isEmpty()) names.add(name.trim());
+            }
+            skippedDirectoryNames = names;
+            skippedDirectoryNamesText = text;
+        }
+        return skippedDirectoryNames;
+    }
+
+    /**
+     * Tells whether the quote replacing intentions ignore a file: it's excluded from the project, in a library or
+     * generated, unless told otherwise in the settings, or it's under a directory with one of the skipped names, below
+     * its content root.
+     *
+     * @param psiFile The file to check
+     * @return <code>true</code> if no quotes are replaced in the file
+     */
+    static boolean isSkippedFile(PsiFile psiFile) {
+        if (psiFile == null) return false;
+        VirtualFile virtualFile = psiFile.getOriginalFile().getVirtualFile();
+        if (virtualFile == null) return false;
+        Project project = psiFile.getProject();
+        ProjectFileIndex fileIndex = ProjectRootManager.getInstance(project).getFileIndex();
+        if (isSkipExcludedFiles()) {
+            if (fileIndex.isIgnored(virtualFile) || fileIndex.isInLibraryClasses(virtualFile) || fileIndex.isInLibrarySource(virtualFile)) return true;
+            for (GeneratedSourcesFilter generatedSourcesFilter : GeneratedSourcesFilter.EP_NAME.getExtensions()) {
+                if (generatedSourcesFilter.isGeneratedSource(virtualFile, project)) return true;
+            }
+        }
+        Set<String> directoryNames = getSkippedDirectoryNames();
+        if (directoryNames.isEmpty()) return false;
+        // only the directories inside the project count, so a project checked out under a "vendor" directory still works
+        VirtualFile contentRoot = fileIndex.getContentRootForFile(virtualFile);
+        if (contentRoot == null) return false;
+        for (VirtualFile directory = virtualFile.getParent(); directory != null && !directory.equals(contentRoot); directory = directory.getParent()) {
+            if (directoryNames.contains(directory.getName())) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether a PHP string literal is long enough to be converted under a progress. Only the length of the
+     * node is read, so it's as cheap as checking its token types.
+     */
+    static boolean isLargeLiteral(PsiElement stringLiteralExpression) {
+        return stringLiteralExpression.getTextLength() > getLargeLiteralLength();
+    }
+
+    /**
+     * Computes the replacement text of a large PHP string literal under a cancelable modal progress, keeping it in the
+     * cache the quote replacing intentions read from. Nothing is done for literals under the threshold, nor inside a
+     * write action, where a background read action would never start; those are converted when replaced as always.
+     *
+     * @param project                 The project the literal belongs to
+     * @param stringLiteralExpression The PHP string literal expression to convert
+     * @return <code>false</code> if the conversion was canceled, so the literal must be left untouched
+     */
+    static boolean computeLargeLiteralReplacementText(Project project, final PsiElement stringLiteralExpression) {
+        if (!isLargeLiteral(stringLiteralExpression) || ApplicationManager.getApplication().isWriteAccessAllowed()) return true;
+        return ProgressManager.getInstance().runProcessWithProgressSynchronously(new Runnable() {
+            @Override
+            public void run() {
+                ApplicationManager.getApplication().runReadAction(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (stringLiteralExpression.isValid()) PhpStringUtil.getCachedPhpStringLiteralReplacementText(stringLiteralExpression);
+                    }
+                });
+            }
+        }, PROGRESS_TITLE, true, project);
+    }
+
+}
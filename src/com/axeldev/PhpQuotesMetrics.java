@@ -0,0 +1,249 @@
+package com.axeldev;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.util.io.FileUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lightweight metrics of the quote replacing intentions and of the string conversions they run: call counts and
+ * latency histograms of their availability checks and invocations, the throughput of escaping and unescaping, and the
+ * number of PSI elements created from text per invocation. Everything is recorded on lock free counters, and when
+ * metrics are disabled, which is the default, each probe is a single volatile read. Metrics are enabled from the
+ * "PHP 1Up! Metrics" tool window, or from the start with the <tt>php1up.metrics</tt> system property.
+ */
+public class PhpQuotesMetrics {
+
+    public static final String DUMP_FILE_NAME = "php1up-metrics.txt";
+
+    private static volatile boolean enabled = Boolean.getBoolean("php1up.metrics");
+
+    private static final List<Histogram>  HISTOGRAMS  = new ArrayList<Histogram>();
+    private static final List<Throughput> THROUGHPUTS = new ArrayList<Throughput>();
+
+    static final Histogram  DOUBLE_QUOTES_AVAILABILITY = createHistogram("Replace double quotes, isAvailable", Histogram.UNIT_NANOS);
+    static final Histogram  DOUBLE_QUOTES_INVOCATION   = createHistogram("Replace double quotes, invoke", Histogram.UNIT_NANOS);
+    static final Histogram  SINGLE_QUOTES_AVAILABILITY = createHistogram("Replace single quotes, isAvailable", Histogram.UNIT_NANOS);
+    static final Histogram  SINGLE_QUOTES_INVOCATION   = createHistogram("Replace single quotes, invoke", Histogram.UNIT_NANOS);
+    static final Histogram  CREATED_PSI_ELEMENTS       = createHistogram("PSI elements created from text per invoke", Histogram.UNIT_COUNT);
+    static final Throughput ESCAPING                   = createThroughput("Escaping");
+    static final Throughput UNESCAPING                 = createThroughput("Unescaping");
+
+    // PSI elements created from text by the invocation running on each thread
+    private static final ThreadLocal<int[]> INVOCATION_CREATED_PSI_ELEMENTS = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    /**
+     * A histogram of values in power of two buckets, which is enough to tell typical values from outliers.
+     */
+    static class Histogram {
+        static final String UNIT_NANOS = "ns";
+        static final String UNIT_COUNT = "";
+
+        final String                  name;
+        final String                  unit;
+        private final AtomicLong      count   = new AtomicLong();
+        private final AtomicLong      sum     = new AtomicLong();
+        private final AtomicLong      max     = new AtomicLong();
+        // bucket i holds the values whose highest set bit is bit i - 1, bucket 0 holds zeros
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+
+        Histogram(String name, String unit) {
+            this.name = name;
+            this.unit = unit;
+        }
+
+        void record(long value) {
+            if (!enabled) return;
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+            long currentMax;
+            while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+                // retry until the maximum is updated or another thread records a bigger value
+            }
+        }
+
+        /**
+         * Records the time elapsed since the given start time, if it was taken with metrics enabled.
+         *
+         * @param startTime The value returned by {@link PhpQuotesMetrics#startTimer()}
+         */
+        void recordSince(long startTime) {
+            if (startTime != 0) record(System.nanoTime() - startTime);
+        }
+
+        long getCount() {
+            return count.get();
+        }
+
+        /**
+         * Gets the upper bound of the bucket holding the given fraction of the recorded values.
+         */
+        private long getPercentileUpperBound(double fraction) {
+            long threshold = (long) Math.ceil(count.get() * fraction);
+            long accumulated = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                accumulated += buckets.get(i);
+                if (accumulated >= threshold) return i == 0 ? 0 : i == Long.SIZE ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+            return max.get();
+        }
+
+        void appendTo(StringBuilder dumpBuffer) {
+            long currentCount = count.get();
+            dumpBuffer.append(name).append(": count=").append(currentCount);
+            if (currentCount > 0) {
+                dumpBuffer.append(", mean=").append(sum.get() / currentCount).append(unit)
+                    .append(", p50<=").append(getPercentileUpperBound(0.5)).append(unit)
+                    .append(", p90<=").append(getPercentileUpperBound(0.9)).append(unit)
+                    .append(", p99<=").append(getPercentileUpperBound(0.99)).append(unit)
+                    .append(", max=").append(max.get()).append(unit);
+            }
+            dumpBuffer.append('\n');
+        }
+
+        void reset() {
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+            for (int i = 0; i < buckets.length(); i++) buckets.set(i, 0);
+        }
+    }
+
+    /**
+     * The amount of characters processed by an operation and the time spent on it.
+     */
+    static class Throughput {
+        final String             name;
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong chars = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+
+        Throughput(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Records an operation which processed the given amount of characters since the given start time, if it was
+         * taken with metrics enabled.
+         *
+         * @param processedChars The number of characters processed
+         * @param startTime      The value returned by {@link PhpQuotesMetrics#startTimer()}
+         */
+        void recordSince(long processedChars, long startTime) {
+            if (startTime == 0) return;
+            nanos.addAndGet(System.nanoTime() - startTime);
+            chars.addAndGet(processedChars);
+            calls.incrementAndGet();
+        }
+
+        long getChars() {
+            return chars.get();
+        }
+
+        void appendTo(StringBuilder dumpBuffer) {
+            long currentNanos = nanos.get();
+            dumpBuffer.append(name).append(": calls=").append(calls.get()).append(", chars=").append(chars.get());
+            if (currentNanos > 0) dumpBuffer.append(", chars/s=").append((long) (chars.get() * 1e9 / currentNanos));
+            dumpBuffer.append('\n');
+        }
+
+        void reset() {
+            calls.set(0);
+            chars.set(0);
+            nanos.set(0);
+        }
+    }
+
+    private static Histogram createHistogram(String name, String unit) {
+        Histogram histogram = new Histogram(name, unit);
+        HISTOGRAMS.add(histogram);
+        return histogram;
+    }
+
+    private static Throughput createThroughput(String name) {
+        Throughput throughput = new Throughput(name);
+        THROUGHPUTS.add(throughput);
+        return throughput;
+    }
+
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    static void setEnabled(boolean enabled) {
+        PhpQuotesMetrics.enabled = enabled;
+    }
+
+    /**
+     * Takes the start time of a measured operation.
+     *
+     * @return The current time in nanoseconds, or <code>0</code> if metrics are disabled, so nothing gets recorded
+     */
+    static long startTimer() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Takes the start time of an intention invocation and starts counting the PSI elements it creates from text.
+     *
+     * @return The current time in nanoseconds, or <code>0</code> if metrics are disabled, so nothing gets recorded
+     */
+    static long startInvocation() {
+        if (!enabled) return 0;
+        INVOCATION_CREATED_PSI_ELEMENTS.get()[0] = 0;
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the latency of an intention invocation and the number of PSI elements it created from text.
+     *
+     * @param latency   The histogram of the intention invocation latency
+     * @param startTime The value returned by {@link #startInvocation()}
+     */
+    static void endInvocation(Histogram latency, long startTime) {
+        if (startTime == 0) return;
+        latency.recordSince(startTime);
+        CREATED_PSI_ELEMENTS.record(INVOCATION_CREATED_PSI_ELEMENTS.get()[0]);
+    }
+
+    static void psiElementCreated() {
+        if (enabled) INVOCATION_CREATED_PSI_ELEMENTS.get()[0]++;
+    }
+
+    static String dump() {
+        StringBuilder dumpBuffer = new StringBuilder();
+        dumpBuffer.append("PHP 1Up! metrics (").append(enabled ? "enabled" : "disabled").append(")\n");
+        for (Histogram histogram : HISTOGRAMS) histogram.appendTo(dumpBuffer);
+        for (Throughput throughput : THROUGHPUTS) throughput.appendTo(dumpBuffer);
+        return dumpBuffer.toString();
+    }
+
+    /**
+     * Writes the current metrics to a file in the IDE log directory.
+     *
+     * @return The written file
+     * @throws IOException If the file couldn't be written
+     */
+    static File dumpToFile() throws IOException {
+        File dumpFile = new File(PathManager.getLogPath(), DUMP_FILE_NAME);
+        FileUtil.writeToFile(dumpFile, dump());
+        return dumpFile;
+    }
+
+    static void reset() {
+        for (Histogram histogram : HISTOGRAMS) histogram.reset();
+        for (Throughput throughput : THROUGHPUTS) throughput.reset();
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.axeldev;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JPanel;
+import javax.swing.JTextArea;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Shows the metrics recorded by {@link PhpQuotesMetrics}, with controls to enable and reset them and to dump them to a
+ * file. The metrics are only read when refreshed, so the tool window costs nothing while it's not being used.
+ */
+public class PhpQuotesMetricsToolWindowFactory implements ToolWindowFactory {
+
+    public static final String ENABLED_LABEL      = "Enabled";
+    public static final String REFRESH_LABEL      = "Refresh";
+    public static final String RESET_LABEL        = "Reset";
+    public static final String DUMP_LABEL         = "Dump to File";
+    public static final String DUMP_DIALOG_TITLE  = "PHP 1Up! Metrics";
+    public static final String DUMP_DONE_MESSAGE  = "Metrics dumped to ";
+    public static final String DUMP_ERROR_MESSAGE = "Metrics couldn't be dumped: ";
+
+    @Override
+    public void createToolWindowContent(@NotNull final Project project, @NotNull ToolWindow toolWindow) {
+        final JTextArea metricsTextArea = new JTextArea(PhpQuotesMetrics.dump());
+        metricsTextArea.setEditable(false);
+        final JCheckBox enabledCheckBox = new JCheckBox(ENABLED_LABEL, PhpQuotesMetrics.isEnabled());
+        enabledCheckBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                PhpQuotesMetrics.setEnabled(enabledCheckBox.isSelected());
+                metricsTextArea.setText(PhpQuotesMetrics.dump());
+            }
+        });
+        JButton refreshButton = new JButton(REFRESH_LABEL);
+        refreshButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                metricsTextArea.setText(PhpQuotesMetrics.dump());
+            }
+        });
+        JButton resetButton = new JButton(RESET_LABEL);
+        resetButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                PhpQuotesMetrics.reset();
+                metricsTextArea.setText(PhpQuotesMetrics.dump());
+            }
+        });
+        JButton dumpButton = new JButton(DUMP_LABEL);
+        dumpButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                try {
+                    File dumpFile = PhpQuotesMetrics.dumpToFile();
+                    Messages.showInfoMessage(project, DUMP_DONE_MESSAGE + dumpFile.getPath(), DUMP_DIALOG_TITLE);
+                } catch (IOException exception) {
+                    Messages.showErrorDialog(project, DUMP_ERROR_MESSAGE + exception.getMessage(), DUMP_DIALOG_TITLE);
+                }
+            }
+        });
+        JPanel controlsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        controlsPanel.add(enabledCheckBox);
+        controlsPanel.add(refreshButton);
+        controlsPanel.add(resetButton);
+        controlsPanel.add(dumpButton);
+        JPanel metricsPanel = new JPanel(new BorderLayout());
+        metricsPanel.add(controlsPanel, BorderLayout.NORTH);
+        metricsPanel.add(new JBScrollPane(metricsTextArea), BorderLayout.CENTER);
+        Content content = ContentFactory.SERVICE.getInstance().createContent(metricsPanel, "", false);
+        toolWindow.getContentManager().addContent(content);
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.axeldev;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.util.Condition;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.codeStyle.CodeStyleSettings;
+import com.intellij.psi.impl.source.codeStyle.PostFormatProcessor;
+import com.jetbrains.php.lang.psi.PhpFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Normalizes the quotes of the PHP string literals in the reformatted text as told by
+ * {@link PhpQuotesCodeStyleSettings}. Only the literals lying wholly inside the reformatted range are looked for, from
+ * the innermost element holding the range, and they're all replaced as a single batch of document edits, so
+ * reformatting a selection costs the same in a small file as in a huge one. Strings which can't be written with single
+ * quotes without adding escaping, and elements formatted on their own, like generated code, keep their quotes.
+ */
+public class PhpQuotesPostFormatProcessor implements PostFormatProcessor {
+
+    // strings needing new escaping as single quoted strings are never converted, as their control characters and
+    // bytes would be written raw
+    private static final Condition<PsiElement> IS_DOUBLE_QUOTED_STRING = new Condition<PsiElement>() {
+        @Override
+        public boolean value(PsiElement stringLiteralExpression) {
+            return PhpStringUtil.isPhpDoubleQuotedStringPiecesSingleQuotable(stringLiteralExpression);
+        }
+    };
+
+    private static final Condition<PsiElement> IS_SIMPLE_DOUBLE_QUOTED_STRING = new Condition<PsiElement>() {
+        @Override
+        public boolean value(PsiElement stringLiteralExpression) {
+            return PhpStringUtil.isPhpDoubleQuotedStringSingleQuotable(stringLiteralExpression);
+        }
+    };
+
+    private static final Condition<PsiElement> HAS_CHEAPER_QUOTING = new Condition<PsiElement>() {
+        @Override
+        public boolean value(PsiElement stringLiteralExpression) {
+            return PhpStringUtil.getPhpStringLiteralCheaperQuoting(stringLiteralExpression) != null;
+        }
+    };
+
+    @NotNull
+    @Override
+    public PsiElement processElement(@NotNull PsiElement source, @NotNull CodeStyleSettings settings) {
+        return source;
+    }
+
+    @NotNull
+    @Override
+    public TextRange processText(@NotNull PsiFile source, @NotNull final TextRange rangeToReformat, @NotNull CodeStyleSettings settings) {
+        if (!(source instanceof PhpFile) || rangeToReformat.isEmpty()) return rangeToReformat;
+        final Condition<PsiElement> isConvertible = getQuoteStyleCondition(settings.getCustomSettings(PhpQuotesCodeStyleSettings.class).QUOTE_STYLE);
+        if (isConvertible == null) return rangeToReformat;
+        Document document = PsiDocumentManager.getInstance(source.getProject()).getDocument(source);
+        if (document == null) return rangeToReformat;
+        List<PhpQuotesBatchConverter.Replacement> replacements = PhpQuotesBatchConverter.computeStringLiteralRangeReplacements(source,
+            Collections.singletonList(rangeToReformat), new Condition<PsiElement>() {
+                @Override
+                public boolean value(PsiElement stringLiteralExpression) {
+                    // a literal only partially reformatted is left untouched
+                    return rangeToReformat.contains(stringLiteralExpression.getTextRange()) && isConvertible.value(stringLiteralExpression);
+                }
+            });
+        if (replacements.isEmpty()) return rangeToReformat;
+        PhpQuotesBatchConverter.applyReplacements(source.getProject(), document, replacements);
+        int lengthDelta = 0;
+        for (PhpQuotesBatchConverter.Replacement replacement : replacements) {
+            lengthDelta += replacement.text.length() - (replacement.endOffset - replacement.startOffset);
+        }
+        return new TextRange(rangeToReformat.getStartOffset(), rangeToReformat.getEndOffset() + lengthDelta);
+    }
+
+    /**
+     * Gets the condition telling which string literals to convert for a quote style.
+     *
+     * @param quoteStyle One of the <code>QUOTE_STYLE_*</code> constants of {@link PhpQuotesCodeStyleSettings}
+     * @return The condition, or <code>null</code> if no string literal is converted
+     */
+    static Condition<PsiElement> getQuoteStyleCondition(int quoteStyle) {
+        switch (quoteStyle) {
+            case PhpQuotesCodeStyleSettings.QUOTE_STYLE_SINGLE_QUOTES:
+                return IS_DOUBLE_QUOTED_STRING;
+            case PhpQuotesCodeStyleSettings.QUOTE_STYLE_DOUBLE_QUOTES_FOR_INTERPOLATION:
+                return IS_SIMPLE_DOUBLE_QUOTED_STRING;
+            case PhpQuotesCodeStyleSettings.QUOTE_STYLE_CHEAPEST:
+                return HAS_CHEAPER_QUOTING;
+            default:
+                return null;
+        }
+    }
+
+}
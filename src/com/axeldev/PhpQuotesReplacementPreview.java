@@ -0,0 +1,84 @@
+package com.axeldev;
+
+import com.intellij.codeInsight.hint.HintManager;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
+import com.intellij.openapi.progress.util.ReadTask;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.util.Consumer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Previews the source code of PHP string literals with their quotes replaced. The text is computed off the event
+ * dispatch thread, in a non-blocking read action which gives way to any write action and is then retried, and it's
+ * kept in the same cache the quote replacing intentions read from, so replacing a previewed literal doesn't convert
+ * it again on the event dispatch thread as long as its file is unchanged.
+ */
+public class PhpQuotesReplacementPreview {
+
+    /**
+     * The maximum length of the replacement text shown in a preview hint.
+     */
+    static final int    MAX_PREVIEW_LENGTH = 2000;
+    static final String PREVIEW_ELLIPSIS   = "...";
+
+    /**
+     * Shows the replacement text of a PHP string literal in a hint once it's computed in background, unless the
+     * document is modified meanwhile.
+     *
+     * @param editor                  The editor to show the hint in
+     * @param stringLiteralExpression The PHP string literal expression to preview the replacement of
+     */
+    static void showPreviewHint(final Editor editor, PsiElement stringLiteralExpression) {
+        final long modificationStamp = editor.getDocument().getModificationStamp();
+        computeReplacementTextInBackground(stringLiteralExpression, new Consumer<String>() {
+            @Override
+            public void consume(final String replacementText) {
+                ApplicationManager.getApplication().invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (editor.isDisposed() || editor.getDocument().getModificationStamp() != modificationStamp) return;
+                        // shown preformatted, so the line breaks and spaces of the literal are kept
+                        HintManager.getInstance().showInformationHint(editor, "<html><pre>" + StringUtil.escapeXml(getPreviewText(replacementText)) + "</pre></html>");
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Computes the replacement text of a PHP string literal in a background read action, which is retried if a write
+     * action cancels it, and keeps it for the quote replacing intentions to reuse.
+     *
+     * @param stringLiteralExpression The PHP string literal expression to convert
+     * @param onComputed              Receives the replacement text in the background thread, unless the literal is
+     *                                invalidated first
+     */
+    static void computeReplacementTextInBackground(final PsiElement stringLiteralExpression, final Consumer<String> onComputed) {
+        ProgressIndicatorUtils.scheduleWithWriteActionPriority(new ReadTask() {
+            @Override
+            public void computeInReadAction(@NotNull ProgressIndicator indicator) {
+                if (!stringLiteralExpression.isValid()) return;
+                onComputed.consume(PhpStringUtil.getCachedPhpStringLiteralReplacementText(stringLiteralExpression));
+            }
+
+            @Override
+            public void onCanceled(@NotNull ProgressIndicator indicator) {
+                // a write action came first; if it changed the literal, the retry finds it invalid and gives up
+                ProgressIndicatorUtils.scheduleWithWriteActionPriority(this);
+            }
+        });
+    }
+
+    /**
+     * Gets the text shown in a preview hint for a replacement text, which is cut if it's too long to be read anyway.
+     */
+    static String getPreviewText(String replacementText) {
+        if (replacementText.length() <= MAX_PREVIEW_LENGTH) return replacementText;
+        return replacementText.substring(0, MAX_PREVIEW_LENGTH) + PREVIEW_ELLIPSIS;
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.axeldev;
+
+import com.intellij.codeInsight.intention.PsiElementBaseIntentionAction;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.util.IncorrectOperationException;
+import com.jetbrains.php.PhpWorkaroundUtil;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Replaces a chain of concatenated strings, variables and array and property accesses with a single double quoted
+ * string embedding them, completely keeping semantics. This is the reverse of
+ * {@link PhpReplaceInterpolatedDoubleQuotesWithEscapingIntention}.
+ */
+public class PhpReplaceConcatenationWithInterpolationIntention extends PsiElementBaseIntentionAction {
+
+    public static final String FAMILY_NAME    = "Replace concatenation with interpolation";
+    public static final String INTENTION_NAME = "Replace concatenation with interpolated string";
+
+    @NotNull
+    @Override
+    public String getText() {
+        return INTENTION_NAME;
+    }
+
+    @NotNull
+    @Override
+    public String getFamilyName() {
+        return FAMILY_NAME;
+    }
+
+    @Override
+    public boolean isAvailable(@NotNull Project project, Editor editor, @NotNull PsiElement psiElement) {
+        if (!PhpWorkaroundUtil.isIntentionAvailable(psiElement)) return false;
+        PsiElement concatenation = PhpStringUtil.getPhpConcatenationExpression(psiElement);
+        return concatenation != null && PhpStringUtil.isPhpConcatenationInterpolatable(concatenation);
+    }
+
+    @Override
+    public void invoke(@NotNull Project project, Editor editor, @NotNull PsiElement psiElement) throws IncorrectOperationException {
+        PsiElement concatenation = PhpStringUtil.getPhpConcatenationExpression(psiElement);
+        if (concatenation == null) return;
+        PhpStringUtil.replacePhpConcatenationWithDoubleQuotedString(concatenation);
+    }
+
+}
@@ -1,26 +1,47 @@
 package com.axeldev;
 
-import com.google.common.base.Function;
 import com.intellij.codeInsight.intention.PsiElementBaseIntentionAction;
-import com.intellij.lang.ASTNode;
+import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Condition;
 import com.intellij.psi.PsiElement;
 import com.intellij.util.IncorrectOperationException;
 import com.jetbrains.php.PhpWorkaroundUtil;
-import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
-import com.jetbrains.php.lang.psi.elements.PhpExpression;
-import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
-
-public class PhpReplaceDoubleQuotesWithEscapingIntention extends PsiElementBaseIntentionAction {
+/**
+ * Base of the intentions replacing a double quoted string with a single quoted one. There's one intention for simple
+ * strings and another one for strings with embedded variables, each with a constant text, so availability is a pure
+ * function of the element and no state is kept in the shared intention instance. This allows the intentions to be
+ * evaluated from several background read actions at once.
+ * <p>
+ * With many carets, or with a selection, every string of the same kind under the carets or within the selections is
+ * replaced at once.
+ * </p>
+ * <p>
+ * Files skipped by {@link PhpQuotesCostGuard} never offer the intentions, and large literals are converted under a
+ * progress before the write action starts.
+ * </p>
+ */
+public abstract class PhpReplaceDoubleQuotesWithEscapingIntention extends PsiElementBaseIntentionAction {
 
     public static final String FAMILY_NAME                  = "Replace quotes";
     public static final String INTENTION_NAME_NO_VARS       = "Replace quotes with escaping";
     public static final String INTENTION_NAME_EMBEDDED_VARS = "Replace quotes with escaping and variable concatenation";
 
+    private final PhpStringLiteralIndex.Kind stringLiteralKind;
+    private final Condition<PsiElement>      isConvertibleCondition = new Condition<PsiElement>() {
+        @Override
+        public boolean value(PsiElement stringLiteralExpression) {
+            return isConvertible(stringLiteralExpression);
+        }
+    };
+
+    PhpReplaceDoubleQuotesWithEscapingIntention(PhpStringLiteralIndex.Kind stringLiteralKind) {
+        this.stringLiteralKind = stringLiteralKind;
+    }
+
     @NotNull
     @Override
     public String getFamilyName() {
@@ -29,46 +50,56 @@ public class PhpReplaceDoubleQuotesWithEscapingIntention extends PsiElementBaseI
 
     @Override
     public boolean isAvailable(@NotNull Project project, Editor editor, @NotNull PsiElement psiElement) {
+        long startTime = PhpQuotesMetrics.startTimer();
+        boolean available = isAvailable(psiElement);
+        PhpQuotesMetrics.DOUBLE_QUOTES_AVAILABILITY.recordSince(startTime);
+        return available;
+    }
+
+    private boolean isAvailable(PsiElement psiElement) {
         if (!PhpWorkaroundUtil.isIntentionAvailable(psiElement)) return false;
+        // skipped files are checked first, so their literals are never classified nor cached
+        if (PhpQuotesCostGuard.isSkippedFile(psiElement.getContainingFile())) return false;
         PsiElement stringLiteralExpression = PhpStringUtil.getPhpDoubleQuotedStringExpression(psiElement);
-        if (stringLiteralExpression == null || PhpStringUtil.isPhpDoubleQuotedEmptyString(psiElement)) return false;
-        String intentionText = PhpStringUtil.isPhpDoubleQuotedComplexString(stringLiteralExpression) ? INTENTION_NAME_EMBEDDED_VARS : INTENTION_NAME_NO_VARS;
-        this.setText(intentionText);
-        return true;
+        return stringLiteralExpression != null && isConvertible(stringLiteralExpression);
+    }
+
+    private boolean isConvertible(PsiElement stringLiteralExpression) {
+        if (!PhpStringUtil.isPhpDoubleQuotedString(stringLiteralExpression) || PhpStringUtil.isPhpDoubleQuotedEmptyString(stringLiteralExpression)) return false;
+        // a large literal is classified from its tokens only, without keeping a cache entry for it
+        PhpStringLiteralIndex.Kind kind = PhpQuotesCostGuard.isLargeLiteral(stringLiteralExpression) ?
+            PhpStringUtil.getPhpStringLiteralKind(stringLiteralExpression) : PhpStringUtil.getCachedPhpStringLiteralKind(stringLiteralExpression);
+        return kind == stringLiteralKind;
     }
 
     @Override
-    public void invoke(@NotNull Project project, Editor editor, @NotNull PsiElement psiElement) throws IncorrectOperationException {
-        PsiElement stringLiteralExpression = PhpStringUtil.getPhpDoubleQuotedStringExpression(psiElement);
-        if (stringLiteralExpression == null) return;
-        PsiElement singleQuoteExpression = convertPhpDoubleQuotedStringToSingleQuoteAndExpressionConcatenation(project, psiElement, stringLiteralExpression);
-        if (singleQuoteExpression == null) return;
-        stringLiteralExpression.replace(singleQuoteExpression);
+    public boolean startInWriteAction() {
+        return false;
     }
 
-    private PsiElement convertPhpDoubleQuotedStringToSingleQuoteAndExpressionConcatenation(Project project, PsiElement psiElement, PsiElement stringLiteralExpression) {
-        if (PhpStringUtil.isPhpDoubleQuotedComplexString(stringLiteralExpression)) {
-            List<String> stringAndVariableList = PhpStringUtil.mapPhpDoubleQuotedComplexStringContent(stringLiteralExpression, new Function<ASTNode, String>() {
-                @Override
-                public String apply(ASTNode stringLiteralFragment) {
-                    String doubleQuoteEscapedContent = stringLiteralFragment.getText();
-                    String unescapedContent = PhpStringUtil.unescapePhpDoubleQuotedStringContent(doubleQuoteEscapedContent);
-                    String singleQuoteEscapedContent = PhpStringUtil.escapePhpSingleQuotedStringContent(unescapedContent);
-                    return PhpStringUtil.CHAR_SINGLE_QUOTE + singleQuoteEscapedContent + PhpStringUtil.CHAR_SINGLE_QUOTE;
-                }
-            }, new Function<ASTNode, String>() {
+    @Override
+    public void invoke(@NotNull final Project project, final Editor editor, @NotNull final PsiElement psiElement) throws IncorrectOperationException {
+        long startTime = PhpQuotesMetrics.startInvocation();
+        try {
+            PsiElement stringLiteralExpression = PhpStringUtil.getPhpDoubleQuotedStringExpression(psiElement);
+            // a large literal is converted before the write action, under a progress which can be canceled
+            if (stringLiteralExpression != null && !PhpQuotesCostGuard.computeLargeLiteralReplacementText(project, stringLiteralExpression)) return;
+            new WriteCommandAction.Simple(project, getText(), psiElement.getContainingFile()) {
                 @Override
-                public String apply(ASTNode embeddedExpression) {
-                    return PhpStringUtil.cleanupStringEmbeddedExpression(embeddedExpression);
+                protected void run() throws Throwable {
+                    replaceQuotes(project, editor, psiElement);
                 }
-            });
-            String stringAndExpressionConcatenation = StringUtils.join(stringAndVariableList, PhpStringUtil.CHAR_DOT);
-            if (stringAndExpressionConcatenation == null) return null;
-            return PhpPsiElementFactory.createPhpPsiFromText(project, PhpExpression.class, stringAndExpressionConcatenation);
-        } else {
-            String unescapedContent = PhpStringUtil.getPhpDoubleQuotedStringUnescapedContent(stringLiteralExpression);
-            return PhpStringUtil.createPhpSingleQuotedStringPsiFromContent(psiElement.getProject(), unescapedContent);
+            }.execute();
+        } finally {
+            PhpQuotesMetrics.endInvocation(PhpQuotesMetrics.DOUBLE_QUOTES_INVOCATION, startTime);
         }
     }
 
+    private void replaceQuotes(Project project, Editor editor, PsiElement psiElement) {
+        if (editor != null && PhpQuotesBatchConverter.replaceStringLiteralsAtCarets(project, editor, psiElement.getContainingFile(), isConvertibleCondition)) return;
+        PsiElement stringLiteralExpression = PhpStringUtil.getPhpDoubleQuotedStringExpression(psiElement);
+        if (stringLiteralExpression == null) return;
+        PhpStringUtil.replacePhpDoubleQuotedStringWithSingleQuoted(stringLiteralExpression);
+    }
+
 }
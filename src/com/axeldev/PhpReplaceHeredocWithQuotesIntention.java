@@ -0,0 +1,47 @@
+package com.axeldev;
+
+import com.intellij.codeInsight.intention.PsiElementBaseIntentionAction;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.util.IncorrectOperationException;
+import com.jetbrains.php.PhpWorkaroundUtil;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Replaces a heredoc with a double quoted string embedding the same variables and expressions, or a nowdoc with a
+ * single quoted string, completely keeping semantics. The double quoted string can be turned into a concatenation
+ * afterwards with {@link PhpReplaceInterpolatedDoubleQuotesWithEscapingIntention}.
+ */
+public class PhpReplaceHeredocWithQuotesIntention extends PsiElementBaseIntentionAction {
+
+    public static final String FAMILY_NAME    = "Replace heredoc with quotes";
+    public static final String INTENTION_NAME = "Replace heredoc with quotes";
+
+    @NotNull
+    @Override
+    public String getText() {
+        return INTENTION_NAME;
+    }
+
+    @NotNull
+    @Override
+    public String getFamilyName() {
+        return FAMILY_NAME;
+    }
+
+    @Override
+    public boolean isAvailable(@NotNull Project project, Editor editor, @NotNull PsiElement psiElement) {
+        if (!PhpWorkaroundUtil.isIntentionAvailable(psiElement)) return false;
+        PsiElement stringLiteralExpression = PhpStringUtil.getPhpHeredocExpression(psiElement);
+        return stringLiteralExpression != null && PhpStringUtil.getPhpHeredocContentRange(stringLiteralExpression) != null;
+    }
+
+    @Override
+    public void invoke(@NotNull Project project, Editor editor, @NotNull PsiElement psiElement) throws IncorrectOperationException {
+        PsiElement stringLiteralExpression = PhpStringUtil.getPhpHeredocExpression(psiElement);
+        if (stringLiteralExpression == null) return;
+        PhpStringUtil.replacePhpHeredocWithQuotedString(stringLiteralExpression);
+    }
+
+}
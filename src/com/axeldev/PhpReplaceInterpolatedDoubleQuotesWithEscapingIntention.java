@@ -0,0 +1,21 @@
+package com.axeldev;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Replaces a double quoted string with embedded variables or expressions with the concatenation of single quoted
+ * strings and the embedded variables and expressions.
+ */
+public class PhpReplaceInterpolatedDoubleQuotesWithEscapingIntention extends PhpReplaceDoubleQuotesWithEscapingIntention {
+
+    public PhpReplaceInterpolatedDoubleQuotesWithEscapingIntention() {
+        super(PhpStringLiteralIndex.Kind.INTERPOLATED_DOUBLE_QUOTED);
+    }
+
+    @NotNull
+    @Override
+    public String getText() {
+        return INTENTION_NAME_EMBEDDED_VARS;
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.axeldev;
+
+import com.intellij.codeInsight.intention.PsiElementBaseIntentionAction;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.util.IncorrectOperationException;
+import com.jetbrains.php.PhpWorkaroundUtil;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Replaces a double quoted string with a heredoc, or a single quoted string with a nowdoc, completely keeping
+ * semantics. This is the reverse of {@link PhpReplaceHeredocWithQuotesIntention}.
+ */
+public class PhpReplaceQuotesWithHeredocIntention extends PsiElementBaseIntentionAction {
+
+    public static final String FAMILY_NAME    = "Replace quotes with heredoc";
+    public static final String INTENTION_NAME = "Replace quotes with heredoc";
+
+    @NotNull
+    @Override
+    public String getText() {
+        return INTENTION_NAME;
+    }
+
+    @NotNull
+    @Override
+    public String getFamilyName() {
+        return FAMILY_NAME;
+    }
+
+    @Override
+    public boolean isAvailable(@NotNull Project project, Editor editor, @NotNull PsiElement psiElement) {
+        if (!PhpWorkaroundUtil.isIntentionAvailable(psiElement)) return false;
+        if (PhpStringUtil.isPhpSingleQuotedString(psiElement)) return psiElement.getTextLength() > 2;
+        PsiElement stringLiteralExpression = PhpStringUtil.getPhpDoubleQuotedStringExpression(psiElement);
+        return stringLiteralExpression != null && !PhpStringUtil.isPhpDoubleQuotedEmptyString(stringLiteralExpression);
+    }
+
+    @Override
+    public void invoke(@NotNull Project project, Editor editor, @NotNull PsiElement psiElement) throws IncorrectOperationException {
+        PsiElement stringLiteralExpression = PhpStringUtil.isPhpSingleQuotedString(psiElement) ?
+            psiElement.getParent() : PhpStringUtil.getPhpDoubleQuotedStringExpression(psiElement);
+        if (stringLiteralExpression == null) return;
+        PhpStringUtil.replacePhpQuotedStringWithHeredoc(stringLiteralExpression);
+    }
+
+}
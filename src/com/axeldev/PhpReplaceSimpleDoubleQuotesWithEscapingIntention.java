@@ -0,0 +1,20 @@
+package com.axeldev;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Replaces a double quoted string without embedded variables with a single quoted one.
+ */
+public class PhpReplaceSimpleDoubleQuotesWithEscapingIntention extends PhpReplaceDoubleQuotesWithEscapingIntention {
+
+    public PhpReplaceSimpleDoubleQuotesWithEscapingIntention() {
+        super(PhpStringLiteralIndex.Kind.SIMPLE_DOUBLE_QUOTED);
+    }
+
+    @NotNull
+    @Override
+    public String getText() {
+        return INTENTION_NAME_NO_VARS;
+    }
+
+}
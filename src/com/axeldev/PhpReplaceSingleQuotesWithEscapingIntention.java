@@ -1,12 +1,13 @@
 package com.axeldev;
 
 import com.intellij.codeInsight.intention.PsiElementBaseIntentionAction;
+import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Condition;
 import com.intellij.psi.PsiElement;
 import com.intellij.util.IncorrectOperationException;
 import com.jetbrains.php.PhpWorkaroundUtil;
-import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
 import org.jetbrains.annotations.NotNull;
 
 public class PhpReplaceSingleQuotesWithEscapingIntention extends PsiElementBaseIntentionAction {
@@ -14,6 +15,13 @@ public class PhpReplaceSingleQuotesWithEscapingIntention extends PsiElementBaseI
     public static final String FAMILY_NAME = "Replace quotes";
     public static final String INTENTION_NAME = "Replace quotes with escaping";
 
+    private static final Condition<PsiElement> IS_CONVERTIBLE = new Condition<PsiElement>() {
+        @Override
+        public boolean value(PsiElement stringLiteralExpression) {
+            return PhpStringUtil.isPhpSingleQuotedString(stringLiteralExpression.getFirstChild());
+        }
+    };
+
     @NotNull
     @Override
     public String getText() {
@@ -28,22 +36,40 @@ public class PhpReplaceSingleQuotesWithEscapingIntention extends PsiElementBaseI
 
     @Override
     public boolean isAvailable(@NotNull Project project, Editor editor, @NotNull PsiElement psiElement) {
-        return PhpWorkaroundUtil.isIntentionAvailable(psiElement) && PhpStringUtil.isPhpSingleQuotedString(psiElement);
+        long startTime = PhpQuotesMetrics.startTimer();
+        boolean available = PhpWorkaroundUtil.isIntentionAvailable(psiElement) && PhpStringUtil.isPhpSingleQuotedString(psiElement) &&
+            !PhpQuotesCostGuard.isSkippedFile(psiElement.getContainingFile());
+        PhpQuotesMetrics.SINGLE_QUOTES_AVAILABILITY.recordSince(startTime);
+        return available;
     }
 
     @Override
-    public void invoke(@NotNull Project project, Editor editor, @NotNull PsiElement psiElement) throws IncorrectOperationException {
-        if (!PhpStringUtil.isPhpSingleQuotedString(psiElement)) return;
-        PsiElement parentPsi = psiElement.getParent();
-        if (!(parentPsi instanceof StringLiteralExpression)) return;
-        StringLiteralExpression phpDoubleQuotedStringLiteralPsi = convertPhpSingleQuotedStringToDoubleQuotedString(psiElement);
-        if (phpDoubleQuotedStringLiteralPsi == null) return;
-        parentPsi.replace(phpDoubleQuotedStringLiteralPsi);
+    public boolean startInWriteAction() {
+        return false;
+    }
+
+    @Override
+    public void invoke(@NotNull final Project project, final Editor editor, @NotNull final PsiElement psiElement) throws IncorrectOperationException {
+        long startTime = PhpQuotesMetrics.startInvocation();
+        try {
+            // a large literal is converted before the write action, under a progress which can be canceled
+            if (PhpStringUtil.isPhpSingleQuotedString(psiElement) && !PhpQuotesCostGuard.computeLargeLiteralReplacementText(project, psiElement.getParent())) return;
+            new WriteCommandAction.Simple(project, getText(), psiElement.getContainingFile()) {
+                @Override
+                protected void run() throws Throwable {
+                    replaceQuotes(project, editor, psiElement);
+                }
+            }.execute();
+        } finally {
+            PhpQuotesMetrics.endInvocation(PhpQuotesMetrics.SINGLE_QUOTES_INVOCATION, startTime);
+        }
     }
 
-    private StringLiteralExpression convertPhpSingleQuotedStringToDoubleQuotedString(PsiElement psiElement) {
-        String stringContent = PhpStringUtil.getPhpSingleQuotedStringUnescapedContent(psiElement);
-        return PhpStringUtil.createPhpDoubleQuotedStringPsiFromContent(psiElement.getProject(), stringContent);
+    private static void replaceQuotes(Project project, Editor editor, PsiElement psiElement) {
+        // with many carets or a selection, every single quoted string under them is replaced at once
+        if (editor != null && PhpQuotesBatchConverter.replaceStringLiteralsAtCarets(project, editor, psiElement.getContainingFile(), IS_CONVERTIBLE)) return;
+        if (!PhpStringUtil.isPhpSingleQuotedString(psiElement)) return;
+        PhpStringUtil.replacePhpSingleQuotedStringWithDoubleQuoted(psiElement);
     }
 
 }
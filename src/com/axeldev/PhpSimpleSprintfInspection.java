@@ -0,0 +1,147 @@
+package com.axeldev;
+
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.LocalQuickFix;
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.parser.PhpElementTypes;
+import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
+import com.jetbrains.php.lang.psi.elements.FunctionReference;
+import com.jetbrains.php.lang.psi.elements.MethodReference;
+import com.jetbrains.php.lang.psi.elements.PhpExpression;
+import com.jetbrains.php.lang.psi.elements.Statement;
+import com.jetbrains.php.lang.psi.visitors.PhpElementVisitor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Reports <tt>sprintf</tt> calls, and <tt>printf</tt> calls whose result isn't used, with a constant single or double
+ * quoted format using only <tt>%s</tt>, <tt>%d</tt> and <tt>%%</tt>, which parse the format on every call although
+ * the same string can be built by interpolation or concatenation. The quick fix replaces the call with a double quoted
+ * string embedding the arguments when they're all variables formatted with <tt>%s</tt>, or with a concatenation
+ * otherwise, casting to int the arguments formatted with <tt>%d</tt>; a <tt>printf</tt> call becomes an <tt>echo</tt>.
+ */
+public class PhpSimpleSprintfInspection extends LocalInspectionTool {
+
+    public static final String DISPLAY_NAME           = "Simple sprintf call";
+    public static final String PROBLEM                = "Format call replaceable with a string";
+    public static final String INTERPOLATION_FIX_NAME = "Replace with interpolated string";
+    public static final String CONCATENATION_FIX_NAME = "Replace with concatenation";
+
+    static final String SPRINTF_FUNCTION_NAME = "sprintf";
+    static final String PRINTF_FUNCTION_NAME  = "printf";
+    static final String ECHO_KEYWORD          = "echo ";
+
+    private static final LocalQuickFix INTERPOLATION_QUICK_FIX = new ReplaceFormatCallQuickFix(INTERPOLATION_FIX_NAME);
+    private static final LocalQuickFix CONCATENATION_QUICK_FIX = new ReplaceFormatCallQuickFix(CONCATENATION_FIX_NAME);
+
+    @NotNull
+    @Override
+    public String getDisplayName() {
+        return DISPLAY_NAME;
+    }
+
+    @NotNull
+    @Override
+    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+        return new PhpElementVisitor() {
+            @Override
+            public void visitPhpFunctionCall(FunctionReference reference) {
+                PsiElement[] parameters = getSimpleFormatCallParameters(reference);
+                if (parameters == null) return;
+                PsiElement[] arguments = Arrays.copyOfRange(parameters, 1, parameters.length);
+                String format = PhpStringUtil.getPhpSprintfFormat(parameters[0]);
+                if (format == null) return;
+                String conversions = PhpStringUtil.getPhpSprintfConversions(format);
+                if (conversions == null || conversions.length() != arguments.length) return;
+                holder.registerProblem(reference, PROBLEM,
+                    PhpStringUtil.isPhpSprintfInterpolatable(conversions, arguments) ? INTERPOLATION_QUICK_FIX : CONCATENATION_QUICK_FIX);
+            }
+        };
+    }
+
+    /**
+     * Gets the parameters of a call to the global <tt>sprintf</tt> function, or to <tt>printf</tt> as a statement of
+     * its own, when they can be moved into an expression as they are.
+     *
+     * @param reference The function call to check
+     * @return The format followed by the arguments, or <code>null</code> if it's not such a call, if it has no format,
+     * or if there's a comment or an argument unpacking among the parameters
+     */
+    static PsiElement[] getSimpleFormatCallParameters(PsiElement reference) {
+        if (!(reference instanceof FunctionReference) || reference instanceof MethodReference) return null;
+        FunctionReference functionReference = (FunctionReference) reference;
+        String functionName = functionReference.getName();
+        boolean isPrintf = PRINTF_FUNCTION_NAME.equalsIgnoreCase(functionName);
+        if (!isPrintf && !SPRINTF_FUNCTION_NAME.equalsIgnoreCase(functionName)) return null;
+        // a function of the same name may be declared in a namespace
+        String namespaceName = functionReference.getNamespaceName();
+        if (!namespaceName.isEmpty() && !"\\".equals(namespaceName)) return null;
+        // printf returns the length of the output, so the call is only replaceable if its result is discarded
+        if (isPrintf && !isPhpExpressionStatement(functionReference)) return null;
+        PsiElement parameterList = functionReference.getParameterList();
+        if (parameterList == null || PsiTreeUtil.getChildOfType(parameterList, PsiComment.class) != null) return null;
+        PsiElement[] parameters = functionReference.getParameters();
+        if (parameters.length == 0) return null;
+        for (PsiElement parameter : parameters) {
+            PsiElement previousLeaf = PsiTreeUtil.prevVisibleLeaf(parameter);
+            if (previousLeaf != null && "...".equals(previousLeaf.getText())) return null;
+        }
+        return parameters;
+    }
+
+    private static boolean isPhpExpressionStatement(PsiElement expression) {
+        PsiElement parent = expression.getParent();
+        return parent != null && parent.getNode().getElementType() == PhpElementTypes.STATEMENT;
+    }
+
+    private static class ReplaceFormatCallQuickFix implements LocalQuickFix {
+        private final String name;
+
+        ReplaceFormatCallQuickFix(String name) {
+            this.name = name;
+        }
+
+        @NotNull
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @NotNull
+        @Override
+        public String getFamilyName() {
+            return name;
+        }
+
+        @Override
+        public void applyFix(@NotNull Project project, @NotNull ProblemDescriptor descriptor) {
+            PsiElement reference = descriptor.getPsiElement();
+            if (reference == null || !reference.isValid()) return;
+            PsiElement[] parameters = getSimpleFormatCallParameters(reference);
+            if (parameters == null) return;
+            String replacementText = PhpStringUtil.convertPhpSprintfToText(parameters[0], Arrays.copyOfRange(parameters, 1, parameters.length));
+            if (replacementText == null) return;
+            if (PRINTF_FUNCTION_NAME.equalsIgnoreCase(((FunctionReference) reference).getName())) {
+                // the whole statement is replaced, keeping whatever ends it
+                PsiElement statement = reference.getParent();
+                String statementEnd = statement.getText().substring(reference.getStartOffsetInParent() + reference.getTextLength());
+                PhpStringUtil.replacePhpElementText(statement, ECHO_KEYWORD + replacementText + statementEnd, Statement.class);
+                return;
+            }
+            if (PhpStringUtil.replacePhpExpressionText(reference, replacementText)) return;
+            // the document couldn't be edited directly, so fall back to replacing the PSI element
+            PsiElement replacement = PhpPsiElementFactory.createPhpPsiFromText(project, PhpExpression.class, replacementText);
+            if (replacement == null) return;
+            PhpQuotesMetrics.psiElementCreated();
+            reference.replace(replacement);
+        }
+    }
+
+}
@@ -0,0 +1,907 @@
+package com.axeldev;
+
+import java.util.Arrays;
+
+/**
+ * Escaping and unescaping of PHP single and double quoted string and heredoc contents. Only depends on the JDK, so the
+ * codecs can be used and measured out of the IDE.
+ *
+ * @see <a href="http://php.net/manual/en/language.types.string.php">PHP strings</a>
+ */
+public class PhpStringCodec {
+    public static final char   CHAR_VERTICAL_TAB         = (char) 11;
+    public static final char   CHAR_ESC                  = (char) 27;
+    public static final char   CHAR_NEWLINE              = '\n';
+    public static final char   CHAR_CARRIAGE_RETURN      = '\r';
+    public static final char   CHAR_TAB                  = '\t';
+    public static final char   CHAR_FORM_FEED            = '\f';
+    public static final char   CHAR_BACKSLASH            = '\\';
+    public static final char   CHAR_DOUBLE_QUOTE         = '"';
+    public static final char   CHAR_SINGLE_QUOTE         = '\'';
+    public static final char   CHAR_LEFT_SQUARE_BRACKET  = '[';
+    public static final char   CHAR_RIGHT_SQUARE_BRACKET = ']';
+    public static final char   CHAR_DOLLAR               = '$';
+    public static final char   CHAR_DOT                  = '.';
+    public static final char   CHAR_LCASE_E              = 'e';
+    public static final char   CHAR_LCASE_F              = 'f';
+    public static final char   CHAR_LCASE_N              = 'n';
+    public static final char   CHAR_LCASE_R              = 'r';
+    public static final char   CHAR_LCASE_T              = 't';
+    public static final char   CHAR_LCASE_V              = 'v';
+    public static final char   CHAR_LCASE_X              = 'x';
+    public static final char   CHAR_LCASE_U              = 'u';
+    public static final char   CHAR_LEFT_CURLY_BRACE     = '{';
+    public static final char   CHAR_RIGHT_CURLY_BRACE    = '}';
+    public static final char   CHAR_SPACE                = ' ';
+
+    /**
+     * The identifier preferred for heredocs and nowdocs, which is numbered when the content has lines starting with it.
+     */
+    public static final String PHP_HEREDOC_IDENTIFIER = "EOT";
+
+    private static final byte   ESCAPE_SEQUENCE_NONE        = 0;
+    private static final byte   ESCAPE_SEQUENCE_SINGLE_CHAR = 1;
+    private static final byte   ESCAPE_SEQUENCE_OCTAL       = 2;
+    private static final byte   ESCAPE_SEQUENCE_HEX         = 3;
+    private static final byte   ESCAPE_SEQUENCE_UNICODE     = 4;
+    // kind of escape sequence started by each ASCII character when it follows a backslash in a double quoted string
+    private static final byte[] ESCAPE_SEQUENCE_KINDS       = new byte[128];
+    // character represented by each single character escape sequence
+    private static final char[] ESCAPE_SEQUENCE_VALUES      = new char[128];
+    // numeric value of each ASCII hex digit, or -1 for any other character
+    private static final byte[] HEX_DIGIT_VALUES            = new byte[128];
+
+    static {
+        setSingleCharEscapeSequence(CHAR_LCASE_N, CHAR_NEWLINE);
+        setSingleCharEscapeSequence(CHAR_LCASE_R, CHAR_CARRIAGE_RETURN);
+        setSingleCharEscapeSequence(CHAR_LCASE_T, CHAR_TAB);
+        setSingleCharEscapeSequence(CHAR_LCASE_V, CHAR_VERTICAL_TAB);
+        setSingleCharEscapeSequence(CHAR_LCASE_E, CHAR_ESC);
+        setSingleCharEscapeSequence(CHAR_LCASE_F, CHAR_FORM_FEED);
+        setSingleCharEscapeSequence(CHAR_BACKSLASH, CHAR_BACKSLASH);
+        setSingleCharEscapeSequence(CHAR_DOUBLE_QUOTE, CHAR_DOUBLE_QUOTE);
+        setSingleCharEscapeSequence(CHAR_DOLLAR, CHAR_DOLLAR);
+        ESCAPE_SEQUENCE_KINDS[CHAR_LCASE_X] = ESCAPE_SEQUENCE_HEX;
+        ESCAPE_SEQUENCE_KINDS[CHAR_LCASE_U] = ESCAPE_SEQUENCE_UNICODE;
+        Arrays.fill(HEX_DIGIT_VALUES, (byte) -1);
+        for (char c = '0'; c <= '9'; c++) {
+            HEX_DIGIT_VALUES[c] = (byte) (c - '0');
+            if (isOctalDigit(c)) ESCAPE_SEQUENCE_KINDS[c] = ESCAPE_SEQUENCE_OCTAL;
+        }
+        for (char c = 'a'; c <= 'f'; c++) {
+            HEX_DIGIT_VALUES[c] = (byte) (c - 'a' + 10);
+            HEX_DIGIT_VALUES[Character.toUpperCase(c)] = (byte) (c - 'a' + 10);
+        }
+    }
+
+    // stands for the closing quote when looking at the characters following another one
+    private static final int    END_OF_CONTENT                  = -1;
+
+    private static final byte   CHAR_FLAG_SINGLE_QUOTED_SPECIAL = 1;
+    private static final byte   CHAR_FLAG_DOUBLE_QUOTED_SPECIAL = 1 << 1;
+    private static final byte   CHAR_FLAG_ESCAPABLE             = 1 << 2;
+    private static final byte   CHAR_FLAG_IDENTIFIER_START      = 1 << 3;
+    /* escaping properties of each Latin-1 character: whether it may need escaping in single or double quoted strings,
+     * whether it makes up an escape sequence when following a backslash in a double quoted string, and whether it may
+     * start a PHP identifier */
+    private static final byte[] CHAR_FLAGS                      = new byte[256];
+
+    static {
+        CHAR_FLAGS[CHAR_SINGLE_QUOTE] |= CHAR_FLAG_SINGLE_QUOTED_SPECIAL;
+        CHAR_FLAGS[CHAR_BACKSLASH] |= CHAR_FLAG_SINGLE_QUOTED_SPECIAL;
+        CHAR_FLAGS[CHAR_BACKSLASH] |= CHAR_FLAG_DOUBLE_QUOTED_SPECIAL;
+        CHAR_FLAGS[CHAR_DOUBLE_QUOTE] |= CHAR_FLAG_DOUBLE_QUOTED_SPECIAL;
+        CHAR_FLAGS[CHAR_DOLLAR] |= CHAR_FLAG_DOUBLE_QUOTED_SPECIAL;
+        CHAR_FLAGS[CHAR_LEFT_CURLY_BRACE] |= CHAR_FLAG_DOUBLE_QUOTED_SPECIAL;
+        for (char c = 0; c < ESCAPE_SEQUENCE_KINDS.length; c++) {
+            byte escapeSequenceKind = ESCAPE_SEQUENCE_KINDS[c];
+            if (escapeSequenceKind == ESCAPE_SEQUENCE_SINGLE_CHAR || escapeSequenceKind == ESCAPE_SEQUENCE_OCTAL) {
+                CHAR_FLAGS[c] |= CHAR_FLAG_ESCAPABLE;
+            }
+        }
+        // a backslash before a single quote is kept in double quoted strings, but has always been escaped
+        CHAR_FLAGS[CHAR_SINGLE_QUOTE] |= CHAR_FLAG_ESCAPABLE;
+        // a PHP identifier start is defined by the regexp `[a-zA-Z_\x7f-\xff]`
+        for (char c = 'a'; c <= 'z'; c++) {
+            CHAR_FLAGS[c] |= CHAR_FLAG_IDENTIFIER_START;
+            CHAR_FLAGS[Character.toUpperCase(c)] |= CHAR_FLAG_IDENTIFIER_START;
+        }
+        CHAR_FLAGS['_'] |= CHAR_FLAG_IDENTIFIER_START;
+        for (char c = 0x7f; c < CHAR_FLAGS.length; c++) {
+            CHAR_FLAGS[c] |= CHAR_FLAG_IDENTIFIER_START;
+        }
+    }
+
+    private static void setSingleCharEscapeSequence(char escapedChar, char value) {
+        ESCAPE_SEQUENCE_KINDS[escapedChar] = ESCAPE_SEQUENCE_SINGLE_CHAR;
+        ESCAPE_SEQUENCE_VALUES[escapedChar] = value;
+    }
+
+    public static String unescapePhpDoubleQuotedStringContent(CharSequence escapedContent) {
+        // unescaping never makes the content grow, so the buffer is sized once to the escaped content length
+        StringBuilder unescapedContentBuffer = new StringBuilder(escapedContent.length());
+        unescapePhpDoubleQuotedStringContent(escapedContent, unescapedContentBuffer);
+        return unescapedContentBuffer.toString();
+    }
+
+    /**
+     * Unescapes the content of a PHP double quoted string in a single pass, appending the result to the given buffer.
+     * Escape sequences are recognised by looking up the character following each backslash on a static table, and
+     * numeric sequences are decoded by digit value arithmetic, so no intermediate objects are created per character.
+     * <p>
+     * Supports the whole PHP double quoted string escape grammar: <tt>\n</tt>, <tt>\r</tt>, <tt>\t</tt>,
+     * <tt>\v</tt>, <tt>\e</tt>, <tt>\f</tt>, <tt>\\</tt>, <tt>\$</tt>, <tt>\"</tt>, octal <tt>\[0-7]{1,3}</tt>,
+     * hexadecimal <tt>\x[0-9A-Fa-f]{1,2}</tt> and unicode code point <tt>&#92;u{[0-9A-Fa-f]+}</tt> sequences. A backslash
+     * which doesn't start any of them is kept as-is, as PHP does.
+     * </p>
+     *
+     * @param escapedContent         The content of a PHP double quoted string, without the delimiter quotes
+     * @param unescapedContentBuffer The buffer the unescaped content is appended to
+     * @see <a href="http://php.net/manual/en/language.types.string.php#language.types.string.syntax.double">PHP
+     * double quoted strings</a>
+     */
+    public static void unescapePhpDoubleQuotedStringContent(CharSequence escapedContent, StringBuilder unescapedContentBuffer) {
+        unescapePhpDoubleQuotedStringContent(escapedContent, 0, escapedContent.length(), unescapedContentBuffer);
+    }
+
+    /**
+     * Same as {@link #unescapePhpDoubleQuotedStringContent(CharSequence, StringBuilder)}, but reading only a range of
+     * the given text. This allows unescaping the content of a literal right from the text of its token, quotes
+     * included, without copying it first. Escape sequences never extend past the end of the range.
+     *
+     * @param escapedContent         The text holding the content of a PHP double quoted string
+     * @param startOffset            The offset of the content start in the text, inclusive
+     * @param endOffset              The offset of the content end in the text, exclusive
+     * @param unescapedContentBuffer The buffer the unescaped content is appended to
+     */
+    public static void unescapePhpDoubleQuotedStringContent(CharSequence escapedContent, int startOffset, int endOffset, StringBuilder unescapedContentBuffer) {
+        int index = startOffset;
+        while (index < endOffset) {
+            char currentChar = escapedContent.charAt(index++);
+            if (currentChar != CHAR_BACKSLASH || index == endOffset) {
+                unescapedContentBuffer.append(currentChar);
+                continue;
+            }
+            // check if backslash is part of an escape sequence; index now points to the character following it
+            char escapedChar = escapedContent.charAt(index);
+            switch (getEscapeSequenceKind(escapedChar)) {
+                case ESCAPE_SEQUENCE_SINGLE_CHAR:
+                    unescapedContentBuffer.append(ESCAPE_SEQUENCE_VALUES[escapedChar]);
+                    index++;
+                    break;
+                case ESCAPE_SEQUENCE_OCTAL: {
+                    // from one to three digits will make up an octal escape sequence
+                    int sequenceEnd = Math.min(index + 3, endOffset);
+                    int code = HEX_DIGIT_VALUES[escapedChar];
+                    while (++index < sequenceEnd && isOctalDigit(escapedContent.charAt(index))) {
+                        code = (code << 3) + HEX_DIGIT_VALUES[escapedContent.charAt(index)];
+                    }
+                    unescapedContentBuffer.append((char) code);
+                    break;
+                }
+                case ESCAPE_SEQUENCE_HEX: {
+                    // one or two hex digits following the x will make up an hex escape sequence
+                    int digitIndex = index + 1;
+                    if (digitIndex < endOffset && isHexDigit(escapedContent.charAt(digitIndex))) {
+                        int code = HEX_DIGIT_VALUES[escapedContent.charAt(digitIndex++)];
+                        if (digitIndex < endOffset && isHexDigit(escapedContent.charAt(digitIndex))) {
+                            code = (code << 4) + HEX_DIGIT_VALUES[escapedContent.charAt(digitIndex++)];
+                        }
+                        unescapedContentBuffer.append((char) code);
+                        index = digitIndex;
+                    } else {
+                        /* since next character don't make up an hex sequence, output the backslash and let the x
+                         * be processed as a regular character */
+                        unescapedContentBuffer.append(CHAR_BACKSLASH);
+                    }
+                    break;
+                }
+                case ESCAPE_SEQUENCE_UNICODE: {
+                    // the hex code of an unicode code point wrapped in curly braces follows the u
+                    int digitIndex = index + 1;
+                    if (digitIndex < endOffset && escapedContent.charAt(digitIndex) == CHAR_LEFT_CURLY_BRACE) {
+                        int digitsStart = ++digitIndex;
+                        int codePoint = 0;
+                        while (digitIndex < endOffset && codePoint <= Character.MAX_CODE_POINT && isHexDigit(escapedContent.charAt(digitIndex))) {
+                            codePoint = (codePoint << 4) + HEX_DIGIT_VALUES[escapedContent.charAt(digitIndex++)];
+                        }
+                        if (digitIndex > digitsStart && digitIndex < endOffset && codePoint <= Character.MAX_CODE_POINT &&
+                            escapedContent.charAt(digitIndex) == CHAR_RIGHT_CURLY_BRACE) {
+                            unescapedContentBuffer.appendCodePoint(codePoint);
+                            index = digitIndex + 1;
+                            break;
+                        }
+                    }
+                    // not a valid code point sequence, output the backslash and let the u be processed as usual
+                    unescapedContentBuffer.append(CHAR_BACKSLASH);
+                    break;
+                }
+                default:
+                    /* potential escape sequence wasn't so, so output the backslash and let the character be processed
+                     * as a regular one */
+                    unescapedContentBuffer.append(CHAR_BACKSLASH);
+                    break;
+            }
+        }
+    }
+
+    private static byte getEscapeSequenceKind(char escapedChar) {
+        return escapedChar < ESCAPE_SEQUENCE_KINDS.length ? ESCAPE_SEQUENCE_KINDS[escapedChar] : ESCAPE_SEQUENCE_NONE;
+    }
+
+    private static boolean isOctalDigit(char c) {
+        return c >= '0' && c <= '7';
+    }
+
+    private static boolean isHexDigit(char c) {
+        return c < HEX_DIGIT_VALUES.length && HEX_DIGIT_VALUES[c] >= 0;
+    }
+
+    public static String unescapePhpSingleQuotedStringContent(CharSequence escapedContent) {
+        // unescaping never makes the content grow, so the buffer is sized once to the escaped content length
+        StringBuilder unescapedContentBuffer = new StringBuilder(escapedContent.length());
+        unescapePhpSingleQuotedStringContent(escapedContent, 0, escapedContent.length(), unescapedContentBuffer);
+        return unescapedContentBuffer.toString();
+    }
+
+    /**
+     * Unescapes the content of a PHP single quoted string in a single pass, reading only a range of the given text and
+     * appending the result to the given buffer. Only <tt>\'</tt> and <tt>\\</tt> are escape sequences in single
+     * quoted strings, any other backslash is kept as-is.
+     *
+     * @param escapedContent         The text holding the content of a PHP single quoted string
+     * @param startOffset            The offset of the content start in the text, inclusive
+     * @param endOffset              The offset of the content end in the text, exclusive
+     * @param unescapedContentBuffer The buffer the unescaped content is appended to
+     * @see <a href="http://php.net/manual/en/language.types.string.php#language.types.string.syntax.single">PHP
+     * single quoted strings</a>
+     */
+    public static void unescapePhpSingleQuotedStringContent(CharSequence escapedContent, int startOffset, int endOffset, StringBuilder unescapedContentBuffer) {
+        // start of the pending run of characters which can be copied as-is
+        int runStart = startOffset;
+        for (int index = startOffset; index + 1 < endOffset; index++) {
+            if (escapedContent.charAt(index) != CHAR_BACKSLASH) continue;
+            char nextChar = escapedContent.charAt(index + 1);
+            if (nextChar != CHAR_BACKSLASH && nextChar != CHAR_SINGLE_QUOTE) continue;
+            // drop the escaping backslash and skip the escaped character, so it doesn't escape the next one
+            unescapedContentBuffer.append(escapedContent, runStart, index);
+            runStart = ++index;
+        }
+        unescapedContentBuffer.append(escapedContent, runStart, endOffset);
+    }
+
+    public static String escapePhpSingleQuotedStringContent(CharSequence unescapedContent) {
+        StringBuilder escapedContentBuffer = new StringBuilder(getEscapedContentBufferCapacity(unescapedContent));
+        escapePhpSingleQuotedStringContent(unescapedContent, escapedContentBuffer);
+        return escapedContentBuffer.toString();
+    }
+
+    /**
+     * Escapes a text to be the content of a PHP single quoted string in a single pass, appending the result to the
+     * given buffer. Single quotes are always escaped, and backslashes only when they would otherwise make up an escape
+     * sequence with the next character or with the closing quote.
+     *
+     * @param unescapedContent     The text to escape
+     * @param escapedContentBuffer The buffer the escaped content is appended to
+     * @see <a href="http://php.net/manual/en/language.types.string.php#language.types.string.syntax.single">PHP
+     * single quoted strings</a>
+     */
+    public static void escapePhpSingleQuotedStringContent(CharSequence unescapedContent, StringBuilder escapedContentBuffer) {
+        escapePhpSingleQuotedStringContent(unescapedContent, 0, unescapedContent.length(), escapedContentBuffer);
+    }
+
+    /**
+     * Same as {@link #escapePhpSingleQuotedStringContent(CharSequence, StringBuilder)}, but reading only a range of
+     * the given text. The end of the range is taken as the end of the content.
+     *
+     * @param unescapedContent     The text holding the content to escape
+     * @param startOffset          The offset of the content start in the text, inclusive
+     * @param endOffset            The offset of the content end in the text, exclusive
+     * @param escapedContentBuffer The buffer the escaped content is appended to
+     */
+    public static void escapePhpSingleQuotedStringContent(CharSequence unescapedContent, int startOffset, int endOffset, StringBuilder escapedContentBuffer) {
+        // start of the pending run of characters which can be copied as-is
+        int runStart = startOffset;
+        for (int index = startOffset; index < endOffset; index++) {
+            char currentChar = unescapedContent.charAt(index);
+            if ((getCharFlags(currentChar) & CHAR_FLAG_SINGLE_QUOTED_SPECIAL) == 0) continue;
+            if (currentChar == CHAR_BACKSLASH && !isBackslashEscapingInSingleQuotedString(charAtOrEnd(unescapedContent, index + 1, endOffset))) continue;
+            escapedContentBuffer.append(unescapedContent, runStart, index).append(CHAR_BACKSLASH);
+            runStart = index;
+        }
+        escapedContentBuffer.append(unescapedContent, runStart, endOffset);
+    }
+
+    public static String escapePhpDoubleQuotedStringContent(CharSequence unescapedContent) {
+        StringBuilder escapedContentBuffer = new StringBuilder(getEscapedContentBufferCapacity(unescapedContent));
+        escapePhpDoubleQuotedStringContent(unescapedContent, escapedContentBuffer);
+        return escapedContentBuffer.toString();
+    }
+
+    /**
+     * Escapes a text to be the content of a PHP double quoted string in a single pass, appending the result to the
+     * given buffer. Escaping decisions are taken by looking up each character on a static table, so no intermediate
+     * strings are created:
+     * <ul>
+     * <li>Double quotes are always escaped.</li>
+     * <li>Backslashes are escaped when they would otherwise make up an escape sequence with the next characters or
+     * with the closing quote.</li>
+     * <li>Dollar signs are escaped when they would otherwise start the interpolation of a variable, this is, when
+     * followed by a PHP identifier start character (<tt>[a-zA-Z_\x7f-\xff]</tt>) or by a left curly brace, or when
+     * preceded by a left curly brace.</li>
+     * </ul>
+     *
+     * @param unescapedContent     The text to escape
+     * @param escapedContentBuffer The buffer the escaped content is appended to
+     * @see <a href="http://php.net/manual/en/language.types.string.php#language.types.string.syntax.double">PHP
+     * double quoted strings</a>
+     * @see <a href="http://php.net/manual/en/language.variables.basics.php">PHP variable identifiers</a>
+     */
+    public static void escapePhpDoubleQuotedStringContent(CharSequence unescapedContent, StringBuilder escapedContentBuffer) {
+        escapePhpDoubleQuotedStringContent(unescapedContent, 0, unescapedContent.length(), escapedContentBuffer);
+    }
+
+    /**
+     * Same as {@link #escapePhpDoubleQuotedStringContent(CharSequence, StringBuilder)}, but reading only a range of
+     * the given text. The end of the range is taken as the end of the content, so characters following it are never
+     * looked at when deciding whether to escape the last ones.
+     *
+     * @param unescapedContent     The text holding the content to escape
+     * @param startOffset          The offset of the content start in the text, inclusive
+     * @param endOffset            The offset of the content end in the text, exclusive
+     * @param escapedContentBuffer The buffer the escaped content is appended to
+     */
+    public static void escapePhpDoubleQuotedStringContent(CharSequence unescapedContent, int startOffset, int endOffset, StringBuilder escapedContentBuffer) {
+        // start of the pending run of characters which can be copied as-is
+        int runStart = startOffset;
+        for (int index = startOffset; index < endOffset; index++) {
+            char currentChar = unescapedContent.charAt(index);
+            if ((getCharFlags(currentChar) & CHAR_FLAG_DOUBLE_QUOTED_SPECIAL) == 0) continue;
+            int nextIndex = index + 1;
+            switch (currentChar) {
+                case CHAR_BACKSLASH:
+                    if (!isBackslashEscapingInDoubleQuotedString(unescapedContent, nextIndex, endOffset)) continue;
+                    break;
+                case CHAR_DOLLAR:
+                    if (!isDollarSignEscapingInDoubleQuotedString(charAtOrEnd(unescapedContent, nextIndex, endOffset))) continue;
+                    break;
+                case CHAR_LEFT_CURLY_BRACE:
+                    // `{$` starts an embedded expression, so the dollar sign is the one to escape
+                    if (charAtOrEnd(unescapedContent, nextIndex, endOffset) != CHAR_DOLLAR) continue;
+                    escapedContentBuffer.append(unescapedContent, runStart, nextIndex).append(CHAR_BACKSLASH);
+                    runStart = nextIndex;
+                    // the dollar sign is already escaped, skip it
+                    index = nextIndex;
+                    continue;
+                default:
+                    // double quotes are always escaped
+                    break;
+            }
+            escapedContentBuffer.append(unescapedContent, runStart, index).append(CHAR_BACKSLASH);
+            runStart = index;
+        }
+        escapedContentBuffer.append(unescapedContent, runStart, endOffset);
+    }
+
+    /**
+     * Finds where a text being escaped in chunks can be split, so that escaping the chunks one by one, each as if it
+     * was the whole content, gives the same result as escaping the text at once. The escaping of a character only
+     * depends on the two characters following it, so the text can be split anywhere but after a backslash, a dollar
+     * sign or a left curly brace, or one character after a backslash. This holds for both single and double quoted
+     * strings.
+     *
+     * @param unescapedContent The text being escaped
+     * @param offset           The preferred split offset, at least two characters past the start of the text
+     * @param endOffset        The offset of the text end, exclusive
+     * @return The first offset from the preferred one where the text can be split, which may be its end
+     */
+    public static int getPhpStringContentSplitOffset(CharSequence unescapedContent, int offset, int endOffset) {
+        int splitOffset = offset;
+        while (splitOffset < endOffset && (isEscapingLookaheadChar(unescapedContent.charAt(splitOffset - 1)) ||
+            unescapedContent.charAt(splitOffset - 2) == CHAR_BACKSLASH)) {
+            splitOffset++;
+        }
+        return splitOffset;
+    }
+
+    private static boolean isEscapingLookaheadChar(char c) {
+        return c == CHAR_BACKSLASH || c == CHAR_DOLLAR || c == CHAR_LEFT_CURLY_BRACE;
+    }
+
+    /**
+     * Finds where the content of a PHP string being unescaped in chunks can be split, so that unescaping the chunks one
+     * by one gives the same result as unescaping the content at once. No escape sequence may cross the split, so the
+     * content is split right after a character which can't be part of an escape sequence of either kind of strings.
+     *
+     * @param escapedContent The text holding the content of a PHP string
+     * @param offset         The preferred split offset, past the content start
+     * @param endOffset      The offset of the content end, exclusive
+     * @return The first offset from the preferred one where the content can be split, which may be its end
+     */
+    public static int getPhpEscapedStringContentSplitOffset(CharSequence escapedContent, int offset, int endOffset) {
+        int splitOffset = offset;
+        while (splitOffset < endOffset && isEscapeSequenceChar(escapedContent.charAt(splitOffset - 1))) {
+            splitOffset++;
+        }
+        return splitOffset;
+    }
+
+    private static boolean isEscapeSequenceChar(char c) {
+        return getEscapeSequenceKind(c) != ESCAPE_SEQUENCE_NONE || isHexDigit(c) || c == CHAR_SINGLE_QUOTE ||
+            c == CHAR_LEFT_CURLY_BRACE || c == CHAR_RIGHT_CURLY_BRACE;
+    }
+
+    /**
+     * Tells whether the content of a PHP double quoted string without embedded variables can be written as the content
+     * of a single quoted string as-is, this is, without adding any escaping backslash nor losing any character which
+     * only double quoted strings can represent. The content is only scanned, never unescaped.
+     * <p>
+     * It can't have single quotes, and the only escape sequences it can have are <tt>\\</tt>, <tt>\$</tt> and
+     * <tt>\"</tt>. Any backslash which doesn't start an escape sequence is fine, as it's kept as-is in both kinds of
+     * strings.
+     * </p>
+     *
+     * @param escapedContent The text holding the content of a PHP double quoted string
+     * @param startOffset    The offset of the content start in the text, inclusive
+     * @param endOffset      The offset of the content end in the text, exclusive
+     * @return <code>true</code> if the content reads the same in a single quoted string
+     */
+    public static boolean isPhpDoubleQuotedStringContentSingleQuotable(CharSequence escapedContent, int startOffset, int endOffset) {
+        for (int index = startOffset; index < endOffset; index++) {
+            char currentChar = escapedContent.charAt(index);
+            if (currentChar == CHAR_SINGLE_QUOTE) return false;
+            if (currentChar != CHAR_BACKSLASH || index + 1 == endOffset) continue;
+            char escapedChar = escapedContent.charAt(index + 1);
+            switch (getEscapeSequenceKind(escapedChar)) {
+                case ESCAPE_SEQUENCE_SINGLE_CHAR:
+                    // the other single character sequences stand for control characters
+                    if (escapedChar != CHAR_BACKSLASH && escapedChar != CHAR_DOLLAR && escapedChar != CHAR_DOUBLE_QUOTE) return false;
+                    index++;
+                    break;
+                case ESCAPE_SEQUENCE_OCTAL:
+                    return false;
+                case ESCAPE_SEQUENCE_HEX:
+                    if (index + 2 < endOffset && isHexDigit(escapedContent.charAt(index + 2))) return false;
+                    break;
+                case ESCAPE_SEQUENCE_UNICODE:
+                    if (index + 2 < endOffset && escapedContent.charAt(index + 2) == CHAR_LEFT_CURLY_BRACE) return false;
+                    break;
+                default:
+                    // the backslash is kept as-is, and the next character is processed as a regular one
+                    break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tells whether the content of a PHP single quoted string would be cleaner in a double quoted string, this is, it
+     * has escaped single quotes and it can be written as the content of a double quoted string without adding any
+     * escaping backslash. The content is only scanned, never unescaped.
+     *
+     * @param escapedContent The text holding the content of a PHP single quoted string
+     * @param startOffset    The offset of the content start in the text, inclusive
+     * @param endOffset      The offset of the content end in the text, exclusive
+     * @return <code>true</code> if the content has escaped single quotes and needs no new escaping in a double quoted
+     * string
+     */
+    public static boolean isPhpSingleQuotedStringContentDoubleQuotable(CharSequence escapedContent, int startOffset, int endOffset) {
+        boolean hasEscapedSingleQuotes = false;
+        for (int index = startOffset; index < endOffset; index++) {
+            char currentChar = escapedContent.charAt(index);
+            if ((getCharFlags(currentChar) & CHAR_FLAG_DOUBLE_QUOTED_SPECIAL) == 0) continue;
+            int nextIndex = index + 1;
+            switch (currentChar) {
+                case CHAR_BACKSLASH:
+                    // a backslash is always followed by another character, as it would otherwise escape the closing quote
+                    if (nextIndex == endOffset) return false;
+                    char nextChar = escapedContent.charAt(nextIndex);
+                    if (nextChar == CHAR_SINGLE_QUOTE) {
+                        hasEscapedSingleQuotes = true;
+                    } else if (nextChar != CHAR_BACKSLASH) {
+                        // a literal backslash, which needs escaping in double quotes if it makes up an escape sequence
+                        if (isBackslashEscapingInDoubleQuotedString(escapedContent, nextIndex, endOffset)) return false;
+                        continue;
+                    }
+                    // an escaped backslash is written the same way in both kinds of strings
+                    index = nextIndex;
+                    break;
+                case CHAR_DOLLAR:
+                    if (nextIndex == endOffset) continue;
+                    char dollarNextChar = escapedContent.charAt(nextIndex);
+                    if (dollarNextChar == CHAR_LEFT_CURLY_BRACE || (getCharFlags(dollarNextChar) & CHAR_FLAG_IDENTIFIER_START) != 0) return false;
+                    break;
+                case CHAR_LEFT_CURLY_BRACE:
+                    if (nextIndex < endOffset && escapedContent.charAt(nextIndex) == CHAR_DOLLAR) return false;
+                    break;
+                default:
+                    // double quotes would need escaping
+                    return false;
+            }
+        }
+        return hasEscapedSingleQuotes;
+    }
+
+    /**
+     * Counts the escape sequences the content of a PHP double quoted string needs at least, this is, once those which
+     * stand for the character they escape anyway are dropped: <tt>\\</tt> when the backslash escapes nothing and
+     * <tt>\$</tt> when the dollar sign starts no variable, both decided on the text following them as written.
+     *
+     * @param escapedContent The text holding the content of a PHP double quoted string
+     * @param startOffset    The offset of the content start in the text, inclusive
+     * @param endOffset      The offset of the content end in the text, exclusive
+     * @return The number of escape sequences the content can't do without
+     */
+    public static int countPhpDoubleQuotedStringContentMinimalEscapes(CharSequence escapedContent, int startOffset, int endOffset) {
+        int escapeCount = 0;
+        for (int index = startOffset; index + 1 < endOffset; index++) {
+            if (escapedContent.charAt(index) != CHAR_BACKSLASH) continue;
+            char escapedChar = escapedContent.charAt(index + 1);
+            switch (getEscapeSequenceKind(escapedChar)) {
+                case ESCAPE_SEQUENCE_SINGLE_CHAR:
+                    int nextChar = charAtOrEnd(escapedContent, index + 2, endOffset);
+                    if (escapedChar == CHAR_BACKSLASH) {
+                        if (isBackslashEscapingInDoubleQuotedString(nextChar, charAtOrEnd(escapedContent, index + 3, endOffset))) escapeCount++;
+                    } else if (escapedChar == CHAR_DOLLAR) {
+                        boolean followsLeftCurlyBrace = index > startOffset && escapedContent.charAt(index - 1) == CHAR_LEFT_CURLY_BRACE;
+                        if (followsLeftCurlyBrace || isDollarSignEscapingInDoubleQuotedString(nextChar)) escapeCount++;
+                    } else {
+                        escapeCount++;
+                    }
+                    // skip the escaped character, so an escaped backslash doesn't escape the next one
+                    index++;
+                    break;
+                case ESCAPE_SEQUENCE_OCTAL:
+                    escapeCount++;
+                    index++;
+                    break;
+                case ESCAPE_SEQUENCE_HEX:
+                    if (index + 2 < endOffset && isHexDigit(escapedContent.charAt(index + 2))) escapeCount++;
+                    break;
+                case ESCAPE_SEQUENCE_UNICODE:
+                    if (index + 2 < endOffset && escapedContent.charAt(index + 2) == CHAR_LEFT_CURLY_BRACE) escapeCount++;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return escapeCount;
+    }
+
+    /**
+     * Counts the escape sequences the content of a PHP single quoted string needs at least: its single quotes, and its
+     * backslashes followed by a single quote, a backslash or the end of the content, once unescaped.
+     *
+     * @param escapedContent The text holding the content of a PHP single quoted string
+     * @param startOffset    The offset of the content start in the text, inclusive
+     * @param endOffset      The offset of the content end in the text, exclusive
+     * @return The number of escape sequences the content can't do without
+     */
+    public static int countPhpSingleQuotedStringContentMinimalEscapes(CharSequence escapedContent, int startOffset, int endOffset) {
+        int escapeCount = 0;
+        boolean previousCharIsBackslash = false;
+        for (int index = startOffset; index < endOffset; ) {
+            int charEnd = getPhpSingleQuotedStringCharEnd(escapedContent, index, endOffset);
+            // an escape sequence ends with the character it stands for
+            char currentChar = escapedContent.charAt(charEnd - 1);
+            index = charEnd;
+            if (previousCharIsBackslash && isBackslashEscapingInSingleQuotedString(currentChar)) escapeCount++;
+            if (currentChar == CHAR_SINGLE_QUOTE) escapeCount++;
+            previousCharIsBackslash = currentChar == CHAR_BACKSLASH;
+        }
+        if (previousCharIsBackslash && isBackslashEscapingInSingleQuotedString(END_OF_CONTENT)) escapeCount++;
+        return escapeCount;
+    }
+
+    /**
+     * Counts the escaping backslashes which the content of a PHP double quoted string without embedded variables would
+     * need as the content of a single quoted string, applying the same rules as
+     * {@link #escapePhpSingleQuotedStringContent(CharSequence, int, int, StringBuilder)} but without unescaping nor
+     * escaping anything: the content is scanned once, and each escape sequence is read as the character it stands for.
+     *
+     * @param escapedContent The text holding the content of a PHP double quoted string
+     * @param startOffset    The offset of the content start in the text, inclusive
+     * @param endOffset      The offset of the content end in the text, exclusive
+     * @return The number of escaping backslashes, or -1 if the content has characters which only double quoted strings
+     * can represent, the same way as {@link #isPhpDoubleQuotedStringContentSingleQuotable(CharSequence, int, int)}
+     */
+    public static int countPhpDoubleQuotedStringContentSingleQuotedEscapes(CharSequence escapedContent, int startOffset, int endOffset) {
+        int escapeCount = 0;
+        boolean previousCharIsBackslash = false;
+        for (int index = startOffset; index < endOffset; index++) {
+            char currentChar = escapedContent.charAt(index);
+            if (currentChar == CHAR_BACKSLASH && index + 1 < endOffset) {
+                char escapedChar = escapedContent.charAt(index + 1);
+                switch (getEscapeSequenceKind(escapedChar)) {
+                    case ESCAPE_SEQUENCE_SINGLE_CHAR:
+                        // the other single character sequences stand for control characters
+                        if (escapedChar != CHAR_BACKSLASH && escapedChar != CHAR_DOLLAR && escapedChar != CHAR_DOUBLE_QUOTE) return -1;
+                        currentChar = escapedChar;
+                        index++;
+                        break;
+                    case ESCAPE_SEQUENCE_OCTAL:
+                        return -1;
+                    case ESCAPE_SEQUENCE_HEX:
+                        if (index + 2 < endOffset && isHexDigit(escapedContent.charAt(index + 2))) return -1;
+                        break;
+                    case ESCAPE_SEQUENCE_UNICODE:
+                        if (index + 2 < endOffset && escapedContent.charAt(index + 2) == CHAR_LEFT_CURLY_BRACE) return -1;
+                        break;
+                    default:
+                        // the backslash is kept as-is
+                        break;
+                }
+            }
+            // a backslash is escaped depending on the character following it, so it's counted once that one is read
+            if (previousCharIsBackslash && isBackslashEscapingInSingleQuotedString(currentChar)) escapeCount++;
+            if (currentChar == CHAR_SINGLE_QUOTE) escapeCount++;
+            previousCharIsBackslash = currentChar == CHAR_BACKSLASH;
+        }
+        if (previousCharIsBackslash && isBackslashEscapingInSingleQuotedString(END_OF_CONTENT)) escapeCount++;
+        return escapeCount;
+    }
+
+    /**
+     * Counts the escaping backslashes which the content of a PHP single quoted string would need as the content of a
+     * double quoted string, applying the same rules as
+     * {@link #escapePhpDoubleQuotedStringContent(CharSequence, int, int, StringBuilder)} but without unescaping nor
+     * escaping anything: the content is scanned once, and each escape sequence is read as the character it stands for.
+     *
+     * @param escapedContent The text holding the content of a PHP single quoted string
+     * @param startOffset    The offset of the content start in the text, inclusive
+     * @param endOffset      The offset of the content end in the text, exclusive
+     * @return The number of escaping backslashes
+     */
+    public static int countPhpSingleQuotedStringContentDoubleQuotedEscapes(CharSequence escapedContent, int startOffset, int endOffset) {
+        int escapeCount = 0;
+        int index = startOffset;
+        while (index < endOffset) {
+            int charEnd = getPhpSingleQuotedStringCharEnd(escapedContent, index, endOffset);
+            // an escape sequence ends with the character it stands for
+            char currentChar = escapedContent.charAt(charEnd - 1);
+            index = charEnd;
+            if ((getCharFlags(currentChar) & CHAR_FLAG_DOUBLE_QUOTED_SPECIAL) == 0) continue;
+            int nextCharEnd = index < endOffset ? getPhpSingleQuotedStringCharEnd(escapedContent, index, endOffset) : index;
+            int nextChar = index < endOffset ? escapedContent.charAt(nextCharEnd - 1) : END_OF_CONTENT;
+            switch (currentChar) {
+                case CHAR_BACKSLASH:
+                    int secondNextChar = nextCharEnd < endOffset ?
+                        escapedContent.charAt(getPhpSingleQuotedStringCharEnd(escapedContent, nextCharEnd, endOffset) - 1) : END_OF_CONTENT;
+                    if (isBackslashEscapingInDoubleQuotedString(nextChar, secondNextChar)) escapeCount++;
+                    break;
+                case CHAR_DOLLAR:
+                    if (isDollarSignEscapingInDoubleQuotedString(nextChar)) escapeCount++;
+                    break;
+                case CHAR_LEFT_CURLY_BRACE:
+                    // `{$` gets its dollar sign escaped, which is then skipped
+                    if (nextChar != CHAR_DOLLAR) break;
+                    escapeCount++;
+                    index = nextCharEnd;
+                    break;
+                default:
+                    // double quotes are always escaped
+                    escapeCount++;
+                    break;
+            }
+        }
+        return escapeCount;
+    }
+
+    private static int getPhpSingleQuotedStringCharEnd(CharSequence escapedContent, int index, int endOffset) {
+        if (escapedContent.charAt(index) != CHAR_BACKSLASH || index + 1 == endOffset) return index + 1;
+        char nextChar = escapedContent.charAt(index + 1);
+        return nextChar == CHAR_BACKSLASH || nextChar == CHAR_SINGLE_QUOTE ? index + 2 : index + 1;
+    }
+
+    /**
+     * Appends the content of a PHP heredoc to the given buffer, written as the content of a double quoted string. Both
+     * kinds of strings share their escape sequences and variable parsing, except for double quotes, which are literal in
+     * a heredoc, where <tt>\"</tt> stands for a backslash and a double quote. They're then the only characters which
+     * need escaping, so the content is never unescaped: it's copied in runs, and its escape sequences keep the way they
+     * were written.
+     * <p>
+     * The backslashes already ending the buffer are taken as part of the content, so a content split in several pieces
+     * can be appended piece by piece. A literal backslash ending the whole content must be escaped by the caller, as it
+     * would escape the closing quote.
+     * </p>
+     *
+     * @param heredocContent            The text holding the content of a PHP heredoc
+     * @param startOffset               The offset of the content start in the text, inclusive
+     * @param endOffset                 The offset of the content end in the text, exclusive
+     * @param doubleQuotedContentBuffer The buffer the double quoted string content is appended to
+     */
+    public static void appendPhpHeredocContentAsDoubleQuoted(CharSequence heredocContent, int startOffset, int endOffset, StringBuilder doubleQuotedContentBuffer) {
+        int runStartOffset = startOffset;
+        for (int index = startOffset; index < endOffset; index++) {
+            if (heredocContent.charAt(index) != CHAR_DOUBLE_QUOTE) continue;
+            doubleQuotedContentBuffer.append(heredocContent, runStartOffset, index);
+            // a backslash right before the quote is a literal one in a heredoc, which would escape it in double quotes
+            if (countTrailingBackslashes(doubleQuotedContentBuffer) % 2 != 0) doubleQuotedContentBuffer.append(CHAR_BACKSLASH);
+            doubleQuotedContentBuffer.append(CHAR_BACKSLASH);
+            // the quote itself starts the next run
+            runStartOffset = index;
+        }
+        doubleQuotedContentBuffer.append(heredocContent, runStartOffset, endOffset);
+    }
+
+    /**
+     * Appends the content of a PHP double quoted string to the given buffer, written as the content of a heredoc. This
+     * is the reverse of {@link #appendPhpHeredocContentAsDoubleQuoted(CharSequence, int, int, StringBuilder)}: the
+     * backslash escaping each double quote is dropped and everything else is copied in runs.
+     * <p>
+     * The backslashes already ending the buffer are taken as part of the content, so a content split in several pieces
+     * can be appended piece by piece.
+     * </p>
+     *
+     * @param doubleQuotedContent  The text holding the content of a PHP double quoted string
+     * @param startOffset          The offset of the content start in the text, inclusive
+     * @param endOffset            The offset of the content end in the text, exclusive
+     * @param heredocContentBuffer The buffer the heredoc content is appended to
+     */
+    public static void appendPhpDoubleQuotedContentAsHeredoc(CharSequence doubleQuotedContent, int startOffset, int endOffset, StringBuilder heredocContentBuffer) {
+        int runStartOffset = startOffset;
+        for (int index = startOffset; index < endOffset; index++) {
+            if (doubleQuotedContent.charAt(index) != CHAR_DOUBLE_QUOTE) continue;
+            heredocContentBuffer.append(doubleQuotedContent, runStartOffset, index);
+            // the backslash escaping the quote would be a literal one in a heredoc
+            if (countTrailingBackslashes(heredocContentBuffer) % 2 != 0) heredocContentBuffer.setLength(heredocContentBuffer.length() - 1);
+            runStartOffset = index;
+        }
+        heredocContentBuffer.append(doubleQuotedContent, runStartOffset, endOffset);
+    }
+
+    /**
+     * Gets an identifier for a PHP heredoc or nowdoc with the given content which none of its lines can be taken as the
+     * closing identifier of: {@link #PHP_HEREDOC_IDENTIFIER}, numbered after the highest number found in the lines
+     * starting with it, if any. Lines are checked the way PHP 7.3 does, which takes as the closing identifier any line
+     * starting with it, indentation allowed, and followed by anything but an identifier character, so the identifier
+     * is safe for older versions too. The content is scanned only once.
+     *
+     * @param heredocContent The text holding the content of the heredoc, as written between its opening and closing lines
+     * @param startOffset    The offset of the content start in the text, inclusive
+     * @param endOffset      The offset of the content end in the text, exclusive
+     * @return The identifier for the heredoc
+     */
+    public static String getPhpHeredocIdentifier(CharSequence heredocContent, int startOffset, int endOffset) {
+        int identifierLength = PHP_HEREDOC_IDENTIFIER.length();
+        // the highest number of the identifier found in the content, where 0 is the plain identifier
+        int highestNumber = -1;
+        boolean lineStart = true;
+        for (int index = startOffset; index < endOffset; index++) {
+            char currentChar = heredocContent.charAt(index);
+            if (currentChar == CHAR_NEWLINE || currentChar == CHAR_CARRIAGE_RETURN) {
+                lineStart = true;
+                continue;
+            }
+            if (!lineStart || currentChar == CHAR_SPACE || currentChar == CHAR_TAB) continue;
+            lineStart = false;
+            if (endOffset - index < identifierLength) continue;
+            boolean startsWithIdentifier = true;
+            for (int i = 0; i < identifierLength && startsWithIdentifier; i++) {
+                startsWithIdentifier = heredocContent.charAt(index + i) == PHP_HEREDOC_IDENTIFIER.charAt(i);
+            }
+            if (!startsWithIdentifier) continue;
+            int numberStartOffset = index + identifierLength;
+            int numberEndOffset = numberStartOffset;
+            while (numberEndOffset < endOffset && isDecimalDigit(heredocContent.charAt(numberEndOffset))) numberEndOffset++;
+            if (numberEndOffset < endOffset && isIdentifierChar(heredocContent.charAt(numberEndOffset))) continue;
+            highestNumber = Math.max(highestNumber, parseHeredocIdentifierNumber(heredocContent, numberStartOffset, numberEndOffset));
+        }
+        return highestNumber < 0 ? PHP_HEREDOC_IDENTIFIER : PHP_HEREDOC_IDENTIFIER + (highestNumber + 1);
+    }
+
+    private static int parseHeredocIdentifierNumber(CharSequence text, int startOffset, int endOffset) {
+        if (startOffset == endOffset) return 0;
+        // numbers with leading zeros or too long to be generated can't clash with the identifier
+        if (text.charAt(startOffset) == '0' || endOffset - startOffset > 9) return -1;
+        int number = 0;
+        for (int index = startOffset; index < endOffset; index++) {
+            number = number * 10 + text.charAt(index) - '0';
+        }
+        return number;
+    }
+
+    /**
+     * Counts the backslashes ending a text.
+     *
+     * @param text The text to check
+     * @return The number of consecutive backslashes at the end of the text
+     */
+    static int countTrailingBackslashes(CharSequence text) {
+        int index = text.length();
+        while (index > 0 && text.charAt(index - 1) == CHAR_BACKSLASH) index--;
+        return text.length() - index;
+    }
+
+    /**
+     * Tells whether the index of an array access embedded with the simple syntax in a PHP double quoted string, like the
+     * <tt>bar</tt> of <tt>"$foo[bar]"</tt>, is taken by PHP as a string key, so it must be quoted when writing the
+     * array access outside of the string. Unquoted identifiers are string keys, and so are numbers with leading zeros,
+     * which PHP doesn't take as integer offsets. Variables and other numbers are written as-is.
+     *
+     * @param rawIndex    The text holding the array index, as written in the string
+     * @param startOffset The offset of the index start in the text, inclusive
+     * @param endOffset   The offset of the index end in the text, exclusive
+     * @return <code>true</code> if the index must be quoted outside of the string
+     * @see <a href="http://php.net/manual/en/language.types.string.php#language.types.string.parsing">PHP variable
+     * parsing</a>
+     */
+    public static boolean isPhpSimpleSyntaxArrayStringKey(CharSequence rawIndex, int startOffset, int endOffset) {
+        if (startOffset == endOffset) return false;
+        char firstChar = rawIndex.charAt(startOffset);
+        if ((getCharFlags(firstChar) & CHAR_FLAG_IDENTIFIER_START) != 0) {
+            for (int index = startOffset + 1; index < endOffset; index++) {
+                if (!isIdentifierChar(rawIndex.charAt(index))) return false;
+            }
+            return true;
+        }
+        // an octal looking number, which PHP keeps as a string
+        if (firstChar != '0' || endOffset - startOffset < 2) return false;
+        for (int index = startOffset + 1; index < endOffset; index++) {
+            if (!isDecimalDigit(rawIndex.charAt(index))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tells whether a character can be part of a PHP identifier, like a variable name, once it has been started.
+     *
+     * @param c The character to check
+     * @return <code>true</code> if the character matches <tt>[a-zA-Z0-9_\x7f-\xff]</tt> or isn't a Latin-1 one
+     */
+    public static boolean isIdentifierChar(char c) {
+        return (getCharFlags(c) & CHAR_FLAG_IDENTIFIER_START) != 0 || isDecimalDigit(c);
+    }
+
+    /**
+     * Tells whether a character can start a PHP identifier, like a variable name.
+     *
+     * @param c The character to check
+     * @return <code>true</code> if the character matches <tt>[a-zA-Z_\x7f-\xff]</tt> or isn't a Latin-1 one
+     */
+    public static boolean isIdentifierStartChar(char c) {
+        return (getCharFlags(c) & CHAR_FLAG_IDENTIFIER_START) != 0;
+    }
+
+    private static boolean isDecimalDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isBackslashEscapingInDoubleQuotedString(CharSequence content, int nextIndex, int length) {
+        return isBackslashEscapingInDoubleQuotedString(charAtOrEnd(content, nextIndex, length), charAtOrEnd(content, nextIndex + 1, length));
+    }
+
+    // the escaping rules take the characters following the one to escape, so counting escapes can share them
+    private static boolean isBackslashEscapingInDoubleQuotedString(int nextChar, int secondNextChar) {
+        // a backslash at the end of the content would escape the closing quote
+        if (nextChar == END_OF_CONTENT) return true;
+        if ((getCharFlags((char) nextChar) & CHAR_FLAG_ESCAPABLE) != 0) return true;
+        if (nextChar == CHAR_LCASE_X) return secondNextChar != END_OF_CONTENT && isHexDigit((char) secondNextChar);
+        return nextChar == CHAR_LCASE_U && secondNextChar == CHAR_LEFT_CURLY_BRACE;
+    }
+
+    private static boolean isDollarSignEscapingInDoubleQuotedString(int nextChar) {
+        return nextChar == CHAR_LEFT_CURLY_BRACE || (nextChar != END_OF_CONTENT && (getCharFlags((char) nextChar) & CHAR_FLAG_IDENTIFIER_START) != 0);
+    }
+
+    private static boolean isBackslashEscapingInSingleQuotedString(int nextChar) {
+        // a backslash at the end of the content would escape the closing quote
+        return nextChar == END_OF_CONTENT || nextChar == CHAR_SINGLE_QUOTE || nextChar == CHAR_BACKSLASH;
+    }
+
+    private static int charAtOrEnd(CharSequence content, int index, int endOffset) {
+        return index < endOffset ? content.charAt(index) : END_OF_CONTENT;
+    }
+
+    private static byte getCharFlags(char c) {
+        // any non Latin-1 character is encoded as bytes in the \x80-\xff range, which PHP takes as identifier chars
+        return c < CHAR_FLAGS.length ? CHAR_FLAGS[c] : CHAR_FLAG_IDENTIFIER_START;
+    }
+
+    static int getEscapedContentBufferCapacity(CharSequence unescapedContent) {
+        // leave room for a few escaping backslashes to avoid growing the buffer in the common case
+        int length = unescapedContent.length();
+        return length + (length >> 4) + 16;
+    }
+
+}
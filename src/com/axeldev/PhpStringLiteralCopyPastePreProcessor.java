@@ -0,0 +1,189 @@
+package com.axeldev;
+
+import com.intellij.codeInsight.editorActions.CopyPastePreProcessor;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.RawText;
+import com.intellij.openapi.editor.SelectionModel;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.jetbrains.php.lang.psi.PhpFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Escapes the text pasted into the content of a PHP single or double quoted string, so it reads as-is in the string.
+ * The text is escaped in chunks by the same codecs used to replace quotes, and texts of some megabytes are escaped
+ * under a modal progress which can be canceled, in which case the text is pasted unescaped. Its ends are then escaped
+ * again if they would be read together with the content around them, like a pasted dollar sign before a name.
+ */
+public class PhpStringLiteralCopyPastePreProcessor implements CopyPastePreProcessor {
+
+    public static final String PROGRESS_TITLE = "Escaping pasted text";
+
+    /**
+     * The length of the chunks the pasted text is escaped in, between checks for cancellation.
+     */
+    static final int ESCAPING_CHUNK_LENGTH        = 64 * 1024;
+    /**
+     * The length from which the pasted text is escaped under a progress.
+     */
+    static final int PROGRESS_ESCAPING_MIN_LENGTH = 1024 * 1024;
+
+    private static final String HEX_ESCAPE_SEQUENCE_FORMAT     = "\\x%02x";
+    private static final String UNICODE_ESCAPE_SEQUENCE_FORMAT = "\\u{%x}";
+
+    @Nullable
+    @Override
+    public String preprocessOnCopy(PsiFile file, int[] startOffsets, int[] endOffsets, String text) {
+        return null;
+    }
+
+    @NotNull
+    @Override
+    public String preprocessOnPaste(Project project, PsiFile file, Editor editor, String text, RawText rawText) {
+        if (!(file instanceof PhpFile) || text.isEmpty()) return text;
+        PsiDocumentManager.getInstance(project).commitDocument(editor.getDocument());
+        SelectionModel selectionModel = editor.getSelectionModel();
+        int startOffset = selectionModel.getSelectionStart();
+        int endOffset = selectionModel.getSelectionEnd();
+        final PhpStringUtil.Quoting quoting = PhpStringUtil.getPhpStringLiteralContentQuoting(file, startOffset, endOffset);
+        if (quoting == null) return text;
+        final String unescapedContent = text;
+        final StringBuilder escapedContentBuffer = new StringBuilder(PhpStringCodec.getEscapedContentBufferCapacity(unescapedContent));
+        if (unescapedContent.length() < PROGRESS_ESCAPING_MIN_LENGTH) {
+            escapePhpStringContent(unescapedContent, quoting, escapedContentBuffer, null);
+        } else {
+            boolean escaped = ProgressManager.getInstance().runProcessWithProgressSynchronously(new Runnable() {
+                @Override
+                public void run() {
+                    ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+                    escapePhpStringContent(unescapedContent, quoting, escapedContentBuffer, indicator);
+                }
+            }, PROGRESS_TITLE, true, project);
+            if (!escaped) return text;
+        }
+        escapePhpStringContentBoundaries(editor.getDocument().getCharsSequence(), startOffset, endOffset, quoting, escapedContentBuffer);
+        return escapedContentBuffer.toString();
+    }
+
+    /**
+     * Escapes the ends of escaped content about to replace a range of a PHP string content, when they would be read
+     * together with the content around the range, which the codecs never look at. At the start, a lone backslash
+     * before the range is escaped, and a character completing an escape sequence or a variable begun before the range
+     * is written as an escape sequence itself. At the end, a dollar sign followed by a name or a left curly brace is
+     * escaped, and so is the backslash of a trailing <tt>\x</tt> or <tt>&#92;u</tt> followed by a hexadecimal digit or
+     * a left curly brace.
+     *
+     * @param documentText         The text of the document holding the string
+     * @param startOffset          The offset of the replaced range start in the document, inclusive
+     * @param endOffset            The offset of the replaced range end in the document, exclusive
+     * @param quoting              The quoting of the string, single or double quoted
+     * @param escapedContentBuffer The buffer holding the escaped content, which is updated in place
+     */
+    static void escapePhpStringContentBoundaries(CharSequence documentText, int startOffset, int endOffset, PhpStringUtil.Quoting quoting,
+                                                 StringBuilder escapedContentBuffer) {
+        if (escapedContentBuffer.length() == 0) return;
+        char firstChar = escapedContentBuffer.charAt(0);
+        boolean followsLoneBackslash = PhpStringUtil.countBackslashesBefore(documentText, startOffset) % 2 != 0;
+        if (quoting == PhpStringUtil.Quoting.SINGLE_QUOTED) {
+            // a lone backslash before an escaped quote or backslash would escape its backslash instead
+            if (followsLoneBackslash && firstChar == PhpStringCodec.CHAR_BACKSLASH) escapedContentBuffer.insert(0, PhpStringCodec.CHAR_BACKSLASH);
+            return;
+        }
+        if (followsLoneBackslash) {
+            escapedContentBuffer.insert(0, PhpStringCodec.CHAR_BACKSLASH);
+        } else if (isEscapeSequenceContinuation(documentText, startOffset, firstChar) || isVariableContinuation(documentText, startOffset, firstChar)) {
+            int firstCodePoint = Character.codePointAt(escapedContentBuffer, 0);
+            String escapeSequence = firstCodePoint < 0x80 ?
+                String.format(HEX_ESCAPE_SEQUENCE_FORMAT, firstCodePoint) : String.format(UNICODE_ESCAPE_SEQUENCE_FORMAT, firstCodePoint);
+            escapedContentBuffer.replace(0, Character.charCount(firstCodePoint), escapeSequence);
+        }
+        if (endOffset >= documentText.length()) return;
+        char nextChar = documentText.charAt(endOffset);
+        int lastIndex = escapedContentBuffer.length() - 1;
+        char lastChar = escapedContentBuffer.charAt(lastIndex);
+        boolean lastFollowsLoneBackslash = PhpStringUtil.countBackslashesBefore(escapedContentBuffer, lastIndex) % 2 != 0;
+        if (lastChar == PhpStringCodec.CHAR_DOLLAR && !lastFollowsLoneBackslash &&
+            (nextChar == PhpStringCodec.CHAR_LEFT_CURLY_BRACE || PhpStringCodec.isIdentifierStartChar(nextChar))) {
+            escapedContentBuffer.insert(lastIndex, PhpStringCodec.CHAR_BACKSLASH);
+        } else if (lastFollowsLoneBackslash && (lastChar == PhpStringCodec.CHAR_LCASE_X && isHexDigit(nextChar) ||
+            lastChar == PhpStringCodec.CHAR_LCASE_U && nextChar == PhpStringCodec.CHAR_LEFT_CURLY_BRACE)) {
+            escapedContentBuffer.insert(lastIndex, PhpStringCodec.CHAR_BACKSLASH);
+        }
+    }
+
+    /**
+     * Tells whether a character written at an offset of a PHP double quoted string would be read as part of an escape
+     * sequence begun before it: another digit of a <tt>\x</tt> or octal escape sequence which isn't complete yet, or
+     * the left curly brace of a <tt>&#92;u{</tt>.
+     */
+    private static boolean isEscapeSequenceContinuation(CharSequence documentText, int offset, char c) {
+        // the longest incomplete escape sequences, like \x4 or \12, are three characters long
+        for (int escapeStart = offset - 1; escapeStart >= Math.max(0, offset - 3); escapeStart--) {
+            if (documentText.charAt(escapeStart) != PhpStringCodec.CHAR_BACKSLASH) continue;
+            if (escapeStart == offset - 1 || PhpStringUtil.countBackslashesBefore(documentText, escapeStart) % 2 != 0) return false;
+            char escapedChar = documentText.charAt(escapeStart + 1);
+            int escapeLength = offset - escapeStart - 1;
+            if (escapedChar == PhpStringCodec.CHAR_LCASE_U) return escapeLength == 1 && c == PhpStringCodec.CHAR_LEFT_CURLY_BRACE;
+            boolean isHex = escapedChar == PhpStringCodec.CHAR_LCASE_X;
+            for (int i = isHex ? escapeStart + 2 : escapeStart + 1; i < offset; i++) {
+                if (isHex ? !isHexDigit(documentText.charAt(i)) : !isOctalDigit(documentText.charAt(i))) return false;
+            }
+            return escapeLength < 3 && (isHex ? isHexDigit(c) : isOctalDigit(c));
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether a character written at an offset of a PHP double quoted string would turn a literal dollar sign
+     * right before it into an embedded variable.
+     */
+    private static boolean isVariableContinuation(CharSequence documentText, int offset, char c) {
+        if (offset == 0 || documentText.charAt(offset - 1) != PhpStringCodec.CHAR_DOLLAR) return false;
+        if (PhpStringUtil.countBackslashesBefore(documentText, offset - 1) % 2 != 0) return false;
+        return c == PhpStringCodec.CHAR_LEFT_CURLY_BRACE || PhpStringCodec.isIdentifierStartChar(c);
+    }
+
+    private static boolean isHexDigit(char c) {
+        return c >= '0' && c <= '9' || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F';
+    }
+
+    private static boolean isOctalDigit(char c) {
+        return c >= '0' && c <= '7';
+    }
+
+    /**
+     * Escapes a text to be the content of a PHP single or double quoted string, chunk by chunk, reporting the progress
+     * and checking for cancellation after each chunk. The result is the same as escaping the text at once.
+     *
+     * @param unescapedContent     The text to escape
+     * @param quoting              The quoting of the string the text is wanted for, single or double quoted
+     * @param escapedContentBuffer The buffer the escaped content is appended to
+     * @param indicator            The progress indicator to report to, or <code>null</code> if there's none
+     */
+    static void escapePhpStringContent(CharSequence unescapedContent, PhpStringUtil.Quoting quoting, StringBuilder escapedContentBuffer,
+                                       @Nullable ProgressIndicator indicator) {
+        int length = unescapedContent.length();
+        long startTime = PhpQuotesMetrics.startTimer();
+        if (indicator != null) indicator.setIndeterminate(false);
+        for (int chunkStart = 0; chunkStart < length; ) {
+            int chunkEnd = length - chunkStart > ESCAPING_CHUNK_LENGTH ?
+                PhpStringCodec.getPhpStringContentSplitOffset(unescapedContent, chunkStart + ESCAPING_CHUNK_LENGTH, length) : length;
+            if (quoting == PhpStringUtil.Quoting.DOUBLE_QUOTED) {
+                PhpStringCodec.escapePhpDoubleQuotedStringContent(unescapedContent, chunkStart, chunkEnd, escapedContentBuffer);
+            } else {
+                PhpStringCodec.escapePhpSingleQuotedStringContent(unescapedContent, chunkStart, chunkEnd, escapedContentBuffer);
+            }
+            chunkStart = chunkEnd;
+            if (indicator != null) {
+                indicator.checkCanceled();
+                indicator.setFraction((double) chunkStart / length);
+            }
+        }
+        PhpQuotesMetrics.ESCAPING.recordSince(length, startTime);
+    }
+
+}
@@ -0,0 +1,227 @@
+package com.axeldev;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.FileBasedIndexExtension;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import gnu.trove.TIntArrayList;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes the start offsets of the PHP string literals of each file by their kind, using the same classification as
+ * {@link PhpStringUtil}. Finding the files with convertible strings or counting them in a whole project is then a
+ * lookup in the index, kept up to date incrementally by the IDE as files change, instead of parsing every file.
+ * <p>
+ * The index can't be queried while the IDE is indexing, so callers must check the dumb mode first.
+ * </p>
+ */
+public class PhpStringLiteralIndex extends FileBasedIndexExtension<String, int[]> {
+
+    public static final ID<String, int[]> NAME = ID.create("com.axeldev.php1Up.PhpStringLiteralIndex");
+
+    /**
+     * The kinds of string literals recorded by the index. Single quoted strings without escape sequences aren't
+     * recorded, since there's nothing to do with them.
+     */
+    public enum Kind {
+        /** A double quoted string without embedded variables or expressions. */
+        SIMPLE_DOUBLE_QUOTED,
+        /** A double quoted string with embedded variables or expressions. */
+        INTERPOLATED_DOUBLE_QUOTED,
+        /** A single quoted string with an escaped quote or backslash. */
+        ESCAPED_SINGLE_QUOTED
+    }
+
+    /**
+     * The number of string literals of a kind in a scope, and the number of files they're found in.
+     */
+    public static class Statistics {
+        public final int literalCount;
+        public final int fileCount;
+
+        Statistics(int literalCount, int fileCount) {
+            this.literalCount = literalCount;
+            this.fileCount = fileCount;
+        }
+    }
+
+    private static final int VERSION = 1;
+
+    private static final DataIndexer<String, int[], FileContent> INDEXER = new DataIndexer<String, int[], FileContent>() {
+        @NotNull
+        @Override
+        public Map<String, int[]> map(FileContent inputData) {
+            PsiFile psiFile = inputData.getPsiFile();
+            final Map<Kind, TIntArrayList> offsetsByKind = new EnumMap<Kind, TIntArrayList>(Kind.class);
+            psiFile.accept(new PsiRecursiveElementWalkingVisitor() {
+                @Override
+                public void visitElement(PsiElement element) {
+                    if (element instanceof StringLiteralExpression) {
+                        Kind kind = PhpStringUtil.getPhpStringLiteralKind(element);
+                        if (kind != null) {
+                            TIntArrayList offsets = offsetsByKind.get(kind);
+                            if (offsets == null) offsetsByKind.put(kind, offsets = new TIntArrayList());
+                            offsets.add(element.getTextRange().getStartOffset());
+                        }
+                    }
+                    // strings nested in the expressions embedded in a string are indexed too
+                    super.visitElement(element);
+                }
+            });
+            if (offsetsByKind.isEmpty()) return Collections.emptyMap();
+            Map<String, int[]> index = new HashMap<String, int[]>();
+            for (Map.Entry<Kind, TIntArrayList> entry : offsetsByKind.entrySet()) {
+                index.put(entry.getKey().name(), entry.getValue().toNativeArray());
+            }
+            return index;
+        }
+    };
+
+    /**
+     * Writes the offsets of a file, which are ascending, as variable length deltas.
+     */
+    private static final DataExternalizer<int[]> OFFSETS_EXTERNALIZER = new DataExternalizer<int[]>() {
+        @Override
+        public void save(@NotNull DataOutput out, int[] offsets) throws IOException {
+            DataInputOutputUtil.writeINT(out, offsets.length);
+            int previousOffset = 0;
+            for (int offset : offsets) {
+                DataInputOutputUtil.writeINT(out, offset - previousOffset);
+                previousOffset = offset;
+            }
+        }
+
+        @Override
+        public int[] read(@NotNull DataInput in) throws IOException {
+            int[] offsets = new int[DataInputOutputUtil.readINT(in)];
+            int previousOffset = 0;
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = previousOffset += DataInputOutputUtil.readINT(in);
+            }
+            return offsets;
+        }
+    };
+
+    private static final FileBasedIndex.InputFilter INPUT_FILTER = new FileBasedIndex.InputFilter() {
+        @Override
+        public boolean acceptInput(VirtualFile file) {
+            return file.getFileType() == PhpFileType.INSTANCE;
+        }
+    };
+
+    @NotNull
+    @Override
+    public ID<String, int[]> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, int[], FileContent> getIndexer() {
+        return INDEXER;
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return new EnumeratorStringDescriptor();
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<int[]> getValueExternalizer() {
+        return OFFSETS_EXTERNALIZER;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return INPUT_FILTER;
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    /**
+     * Gets the start offsets of the string literals of a kind in a file. Must be called inside a read action and not
+     * in dumb mode.
+     *
+     * @param project     The project the file belongs to
+     * @param virtualFile The PHP file
+     * @param kind        The kind of string literals wanted
+     * @return The ascending start offsets of the string literals, empty if the file has none
+     */
+    public static int[] getStringLiteralOffsets(Project project, VirtualFile virtualFile, Kind kind) {
+        List<int[]> values = FileBasedIndex.getInstance().getValues(NAME, kind.name(), GlobalSearchScope.fileScope(project, virtualFile));
+        return values.isEmpty() ? new int[0] : values.get(0);
+    }
+
+    /**
+     * Tells whether a file has any string literal of the given kinds. Must be called inside a read action and not in
+     * dumb mode.
+     *
+     * @param project     The project the file belongs to
+     * @param virtualFile The PHP file
+     * @param kinds       The kinds of string literals wanted
+     * @return <code>true</code> if the file has a string literal of any of the kinds
+     */
+    public static boolean hasStringLiterals(Project project, VirtualFile virtualFile, Kind... kinds) {
+        for (Kind kind : kinds) {
+            if (getStringLiteralOffsets(project, virtualFile, kind).length > 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Counts the string literals of a kind in a scope. Must be called inside a read action and not in dumb mode.
+     *
+     * @param kind  The kind of string literals wanted
+     * @param scope The scope to count the string literals in
+     * @return The number of string literals and the number of files containing them
+     */
+    public static Statistics computeStatistics(Kind kind, GlobalSearchScope scope) {
+        final int[] literalCount = {0};
+        final Set<VirtualFile> files = new HashSet<VirtualFile>();
+        FileBasedIndex.getInstance().processValues(NAME, kind.name(), null, new FileBasedIndex.ValueProcessor<int[]>() {
+            @Override
+            public boolean process(VirtualFile file, int[] offsets) {
+                literalCount[0] += offsets.length;
+                files.add(file);
+                return true;
+            }
+        }, scope);
+        return new Statistics(literalCount[0], files.size());
+    }
+
+}
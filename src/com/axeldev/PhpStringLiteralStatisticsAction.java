@@ -0,0 +1,61 @@
+package com.axeldev;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.Computable;
+import com.intellij.psi.search.GlobalSearchScope;
+
+/**
+ * Shows how many string literals of each kind the project has. The numbers are read from {@link PhpStringLiteralIndex}
+ * instead of parsing the files, so they're available at once even for big projects.
+ */
+public class PhpStringLiteralStatisticsAction extends AnAction {
+
+    public static final String DIALOG_TITLE               = "PHP String Literal Statistics";
+    public static final String DUMB_MODE_MESSAGE          = "PHP string literal statistics are not available until indexing is finished";
+    public static final String SIMPLE_DOUBLE_QUOTED       = "Double quoted strings without embedded variables";
+    public static final String INTERPOLATED_DOUBLE_QUOTED = "Double quoted strings with embedded variables";
+    public static final String ESCAPED_SINGLE_QUOTED      = "Single quoted strings with escape sequences";
+
+    @Override
+    public void update(AnActionEvent e) {
+        e.getPresentation().setEnabled(e.getData(CommonDataKeys.PROJECT) != null);
+    }
+
+    @Override
+    public void actionPerformed(AnActionEvent e) {
+        final Project project = e.getData(CommonDataKeys.PROJECT);
+        if (project == null) return;
+        if (DumbService.isDumb(project)) {
+            DumbService.getInstance(project).showDumbModeNotification(DUMB_MODE_MESSAGE);
+            return;
+        }
+        String statisticsText = ApplicationManager.getApplication().runReadAction(new Computable<String>() {
+            @Override
+            public String compute() {
+                return buildStatisticsText(GlobalSearchScope.projectScope(project));
+            }
+        });
+        Messages.showInfoMessage(project, statisticsText, DIALOG_TITLE);
+    }
+
+    static String buildStatisticsText(GlobalSearchScope scope) {
+        StringBuilder statisticsText = new StringBuilder();
+        appendStatistics(statisticsText, SIMPLE_DOUBLE_QUOTED, PhpStringLiteralIndex.computeStatistics(PhpStringLiteralIndex.Kind.SIMPLE_DOUBLE_QUOTED, scope));
+        appendStatistics(statisticsText, INTERPOLATED_DOUBLE_QUOTED, PhpStringLiteralIndex.computeStatistics(PhpStringLiteralIndex.Kind.INTERPOLATED_DOUBLE_QUOTED, scope));
+        appendStatistics(statisticsText, ESCAPED_SINGLE_QUOTED, PhpStringLiteralIndex.computeStatistics(PhpStringLiteralIndex.Kind.ESCAPED_SINGLE_QUOTED, scope));
+        return statisticsText.toString();
+    }
+
+    private static void appendStatistics(StringBuilder statisticsText, String label, PhpStringLiteralIndex.Statistics statistics) {
+        if (statisticsText.length() > 0) statisticsText.append('\n');
+        statisticsText.append(label).append(": ").append(statistics.literalCount)
+            .append(" in ").append(statistics.fileCount).append(statistics.fileCount == 1 ? " file" : " files");
+    }
+
+}
@@ -1,53 +1,113 @@
 package com.axeldev;
 
-import com.google.common.base.Function;
 import com.intellij.lang.ASTNode;
-import com.intellij.openapi.project.Project;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.Condition;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiDocumentManager;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.jetbrains.php.lang.lexer.PhpTokenTypes;
-import com.jetbrains.php.lang.psi.PhpFile;
 import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
 import com.jetbrains.php.lang.psi.elements.ArrayAccessExpression;
+import com.jetbrains.php.lang.psi.elements.BinaryExpression;
+import com.jetbrains.php.lang.psi.elements.ClassConstantReference;
+import com.jetbrains.php.lang.psi.elements.ConstantReference;
+import com.jetbrains.php.lang.psi.elements.FieldReference;
+import com.jetbrains.php.lang.psi.elements.Function;
+import com.jetbrains.php.lang.psi.elements.FunctionReference;
+import com.jetbrains.php.lang.psi.elements.GroupStatement;
+import com.jetbrains.php.lang.psi.elements.ParenthesizedExpression;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import com.jetbrains.php.lang.psi.elements.PhpExpression;
+import com.jetbrains.php.lang.psi.elements.Statement;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.jetbrains.php.lang.psi.elements.Variable;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class PhpStringUtil {
-    public static final char   CHAR_VERTICAL_TAB         = (char) 11;
-    public static final char   CHAR_ESC                  = (char) 27;
-    public static final char   CHAR_NEWLINE              = '\n';
-    public static final char   CHAR_CARRIAGE_RETURN      = '\r';
-    public static final char   CHAR_TAB                  = '\t';
-    public static final char   CHAR_FORM_FEED            = '\f';
-    public static final char   CHAR_BACKSLASH            = '\\';
-    public static final char   CHAR_DOUBLE_QUOTE         = '"';
-    public static final char   CHAR_SINGLE_QUOTE         = '\'';
-    public static final char   CHAR_LEFT_SQUARE_BRACKET  = '[';
-    public static final char   CHAR_RIGHT_SQUARE_BRACKET = ']';
-    public static final char   CHAR_DOLLAR               = '$';
-    public static final char   CHAR_DOT                  = '.';
-    public static final char   CHAR_LCASE_E              = 'e';
-    public static final char   CHAR_LCASE_F              = 'f';
-    public static final char   CHAR_LCASE_N              = 'n';
-    public static final char   CHAR_LCASE_R              = 'r';
-    public static final char   CHAR_LCASE_T              = 't';
-    public static final char   CHAR_LCASE_V              = 'v';
-    public static final char   CHAR_LCASE_X              = 'x';
-    public static final String REGEXP_CHAR_IS_OCTAL      = "[0-7]";
-    public static final String REGEXP_CHAR_IS_HEX        = "[0-9A-Fa-f]";
-    public static final String REGEX_PHP_OCTAL_INTEGER   = "\\A0[0-9]+\\z";
+    /**
+     * The maximum number of ancestors walked up when looking for the string literal an element belongs to.
+     */
+    static final int MAX_STRING_EXPRESSION_LOOKUP_DEPTH = 16;
+
+    static final String PHP_HEREDOC_START = "<<<";
+
+    static final char SPRINTF_CONVERSION_CHAR    = '%';
+    static final char SPRINTF_STRING_CONVERSION  = 's';
+    static final char SPRINTF_INTEGER_CONVERSION = 'd';
+
+    private static final String INT_CAST    = "(int) ";
+    private static final String STRING_CAST = "(string) ";
+
+    // the length of " . ", as written between the operands of a concatenation
+    private static final int CONCATENATION_OPERATOR_LENGTH = 3;
+
+    /**
+     * The length of the chunks string contents are converted in, between checks for cancellation, since a huge literal
+     * may be converted under a cancelable progress.
+     */
+    static final int CONVERSION_CHUNK_LENGTH = 64 * 1024;
+
+    /**
+     * The ways of writing a PHP string literal.
+     */
+    enum Quoting {
+        SINGLE_QUOTED,
+        DOUBLE_QUOTED,
+        /** The concatenation of single quoted strings and the variables embedded in a double quoted string. */
+        CONCATENATION
+    }
+
+    static final Key<CachedValue<CachedStringLiteral>> CACHED_STRING_LITERAL_KEY = Key.create("com.axeldev.php1Up.cachedStringLiteral");
+
+    /**
+     * What's known about a PHP string literal until its file changes: its kind and, once it's first asked for, the
+     * source code of the string with its quotes replaced. Availability checks, which are repeated on every caret move,
+     * and the replacement, which follows them, share it, so the string is classified and converted only once.
+     */
+    static class CachedStringLiteral {
+        final PhpStringLiteralIndex.Kind kind;
+        private final PsiElement         stringLiteralExpression;
+        // computed lazily, since most strings are only checked for availability; racing threads compute the same text
+        private volatile String          replacementText;
+
+        CachedStringLiteral(PsiElement stringLiteralExpression, PhpStringLiteralIndex.Kind kind) {
+            this.stringLiteralExpression = stringLiteralExpression;
+            this.kind = kind;
+        }
+
+        String getReplacementText() {
+            String text = replacementText;
+            if (text == null) replacementText = text = convertPhpStringLiteralText(stringLiteralExpression);
+            return text;
+        }
+    }
 
     static boolean isPhpDoubleQuotedEmptyString(PsiElement psiElement) {
-        return psiElement.getText().equals("\"\"");
+        ASTNode astNode = psiElement.getNode();
+        if (astNode == null || astNode.getTextLength() != 2) return false;
+        CharSequence phpStringLiteral = getPhpStringLiteralChars(psiElement);
+        return phpStringLiteral.charAt(0) == PhpStringCodec.CHAR_DOUBLE_QUOTE &&
+            phpStringLiteral.charAt(1) == PhpStringCodec.CHAR_DOUBLE_QUOTE;
     }
 
     static boolean isPhpDoubleQuotedComplexString(PsiElement psiElement) {
         ASTNode astNode = psiElement.getNode();
         if (astNode == null) return false;
-        ASTNode[] children = astNode.getChildren(null);
-        return children != null && children.length > 1;
+        ASTNode firstChildNode = astNode.getFirstChildNode();
+        return firstChildNode != null && firstChildNode.getTreeNext() != null;
     }
 
     static boolean isPhpSingleQuotedString(PsiElement psiElement) {
@@ -55,257 +115,1212 @@ public class PhpStringUtil {
         return astNode != null && astNode.getElementType() == PhpTokenTypes.STRING_LITERAL_SINGLE_QUOTE;
     }
 
-    static PsiElement getPhpDoubleQuotedStringExpression(PsiElement psiElement) {
-        if (psiElement instanceof PhpFile) return null;
-        if (psiElement instanceof StringLiteralExpression) {
-            PsiElement firstChild = psiElement.getFirstChild();
-            if (firstChild != null) {
-                ASTNode childAstNode = firstChild.getNode();
-                IElementType childElementType = childAstNode.getElementType();
-                if (childElementType == PhpTokenTypes.STRING_LITERAL || childElementType == PhpTokenTypes.chLDOUBLE_QUOTE) {
-                    return psiElement;
-                }
-            }
+    private static final Condition<PsiElement> IS_PHP_DOUBLE_QUOTED_STRING = new Condition<PsiElement>() {
+        @Override
+        public boolean value(PsiElement psiElement) {
+            return isPhpDoubleQuotedString(psiElement);
         }
-        PsiElement parentPsi = psiElement.getParent();
-        return parentPsi != null ? getPhpDoubleQuotedStringExpression(parentPsi) : null;
+    };
+
+    private static final Condition<PsiElement> IS_PHP_HEREDOC_OR_NOWDOC = new Condition<PsiElement>() {
+        @Override
+        public boolean value(PsiElement psiElement) {
+            return isPhpHeredocOrNowdoc(psiElement);
+        }
+    };
+
+    static boolean isPhpDoubleQuotedString(PsiElement psiElement) {
+        if (!(psiElement instanceof StringLiteralExpression)) return false;
+        PsiElement firstChild = psiElement.getFirstChild();
+        if (firstChild == null) return false;
+        ASTNode childAstNode = firstChild.getNode();
+        IElementType childElementType = childAstNode.getElementType();
+        return childElementType == PhpTokenTypes.STRING_LITERAL || childElementType == PhpTokenTypes.chLDOUBLE_QUOTE;
     }
 
-    static String getPhpDoubleQuotedStringUnescapedContent(PsiElement psiElement) {
-        String phpStringLiteral = psiElement.getText();
-        String escapedContent = phpStringLiteral.substring(1, phpStringLiteral.length() - 1);
-        return unescapePhpDoubleQuotedStringContent(escapedContent);
+    /**
+     * Tells whether a PHP single quoted string has any escape sequence, this is, any backslash in its content.
+     *
+     * @param psiElement The PSI element to check
+     * @return <code>true</code> if it's a PHP single quoted string token with an escaped quote or backslash
+     */
+    static boolean isPhpSingleQuotedEscapedString(PsiElement psiElement) {
+        if (psiElement == null || !isPhpSingleQuotedString(psiElement)) return false;
+        CharSequence phpStringLiteral = getPhpStringLiteralChars(psiElement);
+        for (int i = 1; i < phpStringLiteral.length() - 1; i++) {
+            if (phpStringLiteral.charAt(i) == PhpStringCodec.CHAR_BACKSLASH) return true;
+        }
+        return false;
     }
 
-    static String getPhpSingleQuotedStringUnescapedContent(PsiElement psiElement) {
-        String phpStringLiteralText = psiElement.getText();
-        String escapedContent = phpStringLiteralText.substring(1, phpStringLiteralText.length() - 1);
-        return unescapePhpSingleQuotedStringContent(escapedContent);
+    /**
+     * Classifies a PHP string literal expression.
+     *
+     * @param stringLiteralExpression The PHP string literal expression to classify
+     * @return The kind of the string literal, or <code>null</code> if it's a single quoted string without escape
+     * sequences or not a string literal at all
+     */
+    static PhpStringLiteralIndex.Kind getPhpStringLiteralKind(PsiElement stringLiteralExpression) {
+        if (isPhpDoubleQuotedString(stringLiteralExpression)) {
+            return isPhpDoubleQuotedComplexString(stringLiteralExpression) ?
+                PhpStringLiteralIndex.Kind.INTERPOLATED_DOUBLE_QUOTED : PhpStringLiteralIndex.Kind.SIMPLE_DOUBLE_QUOTED;
+        }
+        if (isPhpSingleQuotedEscapedString(stringLiteralExpression.getFirstChild())) return PhpStringLiteralIndex.Kind.ESCAPED_SINGLE_QUOTED;
+        return null;
+    }
+
+    private static CachedStringLiteral getCachedStringLiteral(final PsiElement stringLiteralExpression) {
+        final PsiFile psiFile = stringLiteralExpression.getContainingFile();
+        if (psiFile == null) return new CachedStringLiteral(stringLiteralExpression, getPhpStringLiteralKind(stringLiteralExpression));
+        return CachedValuesManager.getManager(psiFile.getProject()).getCachedValue(stringLiteralExpression, CACHED_STRING_LITERAL_KEY,
+            new CachedValueProvider<CachedStringLiteral>() {
+                @Override
+                public Result<CachedStringLiteral> compute() {
+                    CachedStringLiteral cachedStringLiteral = new CachedStringLiteral(stringLiteralExpression, getPhpStringLiteralKind(stringLiteralExpression));
+                    // any change to the file invalidates it
+                    return Result.create(cachedStringLiteral, psiFile);
+                }
+            }, false);
     }
 
     /**
-     * Gets the child nodes of a PHP double quoted string psiElement and maps them to a List of String values. Allows to
-     * specify a callback function for processing string literal fragments, and other for embedded variables and
-     * expressions. Delimiter double quotes are omitted since their presence is constant.
+     * Classifies a PHP string literal expression once per modification of its file. The classification is cached in the
+     * element itself, so repeated availability checks of the intentions on the same string are constant time.
      *
-     * @param psiElement               The PHP double quoted string literal whose nodes are wanted to map
-     * @param stringFragmentMapper     A Function implementation which gets a String from the ASTNode of any string
-     *                                 literal fragment on the PHP string. Any node which lead to a null return value
-     *                                 will be omitted from the result.
-     * @param embeddedExpressionMapper A Function implementation which gets a String from the ASTNode of any variable or
-     *                                 expression embedded on the PHP string. Any node which lead to a null return value
-     *                                 will be omitted from the result.
-     * @return A List of String objects containing the results of sequentially applying the PHP string pieces to the
-     * provided Function implementations as determined by the node type.
+     * @param stringLiteralExpression The PHP string literal expression to classify
+     * @return The kind of the string literal, as returned by {@link #getPhpStringLiteralKind(PsiElement)}
      */
-    public static List<String> mapPhpDoubleQuotedComplexStringContent(PsiElement psiElement, Function<ASTNode, String> stringFragmentMapper, Function<ASTNode, String> embeddedExpressionMapper) {
-        ASTNode astNode = psiElement.getNode();
-        if (astNode == null) return null;
-        ASTNode[] children = astNode.getChildren(null);
-        // complex strings always have more than one child node
-        if (children.length <= 1) return null;
-        List<String> map = new ArrayList<String>();
-        for (ASTNode childNode : children) {
+    static PhpStringLiteralIndex.Kind getCachedPhpStringLiteralKind(PsiElement stringLiteralExpression) {
+        return getCachedStringLiteral(stringLiteralExpression).kind;
+    }
+
+    /**
+     * Gets the source code of a PHP string literal with its quotes replaced, converting it once per modification of its
+     * file. See {@link #convertPhpStringLiteralText(PsiElement)}.
+     *
+     * @param stringLiteralExpression The PHP string literal expression to convert
+     * @return The source code of the equivalent expression
+     */
+    static String getCachedPhpStringLiteralReplacementText(PsiElement stringLiteralExpression) {
+        return getCachedStringLiteral(stringLiteralExpression).getReplacementText();
+    }
+
+    /**
+     * Tells whether a PHP double quoted string without embedded variables can be replaced with a single quoted one
+     * without adding any escaping backslash. Only the source code of the string is scanned, so it's cheap enough to be
+     * checked on every highlighting pass.
+     *
+     * @param psiElement The PSI element to check
+     * @return <code>true</code> if it's a PHP double quoted string which reads the same with single quotes
+     */
+    static boolean isPhpDoubleQuotedStringSingleQuotable(PsiElement psiElement) {
+        if (!isPhpDoubleQuotedString(psiElement) || isPhpDoubleQuotedComplexString(psiElement)) return false;
+        CharSequence phpStringLiteral = getPhpStringLiteralChars(psiElement);
+        return PhpStringCodec.isPhpDoubleQuotedStringContentSingleQuotable(phpStringLiteral, 1, phpStringLiteral.length() - 1);
+    }
+
+    /**
+     * Tells whether every text piece of a PHP double quoted string, with or without embedded variables, reads the same
+     * in a single quoted string without adding any escaping backslash, as
+     * {@link #isPhpDoubleQuotedStringSingleQuotable(PsiElement)} does for strings without embedded variables. Strings
+     * with control characters or bytes written as escape sequences never are, as those would be written raw.
+     *
+     * @param psiElement The PSI element to check
+     * @return <code>true</code> if it's a PHP double quoted string whose text reads the same with single quotes
+     */
+    static boolean isPhpDoubleQuotedStringPiecesSingleQuotable(PsiElement psiElement) {
+        if (!isPhpDoubleQuotedComplexString(psiElement)) return isPhpDoubleQuotedStringSingleQuotable(psiElement);
+        if (!isPhpDoubleQuotedString(psiElement)) return false;
+        for (ASTNode childNode = psiElement.getNode().getFirstChildNode(); childNode != null; childNode = childNode.getTreeNext()) {
+            if (childNode.getElementType() != PhpTokenTypes.STRING_LITERAL) continue;
+            CharSequence escapedContent = childNode.getChars();
+            if (!PhpStringCodec.isPhpDoubleQuotedStringContentSingleQuotable(escapedContent, 0, escapedContent.length())) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tells whether a PHP single quoted string has escaped single quotes and can be replaced with a double quoted one
+     * without adding any escaping backslash. Only the source code of the string is scanned, so it's cheap enough to be
+     * checked on every highlighting pass.
+     *
+     * @param psiElement The PSI element to check
+     * @return <code>true</code> if it's a PHP single quoted string token which would be cleaner with double quotes
+     */
+    static boolean isPhpSingleQuotedStringDoubleQuotable(PsiElement psiElement) {
+        if (psiElement == null || !isPhpSingleQuotedString(psiElement)) return false;
+        CharSequence phpStringLiteral = getPhpStringLiteralChars(psiElement);
+        return PhpStringCodec.isPhpSingleQuotedStringContentDoubleQuotable(phpStringLiteral, 1, phpStringLiteral.length() - 1);
+    }
+
+    /**
+     * Finds a cheaper way of writing a PHP string literal than the current one, this is, a shorter one: a single or
+     * double quoted string needing fewer escaping backslashes for a simple one, or the concatenation of single quoted
+     * strings and the embedded variables for a string with embedded variables. Every escape is one character long, and
+     * a concatenation also adds the quotes of each text piece and a <tt>" . "</tt> between operands, so it's only
+     * cheaper when it saves more escapes than the characters it adds. The escapes are counted by scanning the source
+     * of each piece once, so no candidate is ever built. The current way is measured by the escapes it needs at least,
+     * so a string which is only over-escaped ties with the other ways rather than losing to them.
+     *
+     * @param stringLiteralExpression The PHP string literal expression to check
+     * @return The cheaper way of writing it, or <code>null</code> if it's already written the cheapest way, ties
+     * included, or it's not a single or double quoted string
+     */
+    static Quoting getPhpStringLiteralCheaperQuoting(PsiElement stringLiteralExpression) {
+        PsiElement firstChild = stringLiteralExpression.getFirstChild();
+        if (firstChild != null && isPhpSingleQuotedString(firstChild)) {
+            CharSequence phpStringLiteral = getPhpStringLiteralChars(firstChild);
+            int contentEnd = phpStringLiteral.length() - 1;
+            int doubleQuotedEscapeCount = PhpStringCodec.countPhpSingleQuotedStringContentDoubleQuotedEscapes(phpStringLiteral, 1, contentEnd);
+            return doubleQuotedEscapeCount < PhpStringCodec.countPhpSingleQuotedStringContentMinimalEscapes(phpStringLiteral, 1, contentEnd) ?
+                Quoting.DOUBLE_QUOTED : null;
+        }
+        if (!isPhpDoubleQuotedString(stringLiteralExpression)) return null;
+        if (!isPhpDoubleQuotedComplexString(stringLiteralExpression)) {
+            CharSequence phpStringLiteral = getPhpStringLiteralChars(stringLiteralExpression);
+            int contentEnd = phpStringLiteral.length() - 1;
+            int singleQuotedEscapeCount = PhpStringCodec.countPhpDoubleQuotedStringContentSingleQuotedEscapes(phpStringLiteral, 1, contentEnd);
+            if (singleQuotedEscapeCount < 0) return null;
+            return singleQuotedEscapeCount < PhpStringCodec.countPhpDoubleQuotedStringContentMinimalEscapes(phpStringLiteral, 1, contentEnd) ?
+                Quoting.SINGLE_QUOTED : null;
+        }
+        if (hasPhpDollarCurlyBraceExpression(stringLiteralExpression)) return null;
+        int doubleQuotedEscapeCount = 0;
+        int concatenationEscapeCount = 0;
+        int textPieceCount = 0;
+        int operandCount = 0;
+        for (ASTNode childNode = stringLiteralExpression.getNode().getFirstChildNode(); childNode != null; childNode = childNode.getTreeNext()) {
             IElementType pieceType = childNode.getElementType();
-            // skip delimiter quotes
             if (pieceType == PhpTokenTypes.chLDOUBLE_QUOTE || pieceType == PhpTokenTypes.chRDOUBLE_QUOTE) continue;
-            if (pieceType == PhpTokenTypes.STRING_LITERAL) {
-                // the ASTNode is a piece of textual content of the string
-                String stringFragmentResult = stringFragmentMapper.apply(childNode);
-                if (stringFragmentResult != null) {
-                    map.add(stringFragmentResult);
-                }
-            } else {
-                // the ASTNode is a variable or expression embedded in the string
-                String embeddedExpressionResult = embeddedExpressionMapper.apply(childNode);
-                if (embeddedExpressionResult != null) {
-                    map.add(embeddedExpressionResult);
-                }
-            }
+            operandCount++;
+            if (pieceType != PhpTokenTypes.STRING_LITERAL) continue;
+            CharSequence piece = childNode.getChars();
+            int pieceEscapeCount = PhpStringCodec.countPhpDoubleQuotedStringContentSingleQuotedEscapes(piece, 0, piece.length());
+            if (pieceEscapeCount < 0) return null;
+            concatenationEscapeCount += pieceEscapeCount;
+            doubleQuotedEscapeCount += PhpStringCodec.countPhpDoubleQuotedStringContentMinimalEscapes(piece, 0, piece.length());
+            textPieceCount++;
         }
-        return map;
+        // the quotes of each text piece and the operators between operands, minus the double quotes no longer needed
+        int concatenationAddedLength = 2 * textPieceCount + CONCATENATION_OPERATOR_LENGTH * (operandCount - 1) - 2;
+        return concatenationEscapeCount + concatenationAddedLength < doubleQuotedEscapeCount ? Quoting.CONCATENATION : null;
     }
 
-    static String unescapePhpDoubleQuotedStringContent(String escapedContent) {
+    /**
+     * Finds the PHP double quoted string an element belongs to, by walking up its ancestors. The lookup is bounded, so
+     * its cost doesn't depend on how deep the element is nested in the file: it gives up on reaching any element which
+     * can't be part of a string literal, like a statement or a function, or after walking up
+     * {@link #MAX_STRING_EXPRESSION_LOOKUP_DEPTH} ancestors, which is far deeper than any sensible expression embedded
+     * in a string.
+     *
+     * @param psiElement The PSI element to start the lookup from, which is checked too
+     * @return The innermost PHP double quoted string containing the element, or <code>null</code> if there's none
+     */
+    static PsiElement getPhpDoubleQuotedStringExpression(PsiElement psiElement) {
+        return findPhpStringExpression(psiElement, IS_PHP_DOUBLE_QUOTED_STRING);
+    }
 
-        CharEnumeration charEnumeration = new CharEnumeration(escapedContent.toCharArray());
-        StringBuilder unescapedContentBuffer = new StringBuilder();
+    /**
+     * Finds the PHP heredoc or nowdoc an element belongs to, by walking up its ancestors. The lookup is bounded the same
+     * way as {@link #getPhpDoubleQuotedStringExpression(PsiElement)}.
+     *
+     * @param psiElement The PSI element to start the lookup from, which is checked too
+     * @return The innermost PHP heredoc or nowdoc containing the element, or <code>null</code> if there's none
+     */
+    static PsiElement getPhpHeredocExpression(PsiElement psiElement) {
+        return findPhpStringExpression(psiElement, IS_PHP_HEREDOC_OR_NOWDOC);
+    }
 
-        // parse double string contents
-        // see http://php.net/manual/en/language.types.string.php#language.types.string.syntax.double
-        if (charEnumeration.hasMoreElements()) {
-            char currentChar = charEnumeration.nextElement();
-            // semaphore for exiting the loop when reached end of string
-            boolean endOfString = false;
-            // loop while parsing the string characters
-            do {
-                if (currentChar == CHAR_BACKSLASH && charEnumeration.hasMoreElements()) {
-                    // check if backslash is part of an escape sequence
-                    currentChar = charEnumeration.nextElement();
-                    if (Character.toString(currentChar).matches(REGEXP_CHAR_IS_OCTAL)) {
-                        // from one to three digits will make up an octal escape sequence
-                        String octalCode = String.valueOf(currentChar);
-                        if (charEnumeration.hasMoreElements()) {
-                            currentChar = charEnumeration.nextElement();
-                            if (Character.toString(currentChar).matches(REGEXP_CHAR_IS_OCTAL)) {
-                                octalCode += String.valueOf(currentChar);
-                                if (charEnumeration.hasMoreElements()) {
-                                    currentChar = charEnumeration.nextElement();
-                                    if (Character.toString(currentChar).matches(REGEXP_CHAR_IS_OCTAL)) {
-                                        octalCode += String.valueOf(currentChar);
-                                    }
-                                }
-                            }
-                        }
-                        unescapedContentBuffer.append((char) Integer.parseInt(octalCode, 8));
-                        // if last read character wasn't part of the octal escape sequence, loop and re process it
-                        if (!Character.toString(currentChar).matches(REGEXP_CHAR_IS_OCTAL)) continue;
-                    } else {
-                        switch (currentChar) {
-                            case CHAR_LCASE_X:
-                                // check if backslash-x is part of an hex escape sequence
-                                boolean moreElements = charEnumeration.hasMoreElements();
-                                if (moreElements) {
-                                    currentChar = charEnumeration.nextElement();
-                                }
-                                if (moreElements && Character.toString(currentChar).matches(REGEXP_CHAR_IS_HEX)) {
-                                    // one or two hex characters will make up an hex escape sequence
-                                    String hexCode = String.valueOf(currentChar);
-                                    if (charEnumeration.hasMoreElements()) {
-                                        currentChar = charEnumeration.nextElement();
-                                        if (Character.toString(currentChar).matches(REGEXP_CHAR_IS_HEX)) {
-                                            hexCode += String.valueOf(currentChar);
-                                        }
-                                    }
-                                    unescapedContentBuffer.append((char) Integer.parseInt(hexCode, 16));
-                                    /* if last read character wasn't part of the hex escape sequence, loop and re
-                                     * process it */
-                                    if (!Character.toString(currentChar).matches(REGEXP_CHAR_IS_HEX)) continue;
-                                } else {
-                                    /* since next character don't make up an hex sequence, output both the backslash
-                                     * and the x, then if next character do exist, loop and re process it */
-                                    unescapedContentBuffer.append(CHAR_BACKSLASH);
-                                    unescapedContentBuffer.append(CHAR_LCASE_X);
-                                    if (moreElements) continue;
-                                }
-                                break;
-                            case CHAR_LCASE_N:
-                                unescapedContentBuffer.append(CHAR_NEWLINE);
-                                break;
-                            case CHAR_LCASE_R:
-                                unescapedContentBuffer.append(CHAR_CARRIAGE_RETURN);
-                                break;
-                            case CHAR_LCASE_T:
-                                unescapedContentBuffer.append(CHAR_TAB);
-                                break;
-                            case CHAR_LCASE_V:
-                                unescapedContentBuffer.append(CHAR_VERTICAL_TAB);
-                                break;
-                            case CHAR_LCASE_E:
-                                unescapedContentBuffer.append(CHAR_ESC);
-                                break;
-                            case CHAR_LCASE_F:
-                                unescapedContentBuffer.append(CHAR_FORM_FEED);
-                                break;
-                            case CHAR_BACKSLASH:
-                            case CHAR_DOUBLE_QUOTE:
-                            case CHAR_DOLLAR:
-                                unescapedContentBuffer.append(currentChar);
-                                break;
-                            default:
-                                // potential escape sequence wasn't so, so output both the backslash and the character
-                                unescapedContentBuffer.append(CHAR_BACKSLASH);
-                                unescapedContentBuffer.append(currentChar);
-                                break;
-                        }
-                    }
-                } else {
-                    unescapedContentBuffer.append(currentChar);
-                }
-                if (charEnumeration.hasMoreElements()) {
-                    currentChar = charEnumeration.nextElement();
-                } else {
-                    endOfString = true;
-                }
-            } while (!endOfString);
+    private static PsiElement findPhpStringExpression(PsiElement psiElement, Condition<PsiElement> isWantedString) {
+        PsiElement currentPsi = psiElement;
+        for (int depth = 0; currentPsi != null && depth <= MAX_STRING_EXPRESSION_LOOKUP_DEPTH; depth++) {
+            if (isWantedString.value(currentPsi)) return currentPsi;
+            if (isStringExpressionLookupBoundary(currentPsi)) return null;
+            currentPsi = currentPsi.getParent();
         }
-        return unescapedContentBuffer.toString();
+        return null;
+    }
+
+    private static boolean isStringExpressionLookupBoundary(PsiElement psiElement) {
+        return psiElement instanceof Statement || psiElement instanceof GroupStatement || psiElement instanceof Function ||
+            psiElement instanceof PhpClass || psiElement instanceof PsiFile;
+    }
+
+    /**
+     * Tells whether a range of a PHP file lies in the content of a single or double quoted string literal, so any text
+     * put there must be escaped for that kind of string. The range can't be next to a variable or expression embedded
+     * in the string, since it's not clear which one it belongs to, and the string must be closed.
+     *
+     * @param psiFile     The PHP file
+     * @param startOffset The offset of the range start in the file, inclusive
+     * @param endOffset   The offset of the range end in the file, exclusive
+     * @return The quoting of the string literal whose content holds the range, or <code>null</code> if there's none
+     */
+    static Quoting getPhpStringLiteralContentQuoting(PsiFile psiFile, int startOffset, int endOffset) {
+        PsiElement stringLiteralExpression = getPhpStringLiteralPieceParent(psiFile.findElementAt(startOffset));
+        if (stringLiteralExpression == null) return null;
+        Quoting quoting;
+        if (isPhpDoubleQuotedString(stringLiteralExpression)) {
+            quoting = Quoting.DOUBLE_QUOTED;
+        } else if (isPhpSingleQuotedString(stringLiteralExpression.getFirstChild())) {
+            quoting = Quoting.SINGLE_QUOTED;
+        } else {
+            return null;
+        }
+        ASTNode astNode = stringLiteralExpression.getNode();
+        if (!isPhpQuotedStringClosed(astNode) || !isPhpQuotedStringContentOffset(astNode, startOffset) ||
+            !isPhpQuotedStringContentOffset(astNode, endOffset)) return null;
+        return quoting;
     }
 
-    static String unescapePhpSingleQuotedStringContent(String escapedContent) {
-        return escapedContent
-            .replace("\\\\", Character.toString(CHAR_BACKSLASH))
-            .replace("\\'", Character.toString(CHAR_SINGLE_QUOTE));
+    private static PsiElement getPhpStringLiteralPieceParent(PsiElement psiElement) {
+        if (psiElement == null) return null;
+        PsiElement parent = psiElement.getParent();
+        return parent instanceof StringLiteralExpression ? parent : null;
     }
 
-    static String escapePhpSingleQuotedStringContent(String unescapedContent) {
-        return unescapedContent.replaceAll("('|\\\\(?=')|\\\\\\z)", "\\\\$1");
+    private static boolean isPhpQuotedStringClosed(ASTNode astNode) {
+        ASTNode firstChildNode = astNode.getFirstChildNode();
+        if (firstChildNode.getTreeNext() != null) return astNode.getLastChildNode().getElementType() == PhpTokenTypes.chRDOUBLE_QUOTE;
+        CharSequence phpStringLiteral = firstChildNode.getChars();
+        int length = phpStringLiteral.length();
+        return length > 1 && phpStringLiteral.charAt(length - 1) == phpStringLiteral.charAt(0);
     }
 
-    static String escapePhpDoubleQuotedStringContent(String unescapedContent) {
-        // all allowed escape sequences in a double quoted string must be escaped with a backslash
-        // see http://php.net/manual/en/language.types.string.php#language.types.string.syntax.double
-        String escapeSequencesEscaped = unescapedContent.replaceAll("(\\\\(?:n|r|t|v|e|f|\\\\|\\$|'|[0-7]{1,3}|x[0-9A-Fa-f]{1,2}|\\z))", "\\\\$1");
-        // a PHP variable identifier is defined by the regexp `[a-zA-Z_\x7f-\xff][a-zA-Z0-9_\x7f-\xff]*`
-        // see http://php.net/manual/en/language.variables.basics.php
-        String variablesEscaped = escapeSequencesEscaped
-            .replaceAll("(\\$[a-zA-Z_\\x7f-\\xff])", "\\\\$1")
-            .replaceAll("\\{\\$", "{\\\\\\$");
-        return variablesEscaped.replace(Character.toString(CHAR_DOUBLE_QUOTE), "\\\"");
+    private static boolean isPhpQuotedStringContentOffset(ASTNode astNode, int offset) {
+        int relativeOffset = offset - astNode.getStartOffset();
+        if (relativeOffset <= 0 || relativeOffset >= astNode.getTextLength()) return false;
+        // every offset between the quotes of a simple string is in its content
+        if (astNode.getFirstChildNode().getTreeNext() == null) return true;
+        /* the direct leaves of a complex string are its quotes and content pieces, while embedded variables and
+         * expressions are composite, so the offset is in the content if there's one of those leaves at each side */
+        ASTNode nextLeaf = astNode.findLeafElementAt(relativeOffset);
+        ASTNode previousLeaf = astNode.findLeafElementAt(relativeOffset - 1);
+        return nextLeaf != null && nextLeaf.getTreeParent() == astNode && previousLeaf != null && previousLeaf.getTreeParent() == astNode;
     }
 
-    static String cleanupStringEmbeddedExpression(ASTNode astNode) {
+    /**
+     * Gets the text of a PHP string literal without copying it. The text of a leaf is held as-is by its node, and so is
+     * the text of a simple string literal expression by its single token, so they're read right from them instead of
+     * having the expression node build its text.
+     *
+     * @param psiElement The PHP string literal expression or token
+     * @return The source code of the string literal, delimiter quotes included
+     */
+    static CharSequence getPhpStringLiteralChars(PsiElement psiElement) {
+        ASTNode astNode = psiElement.getNode();
+        ASTNode firstChildNode = astNode.getFirstChildNode();
+        if (firstChildNode != null && firstChildNode.getTreeNext() == null) return firstChildNode.getChars();
+        return astNode.getChars();
+    }
+
+    static void appendPhpDoubleQuotedStringUnescapedContent(PsiElement psiElement, StringBuilder unescapedContentBuffer) {
+        CharSequence phpStringLiteral = getPhpStringLiteralChars(psiElement);
+        long startTime = PhpQuotesMetrics.startTimer();
+        // unescape the content between the delimiter quotes in place
+        unescapePhpStringContent(phpStringLiteral, 1, phpStringLiteral.length() - 1, Quoting.DOUBLE_QUOTED, unescapedContentBuffer);
+        PhpQuotesMetrics.UNESCAPING.recordSince(phpStringLiteral.length() - 2, startTime);
+    }
+
+    static void appendPhpSingleQuotedStringUnescapedContent(PsiElement psiElement, StringBuilder unescapedContentBuffer) {
+        CharSequence phpStringLiteral = getPhpStringLiteralChars(psiElement);
+        long startTime = PhpQuotesMetrics.startTimer();
+        // unescape the content between the delimiter quotes in place
+        unescapePhpStringContent(phpStringLiteral, 1, phpStringLiteral.length() - 1, Quoting.SINGLE_QUOTED, unescapedContentBuffer);
+        PhpQuotesMetrics.UNESCAPING.recordSince(phpStringLiteral.length() - 2, startTime);
+    }
+
+    /**
+     * Appends the source code of a variable or expression embedded in a PHP double quoted string, as it must be written
+     * outside of the string, to the given buffer. The pieces of the expression are read in place from the nodes.
+     *
+     * @param astNode          The node of the embedded variable or expression
+     * @param expressionBuffer The buffer the expression source code is appended to
+     */
+    static void appendCleanStringEmbeddedExpression(ASTNode astNode, StringBuilder expressionBuffer) {
         ASTNode[] children = astNode.getChildren(null);
         if (children.length == 3 &&
             children[0].getElementType() == PhpTokenTypes.chLBRACE &&
             children[children.length - 1].getElementType() == PhpTokenTypes.chRBRACE) {
             // it's a variable or expression which was wrapped in curly braces in the string
-            String expression = astNode.getText();
-            // remove braces and return the expression as-is
-            return expression.substring(1, expression.length() - 1);
+            CharSequence expression = astNode.getChars();
+            // remove braces and append the expression as-is
+            expressionBuffer.append(expression, 1, expression.length() - 1);
         } else if (children[0].getPsi() instanceof ArrayAccessExpression) {
             /* It's an array access expression, and since it's the only child node it isn't wrapped in curly braces.
              * It has for sure an identifier part, a left square bracket, an index expression which may be using an
              * unquoted string identifier, and a right square bracket */
             ASTNode[] arrayAccessExpressionChildren = children[0].getChildren(null);
-            String arrayIdentifier = arrayAccessExpressionChildren[0].getText();
             ASTNode arrayAccessExpressionIndex = arrayAccessExpressionChildren[2];
             ASTNode[] arrayAccessExpressionIndexChildren = arrayAccessExpressionIndex.getChildren(null);
-            String arrayRawAccessIndex = arrayAccessExpressionIndex.getText();
-            String arrayAccessIndex;
+            CharSequence arrayRawAccessIndex = arrayAccessExpressionIndex.getChars();
             /* If array access expression is not surrounded with braces and the array index is an identifier,
              * then it's using the unquoted key syntax. Surround the index with quotes.
              * See http://php.net/manual/en/language.types.string.php#language.types.string.parsing */
              /* Explicitly test for the identifier being an octal sequence, which is interpreted as an identifier by the
               * PHP parser but as an integer offset by the PhpStorm parser.
               * See https://youtrack.jetbrains.com/issue/WI-25187 */
-            // TODO remove `|| arrayRawAccessIndex.matches("\\A0+[1-9]+[0-9]*\\z")` when WI-25187 gets fixed
-            if (arrayAccessExpressionIndexChildren.length == 1 && (
+            // TODO remove `|| PhpStringCodec.isPhpSimpleSyntaxArrayStringKey(...)` when WI-25187 gets fixed
+            boolean quoteAccessIndex = arrayAccessExpressionIndexChildren.length == 1 && (
                 arrayAccessExpressionIndexChildren[0].getElementType() == PhpTokenTypes.IDENTIFIER ||
-                    arrayRawAccessIndex.matches(REGEX_PHP_OCTAL_INTEGER)
-            )) {
-                arrayAccessIndex = CHAR_SINGLE_QUOTE + arrayRawAccessIndex + CHAR_SINGLE_QUOTE;
+                    PhpStringCodec.isPhpSimpleSyntaxArrayStringKey(arrayRawAccessIndex, 0, arrayRawAccessIndex.length())
+            );
+            expressionBuffer.append(arrayAccessExpressionChildren[0].getChars()).append(PhpStringCodec.CHAR_LEFT_SQUARE_BRACKET);
+            if (quoteAccessIndex) {
+                expressionBuffer.append(PhpStringCodec.CHAR_SINGLE_QUOTE).append(arrayRawAccessIndex).append(PhpStringCodec.CHAR_SINGLE_QUOTE);
             } else {
-                arrayAccessIndex = arrayRawAccessIndex;
+                expressionBuffer.append(arrayRawAccessIndex);
             }
-            return arrayIdentifier + CHAR_LEFT_SQUARE_BRACKET + arrayAccessIndex + CHAR_RIGHT_SQUARE_BRACKET;
+            expressionBuffer.append(PhpStringCodec.CHAR_RIGHT_SQUARE_BRACKET);
         } else {
             /* if expression is embedded without braces and it's not array access expression, then it's a simple
              * variable or an object property accessing */
-            return astNode.getText();
+            expressionBuffer.append(astNode.getChars());
+        }
+    }
+
+    /**
+     * Gets the source code of the PHP expression resulting of replacing the quotes of a PHP double quoted string
+     * keeping its semantics. A simple string leads to a single quoted string, and a complex one leads to the
+     * concatenation of single quoted strings and the embedded variables and expressions. All the pieces are streamed
+     * into a single buffer.
+     *
+     * @param stringLiteralExpression The PHP double quoted string literal to convert
+     * @return The source code of the equivalent single quoted string or concatenation expression
+     */
+    static String convertPhpDoubleQuotedStringToSingleQuotedText(PsiElement stringLiteralExpression) {
+        ASTNode astNode = stringLiteralExpression.getNode();
+        // the unescaped text of each string piece is kept in a reused buffer before being escaped again
+        StringBuilder unescapedContentBuffer = new StringBuilder(astNode.getTextLength());
+        if (!isPhpDoubleQuotedComplexString(stringLiteralExpression)) {
+            appendPhpDoubleQuotedStringUnescapedContent(stringLiteralExpression, unescapedContentBuffer);
+            return buildPhpSingleQuotedString(unescapedContentBuffer);
+        }
+        StringBuilder concatenationBuffer = new StringBuilder(astNode.getTextLength() + 16);
+        for (ASTNode childNode = astNode.getFirstChildNode(); childNode != null; childNode = childNode.getTreeNext()) {
+            // a huge literal may be converted under a cancelable progress
+            ProgressManager.checkCanceled();
+            IElementType pieceType = childNode.getElementType();
+            // skip delimiter quotes
+            if (pieceType == PhpTokenTypes.chLDOUBLE_QUOTE || pieceType == PhpTokenTypes.chRDOUBLE_QUOTE) continue;
+            if (concatenationBuffer.length() > 0) {
+                concatenationBuffer.append(' ').append(PhpStringCodec.CHAR_DOT).append(' ');
+            }
+            if (pieceType == PhpTokenTypes.STRING_LITERAL) {
+                // the ASTNode is a piece of textual content of the string
+                unescapedContentBuffer.setLength(0);
+                CharSequence escapedContent = childNode.getChars();
+                long startTime = PhpQuotesMetrics.startTimer();
+                unescapePhpStringContent(escapedContent, 0, escapedContent.length(), Quoting.DOUBLE_QUOTED, unescapedContentBuffer);
+                PhpQuotesMetrics.UNESCAPING.recordSince(escapedContent.length(), startTime);
+                concatenationBuffer.append(PhpStringCodec.CHAR_SINGLE_QUOTE);
+                startTime = PhpQuotesMetrics.startTimer();
+                escapePhpStringContent(unescapedContentBuffer, Quoting.SINGLE_QUOTED, concatenationBuffer);
+                PhpQuotesMetrics.ESCAPING.recordSince(unescapedContentBuffer.length(), startTime);
+                concatenationBuffer.append(PhpStringCodec.CHAR_SINGLE_QUOTE);
+            } else {
+                // the ASTNode is a variable or expression embedded in the string
+                appendCleanStringEmbeddedExpression(childNode, concatenationBuffer);
+            }
+        }
+        return concatenationBuffer.toString();
+    }
+
+    /**
+     * Gets the source code of the PHP expression resulting of replacing the quotes of a PHP string literal: the single
+     * quoted string or concatenation expression for a double quoted string, or the double quoted string for a single
+     * quoted one.
+     *
+     * @param stringLiteralExpression The PHP string literal expression to convert
+     * @return The source code of the equivalent expression
+     */
+    static String convertPhpStringLiteralText(PsiElement stringLiteralExpression) {
+        if (isPhpDoubleQuotedString(stringLiteralExpression)) return convertPhpDoubleQuotedStringToSingleQuotedText(stringLiteralExpression);
+        return convertPhpSingleQuotedStringToDoubleQuotedText(stringLiteralExpression.getFirstChild());
+    }
+
+    /**
+     * Gets the source code of the PHP double quoted string equivalent to a PHP single quoted string.
+     *
+     * @param psiElement The single quoted string token of the PHP string literal to convert
+     * @return The source code of the equivalent double quoted string
+     */
+    static String convertPhpSingleQuotedStringToDoubleQuotedText(PsiElement psiElement) {
+        StringBuilder unescapedContentBuffer = new StringBuilder(psiElement.getTextLength());
+        appendPhpSingleQuotedStringUnescapedContent(psiElement, unescapedContentBuffer);
+        return buildPhpDoubleQuotedString(unescapedContentBuffer);
+    }
+
+    static String buildPhpDoubleQuotedString(CharSequence unescapedContent) {
+        StringBuilder phpStringLiteralBuffer = new StringBuilder(PhpStringCodec.getEscapedContentBufferCapacity(unescapedContent));
+        phpStringLiteralBuffer.append(PhpStringCodec.CHAR_DOUBLE_QUOTE);
+        long startTime = PhpQuotesMetrics.startTimer();
+        escapePhpStringContent(unescapedContent, Quoting.DOUBLE_QUOTED, phpStringLiteralBuffer);
+        PhpQuotesMetrics.ESCAPING.recordSince(unescapedContent.length(), startTime);
+        return phpStringLiteralBuffer.append(PhpStringCodec.CHAR_DOUBLE_QUOTE).toString();
+    }
+
+    static String buildPhpSingleQuotedString(CharSequence unescapedContent) {
+        StringBuilder phpStringLiteralBuffer = new StringBuilder(PhpStringCodec.getEscapedContentBufferCapacity(unescapedContent));
+        phpStringLiteralBuffer.append(PhpStringCodec.CHAR_SINGLE_QUOTE);
+        long startTime = PhpQuotesMetrics.startTimer();
+        escapePhpStringContent(unescapedContent, Quoting.SINGLE_QUOTED, phpStringLiteralBuffer);
+        PhpQuotesMetrics.ESCAPING.recordSince(unescapedContent.length(), startTime);
+        return phpStringLiteralBuffer.append(PhpStringCodec.CHAR_SINGLE_QUOTE).toString();
+    }
+
+    /**
+     * Unescapes the content of a PHP string in chunks, checking for cancellation between them.
+     *
+     * @param escapedContent         The text holding the content of a PHP string
+     * @param startOffset            The offset of the content start in the text, inclusive
+     * @param endOffset              The offset of the content end in the text, exclusive
+     * @param quoting                The quoting of the string, either single or double quoted
+     * @param unescapedContentBuffer The buffer the unescaped content is appended to
+     */
+    static void unescapePhpStringContent(CharSequence escapedContent, int startOffset, int endOffset, Quoting quoting, StringBuilder unescapedContentBuffer) {
+        for (int chunkStart = startOffset; chunkStart < endOffset; ) {
+            int chunkEnd = endOffset - chunkStart > CONVERSION_CHUNK_LENGTH ?
+                PhpStringCodec.getPhpEscapedStringContentSplitOffset(escapedContent, chunkStart + CONVERSION_CHUNK_LENGTH, endOffset) : endOffset;
+            if (quoting == Quoting.DOUBLE_QUOTED) {
+                PhpStringCodec.unescapePhpDoubleQuotedStringContent(escapedContent, chunkStart, chunkEnd, unescapedContentBuffer);
+            } else {
+                PhpStringCodec.unescapePhpSingleQuotedStringContent(escapedContent, chunkStart, chunkEnd, unescapedContentBuffer);
+            }
+            chunkStart = chunkEnd;
+            ProgressManager.checkCanceled();
+        }
+    }
+
+    /**
+     * Escapes a text as the content of a PHP string in chunks, checking for cancellation between them.
+     *
+     * @param unescapedContent     The text to escape
+     * @param quoting              The quoting of the string, either single or double quoted
+     * @param escapedContentBuffer The buffer the escaped content is appended to
+     */
+    static void escapePhpStringContent(CharSequence unescapedContent, Quoting quoting, StringBuilder escapedContentBuffer) {
+        int length = unescapedContent.length();
+        for (int chunkStart = 0; chunkStart < length; ) {
+            int chunkEnd = length - chunkStart > CONVERSION_CHUNK_LENGTH ?
+                PhpStringCodec.getPhpStringContentSplitOffset(unescapedContent, chunkStart + CONVERSION_CHUNK_LENGTH, length) : length;
+            if (quoting == Quoting.DOUBLE_QUOTED) {
+                PhpStringCodec.escapePhpDoubleQuotedStringContent(unescapedContent, chunkStart, chunkEnd, escapedContentBuffer);
+            } else {
+                PhpStringCodec.escapePhpSingleQuotedStringContent(unescapedContent, chunkStart, chunkEnd, escapedContentBuffer);
+            }
+            chunkStart = chunkEnd;
+            ProgressManager.checkCanceled();
+        }
+    }
+
+    /**
+     * Replaces a PHP double quoted string with the equivalent single quoted string or concatenation expression.
+     *
+     * @param stringLiteralExpression The PHP double quoted string literal to replace
+     */
+    static void replacePhpDoubleQuotedStringWithSingleQuoted(PsiElement stringLiteralExpression) {
+        String singleQuoteExpressionText = getCachedPhpStringLiteralReplacementText(stringLiteralExpression);
+        if (replacePhpExpressionText(stringLiteralExpression, singleQuoteExpressionText)) return;
+        // the document couldn't be edited directly, so fall back to replacing the PSI element
+        PsiElement singleQuoteExpression = PhpPsiElementFactory.createPhpPsiFromText(stringLiteralExpression.getProject(), PhpExpression.class, singleQuoteExpressionText);
+        if (singleQuoteExpression == null) return;
+        PhpQuotesMetrics.psiElementCreated();
+        stringLiteralExpression.replace(singleQuoteExpression);
+    }
+
+    /**
+     * Replaces a PHP single quoted string with the equivalent double quoted string.
+     *
+     * @param singleQuotedToken The single quoted string token of the PHP string literal to replace
+     */
+    static void replacePhpSingleQuotedStringWithDoubleQuoted(PsiElement singleQuotedToken) {
+        PsiElement parentPsi = singleQuotedToken.getParent();
+        if (!(parentPsi instanceof StringLiteralExpression)) return;
+        String phpDoubleQuotedStringLiteral = getCachedPhpStringLiteralReplacementText(parentPsi);
+        if (replacePhpExpressionText(parentPsi, phpDoubleQuotedStringLiteral)) return;
+        // the document couldn't be edited directly, so fall back to replacing the PSI element
+        StringLiteralExpression phpDoubleQuotedStringLiteralPsi = PhpPsiElementFactory.createPhpPsiFromText(parentPsi.getProject(), StringLiteralExpression.class, phpDoubleQuotedStringLiteral);
+        if (phpDoubleQuotedStringLiteralPsi == null) return;
+        PhpQuotesMetrics.psiElementCreated();
+        parentPsi.replace(phpDoubleQuotedStringLiteralPsi);
+    }
+
+    static boolean isPhpHeredocOrNowdoc(PsiElement psiElement) {
+        if (!(psiElement instanceof StringLiteralExpression)) return false;
+        PsiElement firstChild = psiElement.getFirstChild();
+        return firstChild != null && firstChild.getNode().getElementType() == PhpTokenTypes.HEREDOC_START;
+    }
+
+    static boolean isPhpNowdoc(PsiElement psiElement) {
+        if (!isPhpHeredocOrNowdoc(psiElement)) return false;
+        // the identifier of a nowdoc is single quoted
+        CharSequence openingChars = psiElement.getFirstChild().getNode().getChars();
+        for (int i = 0; i < openingChars.length(); i++) {
+            if (openingChars.charAt(i) == PhpStringCodec.CHAR_SINGLE_QUOTE) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the range of the content of a PHP heredoc or nowdoc, relative to the start of the literal: the text between
+     * the line break ending the opening line and the one before the closing identifier. Only the opening token and the
+     * few characters around the line breaks are read, so the literal text is never built.
+     *
+     * @param psiElement The PHP heredoc or nowdoc
+     * @return The content range, or <code>null</code> if it's not a heredoc or nowdoc or its closing identifier is
+     * indented, as allowed since PHP 7.3, which strips that indentation from every line of the content and isn't
+     * supported
+     */
+    static TextRange getPhpHeredocContentRange(PsiElement psiElement) {
+        if (!isPhpHeredocOrNowdoc(psiElement)) return null;
+        ASTNode astNode = psiElement.getNode();
+        CharSequence openingChars = astNode.getFirstChildNode().getChars();
+        // skip the <<< and the optional blanks and quote before the identifier
+        int identifierStart = PHP_HEREDOC_START.length();
+        while (identifierStart < openingChars.length() && !PhpStringCodec.isIdentifierStartChar(openingChars.charAt(identifierStart))) identifierStart++;
+        int identifierEnd = identifierStart;
+        while (identifierEnd < openingChars.length() && PhpStringCodec.isIdentifierChar(openingChars.charAt(identifierEnd))) identifierEnd++;
+        int identifierLength = identifierEnd - identifierStart;
+        int closingIdentifierStart = astNode.getTextLength() - identifierLength;
+        if (identifierLength == 0 || closingIdentifierStart <= identifierEnd) return null;
+        int contentStart = identifierEnd;
+        while (contentStart < closingIdentifierStart && getPhpStringLiteralCharAt(astNode, contentStart) != PhpStringCodec.CHAR_NEWLINE) contentStart++;
+        // the content starts after the line break
+        contentStart++;
+        if (contentStart > closingIdentifierStart) return null;
+        if (getPhpStringLiteralCharAt(astNode, closingIdentifierStart - 1) != PhpStringCodec.CHAR_NEWLINE) return null;
+        for (int i = 0; i < identifierLength; i++) {
+            if (getPhpStringLiteralCharAt(astNode, closingIdentifierStart + i) != openingChars.charAt(identifierStart + i)) return null;
+        }
+        int contentEnd = closingIdentifierStart - 1;
+        if (contentEnd > contentStart && getPhpStringLiteralCharAt(astNode, contentEnd - 1) == PhpStringCodec.CHAR_CARRIAGE_RETURN) contentEnd--;
+        // an empty heredoc has a single line break between the opening and closing lines
+        return new TextRange(contentStart, Math.max(contentStart, contentEnd));
+    }
+
+    private static char getPhpStringLiteralCharAt(ASTNode astNode, int offset) {
+        ASTNode leafNode = astNode.findLeafElementAt(offset);
+        return leafNode.getChars().charAt(offset - (leafNode.getStartOffset() - astNode.getStartOffset()));
+    }
+
+    /**
+     * Gets the source code of the PHP quoted string equivalent to a PHP heredoc or nowdoc, completely keeping semantics:
+     * a double quoted string for a heredoc, embedding the same variables and expressions, or a single quoted string for
+     * a nowdoc. The literal is streamed token by token into a single buffer, copying the heredoc content in runs and
+     * escaping the nowdoc content on the fly, so no copy of the whole literal nor of its unescaped content is made.
+     *
+     * @param stringLiteralExpression The PHP heredoc or nowdoc to convert
+     * @return The source code of the equivalent quoted string, or <code>null</code> if it can't be converted
+     */
+    static String convertPhpHeredocToQuotedText(PsiElement stringLiteralExpression) {
+        TextRange contentRange = getPhpHeredocContentRange(stringLiteralExpression);
+        if (contentRange == null) return null;
+        boolean nowdoc = isPhpNowdoc(stringLiteralExpression);
+        char quote = nowdoc ? PhpStringCodec.CHAR_SINGLE_QUOTE : PhpStringCodec.CHAR_DOUBLE_QUOTE;
+        StringBuilder phpStringLiteralBuffer = new StringBuilder(contentRange.getLength() + (contentRange.getLength() >> 4) + 16);
+        phpStringLiteralBuffer.append(quote);
+        int childStartOffset = 0;
+        for (ASTNode childNode = stringLiteralExpression.getNode().getFirstChildNode(); childNode != null; childNode = childNode.getTreeNext()) {
+            CharSequence childChars = childNode.getChars();
+            int contentStart = Math.max(contentRange.getStartOffset() - childStartOffset, 0);
+            int contentEnd = Math.min(contentRange.getEndOffset() - childStartOffset, childChars.length());
+            childStartOffset += childChars.length();
+            if (contentStart >= contentEnd) continue;
+            if (childNode.getFirstChildNode() != null) {
+                // the ASTNode is a variable or expression embedded in the heredoc, written the same way in double quotes
+                phpStringLiteralBuffer.append(childChars);
+            } else if (nowdoc) {
+                PhpStringCodec.escapePhpSingleQuotedStringContent(childChars, contentStart, contentEnd, phpStringLiteralBuffer);
+            } else {
+                // the ASTNode is a token holding a piece of the content, and maybe the line breaks around it
+                PhpStringCodec.appendPhpHeredocContentAsDoubleQuoted(childChars, contentStart, contentEnd, phpStringLiteralBuffer);
+            }
+        }
+        // a literal backslash ending the heredoc content would escape the closing quote
+        if (!nowdoc && PhpStringCodec.countTrailingBackslashes(phpStringLiteralBuffer) % 2 != 0) {
+            phpStringLiteralBuffer.append(PhpStringCodec.CHAR_BACKSLASH);
         }
+        return phpStringLiteralBuffer.append(quote).toString();
     }
 
-    static StringLiteralExpression createPhpDoubleQuotedStringPsiFromContent(Project project, String unescapedContent) {
-        String escapedContent = escapePhpDoubleQuotedStringContent(unescapedContent);
-        String phpStringLiteral = CHAR_DOUBLE_QUOTE + escapedContent + CHAR_DOUBLE_QUOTE;
-        return PhpPsiElementFactory.createPhpPsiFromText(project, StringLiteralExpression.class, phpStringLiteral);
+    /**
+     * Gets the source code of the PHP heredoc equivalent to a PHP double quoted string, or of the nowdoc equivalent to a
+     * PHP single quoted string, completely keeping semantics. The string is streamed token by token into a single
+     * buffer the same way as {@link #convertPhpHeredocToQuotedText(PsiElement)}, and the identifier is chosen once the
+     * content is known so no line of it closes the heredoc.
+     *
+     * @param stringLiteralExpression The PHP double or single quoted string literal to convert
+     * @return The source code of the equivalent heredoc or nowdoc
+     */
+    static String convertPhpQuotedStringToHeredocText(PsiElement stringLiteralExpression) {
+        ASTNode astNode = stringLiteralExpression.getNode();
+        int contentEndOffset = astNode.getTextLength() - 1;
+        StringBuilder heredocBuffer = new StringBuilder(contentEndOffset + 32);
+        boolean nowdoc = isPhpSingleQuotedString(stringLiteralExpression.getFirstChild());
+        if (nowdoc) {
+            // nowdocs have no escape sequences at all
+            appendPhpSingleQuotedStringUnescapedContent(stringLiteralExpression.getFirstChild(), heredocBuffer);
+        } else {
+            int childStartOffset = 0;
+            for (ASTNode childNode = astNode.getFirstChildNode(); childNode != null; childNode = childNode.getTreeNext()) {
+                CharSequence childChars = childNode.getChars();
+                // skip the delimiter quotes, which may be held by the same token as the content
+                int contentStart = Math.max(1 - childStartOffset, 0);
+                int contentEnd = Math.min(contentEndOffset - childStartOffset, childChars.length());
+                childStartOffset += childChars.length();
+                if (contentStart >= contentEnd) continue;
+                if (childNode.getFirstChildNode() != null) {
+                    // the ASTNode is a variable or expression embedded in the string, written the same way in a heredoc
+                    heredocBuffer.append(childChars);
+                } else {
+                    PhpStringCodec.appendPhpDoubleQuotedContentAsHeredoc(childChars, contentStart, contentEnd, heredocBuffer);
+                }
+            }
+        }
+        String identifier = PhpStringCodec.getPhpHeredocIdentifier(heredocBuffer, 0, heredocBuffer.length());
+        String openingLine = nowdoc ?
+            PHP_HEREDOC_START + PhpStringCodec.CHAR_SINGLE_QUOTE + identifier + PhpStringCodec.CHAR_SINGLE_QUOTE + PhpStringCodec.CHAR_NEWLINE :
+            PHP_HEREDOC_START + identifier + PhpStringCodec.CHAR_NEWLINE;
+        return heredocBuffer.insert(0, openingLine).append(PhpStringCodec.CHAR_NEWLINE).append(identifier).toString();
     }
 
-    static StringLiteralExpression createPhpSingleQuotedStringPsiFromContent(Project project, String unescapedContent) {
-        String escapedContent = escapePhpSingleQuotedStringContent(unescapedContent);
-        String phpStringLiteral = CHAR_SINGLE_QUOTE + escapedContent + CHAR_SINGLE_QUOTE;
-        return PhpPsiElementFactory.createPhpPsiFromText(project, StringLiteralExpression.class, phpStringLiteral);
+    /**
+     * Replaces a PHP heredoc or nowdoc with the equivalent quoted string.
+     *
+     * @param stringLiteralExpression The PHP heredoc or nowdoc to replace
+     */
+    static void replacePhpHeredocWithQuotedString(PsiElement stringLiteralExpression) {
+        replacePhpStringLiteral(stringLiteralExpression, convertPhpHeredocToQuotedText(stringLiteralExpression));
+    }
+
+    /**
+     * Replaces a PHP double or single quoted string with the equivalent heredoc or nowdoc.
+     *
+     * @param stringLiteralExpression The PHP double or single quoted string literal to replace
+     */
+    static void replacePhpQuotedStringWithHeredoc(PsiElement stringLiteralExpression) {
+        replacePhpStringLiteral(stringLiteralExpression, convertPhpQuotedStringToHeredocText(stringLiteralExpression));
+    }
+
+    private static void replacePhpStringLiteral(PsiElement stringLiteralExpression, String phpStringLiteral) {
+        if (phpStringLiteral == null) return;
+        if (replacePhpExpressionText(stringLiteralExpression, phpStringLiteral)) return;
+        // the document couldn't be edited directly, so fall back to replacing the PSI element
+        StringLiteralExpression phpStringLiteralPsi = PhpPsiElementFactory.createPhpPsiFromText(stringLiteralExpression.getProject(), StringLiteralExpression.class, phpStringLiteral);
+        if (phpStringLiteralPsi == null) return;
+        PhpQuotesMetrics.psiElementCreated();
+        stringLiteralExpression.replace(phpStringLiteralPsi);
+    }
+
+    static boolean isPhpConcatenation(PsiElement psiElement) {
+        if (!(psiElement instanceof BinaryExpression)) return false;
+        PsiElement operation = ((BinaryExpression) psiElement).getOperation();
+        return operation != null && operation.getNode().getElementType() == PhpTokenTypes.opCONCAT;
+    }
+
+    /**
+     * Finds the whole PHP concatenation chain an element belongs to. The lookup of the innermost concatenation is
+     * bounded the same way as {@link #getPhpDoubleQuotedStringExpression(PsiElement)}, and then the chain is followed
+     * up to its outermost concatenation.
+     *
+     * @param psiElement The PSI element to start the lookup from, which is checked too
+     * @return The outermost concatenation of the chain containing the element, or <code>null</code> if there's none
+     */
+    static PsiElement getPhpConcatenationExpression(PsiElement psiElement) {
+        PsiElement currentPsi = psiElement;
+        for (int depth = 0; !isPhpConcatenation(currentPsi); depth++) {
+            if (currentPsi == null || depth == MAX_STRING_EXPRESSION_LOOKUP_DEPTH || isStringExpressionLookupBoundary(currentPsi)) return null;
+            currentPsi = currentPsi.getParent();
+        }
+        while (isPhpConcatenation(currentPsi.getParent())) currentPsi = currentPsi.getParent();
+        return currentPsi;
+    }
+
+    /**
+     * Gets the operands of a PHP concatenation chain, in order, without descending into parenthesized expressions.
+     * Chains are nested to the left, so the left operands are walked iteratively and only the right operands which
+     * are concatenations themselves are walked recursively.
+     *
+     * @param concatenation The concatenation to get the operands of
+     * @return The operands, or <code>null</code> if any operand is missing, as in incomplete code, or if there's any
+     * comment between them, which would be lost when the chain is replaced
+     */
+    static List<PsiElement> getPhpConcatenationOperands(PsiElement concatenation) {
+        List<PsiElement> operands = new ArrayList<PsiElement>();
+        return collectPhpConcatenationOperands(concatenation, operands) ? operands : null;
+    }
+
+    private static boolean collectPhpConcatenationOperands(PsiElement concatenation, List<PsiElement> operands) {
+        List<PsiElement> rightOperands = new ArrayList<PsiElement>();
+        PsiElement currentPsi = concatenation;
+        while (isPhpConcatenation(currentPsi)) {
+            if (PsiTreeUtil.getChildOfType(currentPsi, PsiComment.class) != null) return false;
+            BinaryExpression binaryExpression = (BinaryExpression) currentPsi;
+            rightOperands.add(binaryExpression.getRightOperand());
+            currentPsi = binaryExpression.getLeftOperand();
+        }
+        if (currentPsi == null) return false;
+        operands.add(currentPsi);
+        for (int i = rightOperands.size() - 1; i >= 0; i--) {
+            PsiElement rightOperand = rightOperands.get(i);
+            if (rightOperand == null) return false;
+            if (isPhpConcatenation(rightOperand)) {
+                if (!collectPhpConcatenationOperands(rightOperand, operands)) return false;
+            } else {
+                operands.add(rightOperand);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tells whether an expression can be embedded in a PHP double quoted string, this is, whether it's a variable or
+     * an array or property access rooted at a variable, so it can be written with the complex syntax.
+     */
+    private static boolean isPhpEmbeddableVariableExpression(PsiElement psiElement) {
+        if (!(psiElement instanceof Variable || psiElement instanceof ArrayAccessExpression || psiElement instanceof FieldReference)) return false;
+        ASTNode firstLeafNode = PsiTreeUtil.getDeepestFirst(psiElement).getNode();
+        return firstLeafNode != null && firstLeafNode.getElementType() == PhpTokenTypes.VARIABLE;
+    }
+
+    private static boolean isPhpInterpolatableConcatenationOperand(PsiElement operand) {
+        if (isPhpEmbeddableVariableExpression(operand)) return true;
+        if (!(operand instanceof StringLiteralExpression)) return false;
+        if (isPhpSingleQuotedString(operand.getFirstChild())) return true;
+        return isPhpDoubleQuotedString(operand) && !hasPhpDollarCurlyBraceExpression(operand);
+    }
+
+    /**
+     * Tells whether a PHP double quoted string embeds any expression with the <tt>${expression}</tt> syntax, which
+     * isn't understood when cleaning up embedded expressions.
+     */
+    private static boolean hasPhpDollarCurlyBraceExpression(PsiElement stringLiteralExpression) {
+        for (ASTNode childNode = stringLiteralExpression.getNode().getFirstChildNode(); childNode != null; childNode = childNode.getTreeNext()) {
+            CharSequence childChars = childNode.getChars();
+            if (childChars.length() > 1 && childChars.charAt(0) == PhpStringCodec.CHAR_DOLLAR && childChars.charAt(1) == PhpStringCodec.CHAR_LEFT_CURLY_BRACE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells whether a PHP concatenation chain can be replaced with a single double quoted string, this is, whether all
+     * of its operands are single or double quoted strings, variables, or array or property accesses rooted at a
+     * variable. Only the operands are checked, nothing is converted.
+     *
+     * @param concatenation The outermost concatenation of the chain
+     * @return <code>true</code> if the chain can be replaced with an interpolated string
+     */
+    static boolean isPhpConcatenationInterpolatable(PsiElement concatenation) {
+        List<PsiElement> operands = getPhpConcatenationOperands(concatenation);
+        if (operands == null) return false;
+        for (PsiElement operand : operands) {
+            if (!isPhpInterpolatableConcatenationOperand(operand)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the source code of the PHP double quoted string equivalent to a PHP concatenation chain, completely keeping
+     * semantics. Adjacent string literals are unescaped into a single run of text which is escaped once, so escaping
+     * never depends on where a literal ended. Variables are embedded with the simple syntax, <tt>$foo</tt>, unless
+     * the text following them would be read as part of them, and array and property accesses are always embedded with
+     * the complex syntax, <tt>{$foo['bar']}</tt>. The variables and expressions embedded in double quoted operands are
+     * embedded again after being cleaned up as if they were concatenated.
+     *
+     * @param concatenation The outermost concatenation of the chain
+     * @return The source code of the double quoted string, or <code>null</code> if the chain can't be interpolated
+     */
+    static String convertPhpConcatenationToDoubleQuotedText(PsiElement concatenation) {
+        if (!isPhpConcatenationInterpolatable(concatenation)) return null;
+        List<PsiElement> operands = getPhpConcatenationOperands(concatenation);
+        StringBuilder stringBuffer = new StringBuilder(concatenation.getTextLength());
+        // the unescaped text of the adjacent string literals, pending to be escaped
+        StringBuilder unescapedContentBuffer = new StringBuilder();
+        StringBuilder expressionBuffer = new StringBuilder();
+        // start and end offsets of the variables embedded with the simple syntax
+        List<Integer> simpleSyntaxVariableOffsets = new ArrayList<Integer>();
+        stringBuffer.append(PhpStringCodec.CHAR_DOUBLE_QUOTE);
+        for (PsiElement operand : operands) {
+            if (isPhpEmbeddableVariableExpression(operand)) {
+                appendPhpEmbeddedExpression(operand.getNode().getChars(), stringBuffer, unescapedContentBuffer, simpleSyntaxVariableOffsets);
+            } else if (isPhpSingleQuotedString(operand.getFirstChild())) {
+                appendPhpSingleQuotedStringUnescapedContent(operand.getFirstChild(), unescapedContentBuffer);
+            } else if (!isPhpDoubleQuotedComplexString(operand)) {
+                appendPhpDoubleQuotedStringUnescapedContent(operand, unescapedContentBuffer);
+            } else {
+                for (ASTNode childNode = operand.getNode().getFirstChildNode(); childNode != null; childNode = childNode.getTreeNext()) {
+                    IElementType pieceType = childNode.getElementType();
+                    if (pieceType == PhpTokenTypes.chLDOUBLE_QUOTE || pieceType == PhpTokenTypes.chRDOUBLE_QUOTE) continue;
+                    if (pieceType == PhpTokenTypes.STRING_LITERAL) {
+                        PhpStringCodec.unescapePhpDoubleQuotedStringContent(childNode.getChars(), unescapedContentBuffer);
+                    } else {
+                        expressionBuffer.setLength(0);
+                        appendCleanStringEmbeddedExpression(childNode, expressionBuffer);
+                        appendPhpEmbeddedExpression(expressionBuffer, stringBuffer, unescapedContentBuffer, simpleSyntaxVariableOffsets);
+                    }
+                }
+            }
+        }
+        return finishPhpDoubleQuotedString(stringBuffer, unescapedContentBuffer, simpleSyntaxVariableOffsets);
+    }
+
+    private static String finishPhpDoubleQuotedString(StringBuilder stringBuffer, StringBuilder unescapedContentBuffer, List<Integer> simpleSyntaxVariableOffsets) {
+        flushPhpDoubleQuotedStringContent(stringBuffer, unescapedContentBuffer);
+        stringBuffer.append(PhpStringCodec.CHAR_DOUBLE_QUOTE);
+        // wrap in curly braces the variables followed by text which would be read as part of them, from the end backwards
+        for (int i = simpleSyntaxVariableOffsets.size() - 2; i >= 0; i -= 2) {
+            int variableStart = simpleSyntaxVariableOffsets.get(i);
+            int variableEnd = simpleSyntaxVariableOffsets.get(i + 1);
+            if (!isSimpleSyntaxVariableContinuation(stringBuffer, variableEnd)) continue;
+            stringBuffer.insert(variableEnd, PhpStringCodec.CHAR_RIGHT_CURLY_BRACE).insert(variableStart, PhpStringCodec.CHAR_LEFT_CURLY_BRACE);
+            escapePhpBackslashBefore(stringBuffer, variableStart, true);
+        }
+        return stringBuffer.toString();
+    }
+
+    private static void flushPhpDoubleQuotedStringContent(StringBuilder stringBuffer, StringBuilder unescapedContentBuffer) {
+        PhpStringCodec.escapePhpDoubleQuotedStringContent(unescapedContentBuffer, stringBuffer);
+        unescapedContentBuffer.setLength(0);
+    }
+
+    private static void appendPhpEmbeddedExpression(CharSequence expression, StringBuilder stringBuffer, StringBuilder unescapedContentBuffer, List<Integer> simpleSyntaxVariableOffsets) {
+        flushPhpDoubleQuotedStringContent(stringBuffer, unescapedContentBuffer);
+        // a trailing dollar sign is left unescaped as it ends the text, but it would start a variable before the expression
+        if (endsWithUnescapedDollarSign(stringBuffer)) stringBuffer.insert(stringBuffer.length() - 1, PhpStringCodec.CHAR_BACKSLASH);
+        int bufferLength = stringBuffer.length();
+        // a left curly brace followed by a dollar sign would start the complex syntax, so the braced form is used
+        boolean followsLeftCurlyBrace = stringBuffer.charAt(bufferLength - 1) == PhpStringCodec.CHAR_LEFT_CURLY_BRACE;
+        if (!followsLeftCurlyBrace && isPhpSimpleVariable(expression)) {
+            escapePhpBackslashBefore(stringBuffer, stringBuffer.length(), false);
+            simpleSyntaxVariableOffsets.add(stringBuffer.length());
+            stringBuffer.append(expression);
+            simpleSyntaxVariableOffsets.add(stringBuffer.length());
+        } else {
+            escapePhpBackslashBefore(stringBuffer, stringBuffer.length(), true);
+            stringBuffer.append(PhpStringCodec.CHAR_LEFT_CURLY_BRACE).append(expression).append(PhpStringCodec.CHAR_RIGHT_CURLY_BRACE);
+        }
+    }
+
+    /**
+     * Escapes the backslash of escaped double quoted text which would change meaning once an embedded expression is
+     * written at an offset: a lone trailing backslash, which would escape its dollar sign or curly brace, and before a
+     * curly brace, that of a trailing <tt>&#92;u</tt>, which would start a unicode escape sequence PHP rejects.
+     *
+     * @param escapedContentBuffer The buffer holding the escaped text
+     * @param offset               The offset the expression is written at
+     * @param beforeLeftCurlyBrace Whether the expression starts with a left curly brace
+     */
+    private static void escapePhpBackslashBefore(StringBuilder escapedContentBuffer, int offset, boolean beforeLeftCurlyBrace) {
+        if (countBackslashesBefore(escapedContentBuffer, offset) % 2 != 0) {
+            escapedContentBuffer.insert(offset, PhpStringCodec.CHAR_BACKSLASH);
+        } else if (beforeLeftCurlyBrace && offset > 0 && escapedContentBuffer.charAt(offset - 1) == PhpStringCodec.CHAR_LCASE_U &&
+            countBackslashesBefore(escapedContentBuffer, offset - 1) % 2 != 0) {
+            escapedContentBuffer.insert(offset - 1, PhpStringCodec.CHAR_BACKSLASH);
+        }
+    }
+
+    /**
+     * Counts the consecutive backslashes right before an offset of a text.
+     */
+    static int countBackslashesBefore(CharSequence text, int offset) {
+        int index = offset;
+        while (index > 0 && text.charAt(index - 1) == PhpStringCodec.CHAR_BACKSLASH) index--;
+        return offset - index;
+    }
+
+    private static boolean endsWithUnescapedDollarSign(CharSequence phpStringLiteral) {
+        int dollarSignOffset = phpStringLiteral.length() - 1;
+        if (phpStringLiteral.charAt(dollarSignOffset) != PhpStringCodec.CHAR_DOLLAR) return false;
+        // an even number of backslashes before it are escaped backslashes themselves
+        int backslashCount = 0;
+        while (phpStringLiteral.charAt(dollarSignOffset - backslashCount - 1) == PhpStringCodec.CHAR_BACKSLASH) backslashCount++;
+        return backslashCount % 2 == 0;
+    }
+
+    private static boolean isPhpSimpleVariable(CharSequence expression) {
+        if (expression.length() < 2 || expression.charAt(0) != PhpStringCodec.CHAR_DOLLAR || !PhpStringCodec.isIdentifierStartChar(expression.charAt(1))) {
+            return false;
+        }
+        for (int i = 2; i < expression.length(); i++) {
+            if (!PhpStringCodec.isIdentifierChar(expression.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tells whether the text at an offset of a double quoted string would be read as part of a variable embedded with
+     * the simple syntax right before it: more identifier characters, an array index or a property access.
+     */
+    private static boolean isSimpleSyntaxVariableContinuation(CharSequence phpStringLiteral, int offset) {
+        char nextChar = phpStringLiteral.charAt(offset);
+        if (PhpStringCodec.isIdentifierChar(nextChar) || nextChar == PhpStringCodec.CHAR_LEFT_SQUARE_BRACKET) return true;
+        int arrowOffset = nextChar == '?' ? offset + 1 : offset;
+        return arrowOffset + 1 < phpStringLiteral.length() && phpStringLiteral.charAt(arrowOffset) == '-' && phpStringLiteral.charAt(arrowOffset + 1) == '>';
+    }
+
+    /**
+     * Replaces a PHP concatenation chain with the equivalent double quoted string.
+     *
+     * @param concatenation The outermost concatenation of the chain to replace
+     */
+    static void replacePhpConcatenationWithDoubleQuotedString(PsiElement concatenation) {
+        String phpDoubleQuotedStringLiteral = convertPhpConcatenationToDoubleQuotedText(concatenation);
+        if (phpDoubleQuotedStringLiteral == null) return;
+        if (replacePhpExpressionText(concatenation, phpDoubleQuotedStringLiteral)) return;
+        // the document couldn't be edited directly, so fall back to replacing the PSI element
+        StringLiteralExpression phpDoubleQuotedStringLiteralPsi = PhpPsiElementFactory.createPhpPsiFromText(concatenation.getProject(), StringLiteralExpression.class, phpDoubleQuotedStringLiteral);
+        if (phpDoubleQuotedStringLiteralPsi == null) return;
+        PhpQuotesMetrics.psiElementCreated();
+        concatenation.replace(phpDoubleQuotedStringLiteralPsi);
+    }
+
+    /**
+     * Gets the unescaped content of the constant format of a <tt>sprintf</tt> or <tt>printf</tt> call.
+     *
+     * @param formatLiteral The first argument of the call
+     * @return The format, or <code>null</code> if it isn't a single quoted string or a double quoted string without
+     * embedded variables, or if it's a double quoted string with a percent sign or a conversion written as an escape
+     * sequence
+     */
+    static String getPhpSprintfFormat(PsiElement formatLiteral) {
+        if (!(formatLiteral instanceof StringLiteralExpression)) return null;
+        StringBuilder unescapedContentBuffer = new StringBuilder(formatLiteral.getTextLength());
+        if (isPhpSingleQuotedString(formatLiteral.getFirstChild())) {
+            appendPhpSingleQuotedStringUnescapedContent(formatLiteral.getFirstChild(), unescapedContentBuffer);
+        } else if (isPhpDoubleQuotedString(formatLiteral) && !isPhpDoubleQuotedComplexString(formatLiteral)) {
+            appendPhpDoubleQuotedStringUnescapedContent(formatLiteral, unescapedContentBuffer);
+            // the text of a double quoted format is copied as written, so its conversions must be found there as well
+            CharSequence escapedFormat = getPhpDoubleQuotedSprintfEscapedFormat(formatLiteral);
+            String escapedConversions = getPhpSprintfConversions(escapedFormat);
+            if (escapedConversions == null || StringUtil.countChars(escapedFormat, SPRINTF_CONVERSION_CHAR) != StringUtil.countChars(unescapedContentBuffer, SPRINTF_CONVERSION_CHAR) ||
+                !escapedConversions.equals(getPhpSprintfConversions(unescapedContentBuffer))) {
+                return null;
+            }
+        } else {
+            return null;
+        }
+        return unescapedContentBuffer.toString();
+    }
+
+    private static CharSequence getPhpDoubleQuotedSprintfEscapedFormat(PsiElement formatLiteral) {
+        CharSequence phpStringLiteral = getPhpStringLiteralChars(formatLiteral);
+        return phpStringLiteral.subSequence(1, phpStringLiteral.length() - 1);
+    }
+
+    /**
+     * Gets the conversions of a <tt>sprintf</tt> format, in order, as long as they're all plain <tt>%s</tt> or
+     * <tt>%d</tt>, whose results are the same as concatenating the argument or the argument cast to int. A <tt>%%</tt>
+     * is a literal percent sign and takes no argument.
+     *
+     * @param format The unescaped format
+     * @return The conversion characters, <tt>s</tt> or <tt>d</tt>, one per argument, or <code>null</code> if there's
+     * any other conversion, or any flag, width, precision or argument number
+     */
+    static String getPhpSprintfConversions(CharSequence format) {
+        StringBuilder conversions = new StringBuilder();
+        for (int i = 0; i < format.length(); i++) {
+            if (format.charAt(i) != SPRINTF_CONVERSION_CHAR) continue;
+            if (++i == format.length()) return null;
+            char conversion = format.charAt(i);
+            if (conversion == SPRINTF_STRING_CONVERSION || conversion == SPRINTF_INTEGER_CONVERSION) {
+                conversions.append(conversion);
+            } else if (conversion != SPRINTF_CONVERSION_CHAR) {
+                return null;
+            }
+        }
+        return conversions.toString();
+    }
+
+    /**
+     * Tells whether a <tt>sprintf</tt> call is replaced with a double quoted string rather than a concatenation, this
+     * is, whether all of its arguments are formatted with <tt>%s</tt> and can be embedded in a double quoted string.
+     */
+    static boolean isPhpSprintfInterpolatable(CharSequence conversions, PsiElement[] arguments) {
+        for (int i = 0; i < arguments.length; i++) {
+            if (conversions.charAt(i) != SPRINTF_STRING_CONVERSION || !isPhpEmbeddableVariableExpression(arguments[i])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the source code of the PHP expression equivalent to a <tt>sprintf</tt> call with a constant format using
+     * only <tt>%s</tt>, <tt>%d</tt> and <tt>%%</tt>, completely keeping semantics. When every argument is formatted
+     * with <tt>%s</tt> and can be embedded, the result is a double quoted string embedding them; otherwise it's a
+     * concatenation of strings quoted as the format and the arguments, those formatted with <tt>%d</tt> cast to int.
+     * The literal text of a double quoted format is copied as written, so its escape sequences keep their meaning;
+     * that of a single quoted format is escaped once per run, as when converting concatenations.
+     *
+     * @param formatLiteral The format string literal expression
+     * @param arguments     The arguments following the format
+     * @return The source code of the equivalent expression, or <code>null</code> if the format isn't supported or the
+     * number of arguments doesn't match it
+     */
+    static String convertPhpSprintfToText(PsiElement formatLiteral, PsiElement[] arguments) {
+        String format = getPhpSprintfFormat(formatLiteral);
+        if (format == null) return null;
+        String conversions = getPhpSprintfConversions(format);
+        if (conversions == null || conversions.length() != arguments.length) return null;
+        if (!isPhpDoubleQuotedString(formatLiteral)) {
+            if (isPhpSprintfInterpolatable(conversions, arguments)) return buildPhpSprintfInterpolatedString(format, arguments, false);
+            return buildPhpSprintfConcatenation(format, arguments, false);
+        }
+        CharSequence escapedFormat = getPhpDoubleQuotedSprintfEscapedFormat(formatLiteral);
+        if (isPhpSprintfInterpolatable(conversions, arguments)) return buildPhpSprintfInterpolatedString(escapedFormat, arguments, true);
+        return buildPhpSprintfConcatenation(escapedFormat, arguments, true);
+    }
+
+    /**
+     * Builds the double quoted string embedding the arguments of a <tt>sprintf</tt> call.
+     *
+     * @param format    The format, unescaped, or escaped as the content of a double quoted string
+     * @param arguments The arguments following the format
+     * @param escaped   Whether the format is escaped, so its literal text is copied as written
+     */
+    private static String buildPhpSprintfInterpolatedString(CharSequence format, PsiElement[] arguments, boolean escaped) {
+        StringBuilder stringBuffer = new StringBuilder(format.length() + 16);
+        StringBuilder unescapedContentBuffer = new StringBuilder();
+        List<Integer> simpleSyntaxVariableOffsets = new ArrayList<Integer>();
+        stringBuffer.append(PhpStringCodec.CHAR_DOUBLE_QUOTE);
+        int argumentIndex = 0;
+        for (int i = 0; i < format.length(); i++) {
+            char formatChar = format.charAt(i);
+            // the format is known to hold only %s and %%, so the char after a percent sign tells which one it is
+            if (formatChar != SPRINTF_CONVERSION_CHAR || format.charAt(++i) == SPRINTF_CONVERSION_CHAR) {
+                (escaped ? stringBuffer : unescapedContentBuffer).append(formatChar);
+            } else {
+                // the text before the argument is flushed and its trailing backslash escaped the same way for both formats
+                appendPhpEmbeddedExpression(arguments[argumentIndex++].getNode().getChars(), stringBuffer, unescapedContentBuffer, simpleSyntaxVariableOffsets);
+            }
+        }
+        return finishPhpDoubleQuotedString(stringBuffer, unescapedContentBuffer, simpleSyntaxVariableOffsets);
+    }
+
+    /**
+     * Builds the concatenation of the literal text and the arguments of a <tt>sprintf</tt> call.
+     *
+     * @param format      The format, unescaped, or escaped as the content of a double quoted string
+     * @param arguments   The arguments following the format
+     * @param doubleQuoted Whether the format is escaped as a double quoted string, so its literal text is copied as
+     *                     written in double quoted strings rather than escaped in single quoted ones
+     */
+    private static String buildPhpSprintfConcatenation(CharSequence format, PsiElement[] arguments, boolean doubleQuoted) {
+        StringBuilder concatenationBuffer = new StringBuilder(format.length() + 16);
+        StringBuilder contentBuffer = new StringBuilder();
+        int argumentIndex = 0;
+        boolean hasLiteralOperand = false;
+        for (int i = 0; i < format.length(); i++) {
+            char formatChar = format.charAt(i);
+            if (formatChar != SPRINTF_CONVERSION_CHAR) {
+                contentBuffer.append(formatChar);
+                continue;
+            }
+            char conversion = format.charAt(++i);
+            if (conversion == SPRINTF_CONVERSION_CHAR) {
+                contentBuffer.append(SPRINTF_CONVERSION_CHAR);
+                continue;
+            }
+            hasLiteralOperand |= flushPhpConcatenationStringOperand(concatenationBuffer, contentBuffer, doubleQuoted);
+            if (concatenationBuffer.length() > 0) concatenationBuffer.append(' ').append(PhpStringCodec.CHAR_DOT).append(' ');
+            if (conversion == SPRINTF_INTEGER_CONVERSION) concatenationBuffer.append(INT_CAST);
+            appendPhpConcatenationOperand(arguments[argumentIndex++], concatenationBuffer);
+        }
+        hasLiteralOperand |= flushPhpConcatenationStringOperand(concatenationBuffer, contentBuffer, doubleQuoted);
+        // a lone argument isn't concatenated to anything, so it must be converted to string explicitly
+        if (!hasLiteralOperand && arguments.length == 1) concatenationBuffer.insert(0, STRING_CAST);
+        return concatenationBuffer.toString();
+    }
+
+    /**
+     * Appends the pending literal text as a string operand of a concatenation, quoted the same way as the format it
+     * comes from: the escaped text of a double quoted format as written, the unescaped text of a single quoted one
+     * escaped again.
+     *
+     * @return <code>true</code> if there was any pending text
+     */
+    private static boolean flushPhpConcatenationStringOperand(StringBuilder concatenationBuffer, StringBuilder contentBuffer, boolean doubleQuoted) {
+        if (contentBuffer.length() == 0) return false;
+        if (concatenationBuffer.length() > 0) concatenationBuffer.append(' ').append(PhpStringCodec.CHAR_DOT).append(' ');
+        if (doubleQuoted) {
+            concatenationBuffer.append(PhpStringCodec.CHAR_DOUBLE_QUOTE).append(contentBuffer);
+            // a lone backslash left by a format like "\%d" would escape the closing quote
+            escapePhpBackslashBefore(concatenationBuffer, concatenationBuffer.length(), false);
+            concatenationBuffer.append(PhpStringCodec.CHAR_DOUBLE_QUOTE);
+        } else {
+            concatenationBuffer.append(PhpStringCodec.CHAR_SINGLE_QUOTE);
+            PhpStringCodec.escapePhpSingleQuotedStringContent(contentBuffer, concatenationBuffer);
+            concatenationBuffer.append(PhpStringCodec.CHAR_SINGLE_QUOTE);
+        }
+        contentBuffer.setLength(0);
+        return true;
+    }
+
+    /**
+     * Appends an expression converted to string right away, casting it unless it's a string literal or a concatenation,
+     * which are strings already.
+     */
+    static void appendPhpStringExpression(PsiElement expression, StringBuilder expressionBuffer) {
+        if (expression instanceof StringLiteralExpression || isPhpConcatenation(expression)) {
+            expressionBuffer.append(expression.getNode().getChars());
+            return;
+        }
+        expressionBuffer.append(STRING_CAST);
+        appendPhpConcatenationOperand(expression, expressionBuffer);
+    }
+
+    /**
+     * Appends an expression as an operand of a concatenation or a cast, wrapping it in parentheses unless it's a
+     * variable, access, call, constant or string, which bind tighter than any operator.
+     */
+    private static void appendPhpConcatenationOperand(PsiElement expression, StringBuilder concatenationBuffer) {
+        boolean isPrimary = expression instanceof Variable || expression instanceof ArrayAccessExpression || expression instanceof FieldReference ||
+            expression instanceof FunctionReference || expression instanceof ConstantReference || expression instanceof ClassConstantReference ||
+            expression instanceof StringLiteralExpression || expression instanceof ParenthesizedExpression;
+        if (!isPrimary) concatenationBuffer.append('(');
+        concatenationBuffer.append(expression.getNode().getChars());
+        if (!isPrimary) concatenationBuffer.append(')');
+    }
+
+    /**
+     * Replaces a PHP expression by editing the text of its document, so the file is incrementally reparsed instead of
+     * having to parse the replacement text on a dummy file in order to replace the PSI element. The edit is reverted
+     * if the replacement text isn't parsed back as a single PHP expression.
+     *
+     * @param phpExpression   The PHP expression to replace
+     * @param replacementText The source code of the replacement expression
+     * @return <code>true</code> if the expression was replaced; <code>false</code> if it couldn't be done by editing the
+     * document, in which case the file is left unchanged.
+     */
+    static boolean replacePhpExpressionText(PsiElement phpExpression, String replacementText) {
+        return replacePhpElementText(phpExpression, replacementText, PhpExpression.class);
+    }
+
+    /**
+     * Replaces a PHP element by editing the text of its document, as {@link #replacePhpExpressionText(PsiElement, String)}
+     * does, checking the replacement text is parsed back as a single element of the given class.
+     */
+    static boolean replacePhpElementText(PsiElement phpElement, String replacementText, Class<? extends PsiElement> elementClass) {
+        PsiFile psiFile = phpElement.getContainingFile();
+        if (psiFile == null) return false;
+        PsiDocumentManager psiDocumentManager = PsiDocumentManager.getInstance(phpElement.getProject());
+        Document document = psiDocumentManager.getDocument(psiFile);
+        if (document == null) return false;
+        psiDocumentManager.doPostponedOperationsAndUnblockDocument(document);
+        TextRange textRange = phpElement.getTextRange();
+        String originalText = phpElement.getText();
+        int startOffset = textRange.getStartOffset();
+        int replacementEndOffset = startOffset + replacementText.length();
+        document.replaceString(startOffset, textRange.getEndOffset(), replacementText);
+        psiDocumentManager.commitDocument(document);
+        if (PsiTreeUtil.findElementOfClassAtRange(psiFile, startOffset, replacementEndOffset, elementClass) != null) {
+            return true;
+        }
+        // the replacement text doesn't round-trip as such an element in this context, so revert the edit
+        document.replaceString(startOffset, replacementEndOffset, originalText);
+        psiDocumentManager.commitDocument(document);
+        return false;
     }
 
 }
@@ -0,0 +1,20 @@
+<?php
+$out = '';
+foreach ($rows as $row) {
+    <weak_warning descr="String built by appending a concatenation in a loop">$out .= '<td>' . $row . '</td>'</weak_warning>;
+    $out .= $row;
+}
+for ($i = 0; $i < 10; $i++) {
+    <weak_warning descr="String built by appending a concatenation in a loop">$out .= "row $i" . PHP_EOL</weak_warning>;
+}
+while ($line = fgets($handle)) {
+    $count .= $line . $separator;
+}
+$out .= '<tr>' . $row . '</tr>';
+function render($rows) {
+    $html = '';
+    do {
+        <weak_warning descr="String built by appending a concatenation in a loop">$html .= '<li>' . array_shift($rows) . '</li>'</weak_warning>;
+    } while ($rows);
+    return $html;
+}
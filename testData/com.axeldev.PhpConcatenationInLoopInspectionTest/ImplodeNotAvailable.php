@@ -0,0 +1,5 @@
+<?php
+foreach ($rows as $row) {
+    $out .= '<td>' . $row<caret> . '</td>';
+    if (strlen($out) > 100) break;
+}
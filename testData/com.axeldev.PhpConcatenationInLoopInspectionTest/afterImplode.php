@@ -0,0 +1,15 @@
+<?php
+function render($rows) {
+    $html = '<table>';
+    $htmlParts2 = array();
+    foreach ($rows as $row) {
+        $htmlParts2[] = '<tr><td>' . $row . '</td></tr>';
+        $htmlParts2[] = (string) $row->footnote;
+        $htmlParts2[] = "\n";
+    }
+    if ($htmlParts2) {
+        $html .= implode('', $htmlParts2);
+    }
+    $htmlParts = null;
+    return $html . '</table>';
+}
@@ -0,0 +1,12 @@
+<?php
+function joinLines($lines) {
+    $textParts = array();
+    while ($line = array_shift($lines)) {
+        $textParts[] = '> ' . $line;
+        $textParts[] = (string) ($line ? "\n" : '');
+    }
+    if ($textParts) {
+        $text .= implode('', $textParts);
+    }
+    return isset($text) ? $text : null;
+}
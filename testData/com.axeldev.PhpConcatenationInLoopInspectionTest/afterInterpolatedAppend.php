@@ -0,0 +1,4 @@
+<?php
+foreach ($users as $user) {
+    $out .= "Dear {$user['name']}, it's \"done\"\n";
+}
@@ -0,0 +1,11 @@
+<?php
+function render($rows) {
+    $html = '<table>';
+    foreach ($rows as $row) {
+        $html .= '<tr><td>' . $row<caret> . '</td></tr>';
+        $html .= $row->footnote;
+        $html .= "\n";
+    }
+    $htmlParts = null;
+    return $html . '</table>';
+}
@@ -0,0 +1,8 @@
+<?php
+function joinLines($lines) {
+    while ($line = array_shift($lines)) {
+        $text .= '> ' . $line<caret>;
+        $text .= $line ? "\n" : '';
+    }
+    return isset($text) ? $text : null;
+}
@@ -0,0 +1,9 @@
+<?php
+$plain = <weak_warning descr="Double quoted string can be single quoted">"plain text"</weak_warning>;
+$escapedDollar = <weak_warning descr="Double quoted string can be single quoted">"costs \$5"</weak_warning>;
+$newline = "first line\n";
+$embedded = "hello $name";
+$apostrophe = "it's";
+$single = 'already single';
+$escapedQuotes = <weak_warning descr="Single quoted string with escaped quotes can be double quoted">'it\'s'</weak_warning>;
+$escapedQuotesAndDollar = 'it\'s $name';
@@ -0,0 +1,13 @@
+<?php
+$plain = "plain text";
+$escapedDollar = "costs \$5";
+$escapedQuotes = <weak_warning descr="Double quoted string needs fewer escapes single quoted">"say \"hi\""</weak_warning>;
+$newline = "first line\n";
+$apostrophe = "it's";
+$single = 'already single';
+$escapedQuotes = <weak_warning descr="Single quoted string needs fewer escapes double quoted">'it\'s'</weak_warning>;
+$escapedQuotesAndDollar = 'it\'s $name';
+$escapedBackslashes = 'C:\\dir\\';
+$embedded = "hello $name";
+$embeddedWithEscapedQuotes = "\"$name\" said";
+$embeddedWithManyEscapedQuotes = <weak_warning descr="Double quoted string needs fewer escapes as a concatenation">"\"this\", \"that\" or \"both\", said $name"</weak_warning>;
@@ -0,0 +1,6 @@
+<?php
+$plain = 'plain text';
+$escapedDollar = 'costs $5';
+$newline = "first line\n";
+$embedded = "hello $name, {$user['name']}";
+$escapedQuotes = "it's";
@@ -0,0 +1,6 @@
+<?php
+
+$foo = "Hello $name!";
+$bar = 'Total: ' . count($items);
+$baz = strtoupper("a$b") . 'c';
+echo "$foo {$bar->baz}";
@@ -0,0 +1,6 @@
+<?php
+
+$foo = 'foo';
+$bar = 'bar';
+$baz = "baz $foo";
+echo "\x41\n", '', "it's";
@@ -0,0 +1,5 @@
+<?php
+
+$foo = "foo $bar[baz] qux";
+$bar = "{$foo["key"]} and {$foo->bar("nested $baz")}";
+$baz = "plain";
@@ -0,0 +1,3 @@
+<?php
+
+$foo = "x{$bar}c{$baz}[0]{$qux}->quux";
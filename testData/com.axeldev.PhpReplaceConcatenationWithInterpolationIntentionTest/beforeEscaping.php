@@ -0,0 +1,3 @@
+<?php
+
+$foo = '$bar "baz" '<caret> . "\x41{" . $qux . '\\';
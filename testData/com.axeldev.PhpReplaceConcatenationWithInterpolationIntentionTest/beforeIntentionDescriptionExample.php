@@ -0,0 +1,3 @@
+<?php
+
+$foo = 'Hello ' . $name . ', you have ' . $messages['unread'] . ' unread messages in '<caret> . $folder->name;
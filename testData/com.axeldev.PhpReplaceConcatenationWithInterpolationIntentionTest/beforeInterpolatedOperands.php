@@ -0,0 +1,3 @@
+<?php
+
+$foo = "x $bar[key] y" . <caret>$baz . "{$qux->quux}";
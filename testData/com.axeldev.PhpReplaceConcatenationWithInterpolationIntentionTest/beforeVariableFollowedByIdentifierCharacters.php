@@ -0,0 +1,3 @@
+<?php
+
+$foo = 'x' . $bar . 'c' . $baz .<caret> '[0]' . $qux . '->quux';
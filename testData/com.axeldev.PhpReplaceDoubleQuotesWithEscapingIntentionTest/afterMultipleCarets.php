@@ -0,0 +1,6 @@
+<?php
+
+$foo = 'f<caret>oo';
+$bar = 'b<caret>ar';
+$baz = "$foo b<caret>az";
+$qux = "qux";
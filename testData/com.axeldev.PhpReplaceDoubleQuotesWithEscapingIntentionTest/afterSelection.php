@@ -0,0 +1,6 @@
+<?php
+
+$foo = 'foo ' . $bar;
+$baz = "baz";
+$qux = 'qux ' . $baz;
+$quux = "quux $bar";
@@ -0,0 +1,6 @@
+<?php
+
+$foo = <selection><caret>"foo $bar";
+$baz = "baz";
+$qux = "qux {$baz}";</selection>
+$quux = "quux $bar";
@@ -0,0 +1,3 @@
+<?php
+
+$foo = "Say \"hi\" to $name\n";
@@ -0,0 +1,4 @@
+<?php
+
+$foo = "and \\\"bye\\\" {$user->name}\\
+multi \"line\" \\";
@@ -0,0 +1,3 @@
+<?php
+
+$foo = 'It\'s $free \ ok';
@@ -0,0 +1,5 @@
+<?php
+
+$foo = <<<EOT
+Say "h<caret>i" to $name\n
+EOT;
@@ -0,0 +1,6 @@
+<?php
+
+$foo = <<<EOT
+and \"b<caret>ye\" {$user->name}\\
+multi "line" \
+EOT;
@@ -0,0 +1,5 @@
+<?php
+
+$foo = <<<EOT
+Dear {$user->name}, "$items[0]" costs \${$price}\\
+EOT;
@@ -0,0 +1,9 @@
+<?php
+
+$foo = <<<EOT2
+first
+EOT
+  EOT1;
+EOTS
+last
+EOT2;
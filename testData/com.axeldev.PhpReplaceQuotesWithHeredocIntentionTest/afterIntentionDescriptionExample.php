@@ -0,0 +1,5 @@
+<?php
+
+$foo = <<<EOT
+Say "hi" to $name\n
+EOT;
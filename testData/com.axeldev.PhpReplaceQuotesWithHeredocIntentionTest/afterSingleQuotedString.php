@@ -0,0 +1,5 @@
+<?php
+
+$foo = <<<'EOT'
+It's $free \ ok
+EOT;
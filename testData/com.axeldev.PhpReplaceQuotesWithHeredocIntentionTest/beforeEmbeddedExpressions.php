@@ -0,0 +1,3 @@
+<?php
+
+$foo = "<caret>Dear {$user->name}, \"$items[0]\" costs \${$price}\\";
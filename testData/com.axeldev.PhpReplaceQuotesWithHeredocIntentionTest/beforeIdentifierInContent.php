@@ -0,0 +1,7 @@
+<?php
+
+$foo = "fir<caret>st
+EOT
+  EOT1;
+EOTS
+last";
@@ -0,0 +1,3 @@
+<?php
+
+$foo = "Say \"h<caret>i\" to $name\n";
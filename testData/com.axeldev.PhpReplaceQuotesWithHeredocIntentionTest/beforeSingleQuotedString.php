@@ -0,0 +1,3 @@
+<?php
+
+$foo = 'It\'s $fr<caret>ee \\ ok';
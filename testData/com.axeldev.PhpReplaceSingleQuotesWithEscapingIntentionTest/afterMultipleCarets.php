@@ -0,0 +1,5 @@
+<?php
+
+$foo = "f<caret>oo";
+$bar = "b<caret>ar";
+$baz = 'baz';
@@ -0,0 +1,11 @@
+<?php
+$greeting = <weak_warning descr="Format call replaceable with a string">sprintf('Hello %s, id %d', $name, $id)</weak_warning>;
+$progress = <weak_warning descr="Format call replaceable with a string">sprintf("%s: %s%%", $user->name, $rate)</weak_warning>;
+<weak_warning descr="Format call replaceable with a string">printf('Hello %s', $name)</weak_warning>;
+$padded = sprintf('%05d', $id);
+$positional = sprintf('%1$s %1$s', $name);
+$tooFewArguments = sprintf('%s and %s', $name);
+$interpolatedFormat = sprintf("$prefix %s", $name);
+$written = printf('Hello %s', $name);
+$method = $formatter->sprintf('%s', $name);
+$escapedConversion = sprintf("\x25s", $name);
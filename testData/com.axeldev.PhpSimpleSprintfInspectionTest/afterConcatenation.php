@@ -0,0 +1,2 @@
+<?php
+$message = "Item " . (int) ($index + 1) . " of " . $total . ": it's " . strtoupper($name) . " \$" . $price;
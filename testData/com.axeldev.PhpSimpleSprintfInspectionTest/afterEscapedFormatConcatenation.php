@@ -0,0 +1,2 @@
+<?php
+$line = "\xc3\xa9 " . (int) $count . " items\r\n";
@@ -0,0 +1,2 @@
+<?php
+$line = "$key:\t$value\n";
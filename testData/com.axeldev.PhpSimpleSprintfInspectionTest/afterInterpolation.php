@@ -0,0 +1,2 @@
+<?php
+$message = "Hello {$user->name}, you have $rate% of \"{$files[0]}\"";
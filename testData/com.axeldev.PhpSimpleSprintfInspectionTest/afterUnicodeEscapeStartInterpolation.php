@@ -0,0 +1,2 @@
+<?php
+$text = "\\u{$char->code}";
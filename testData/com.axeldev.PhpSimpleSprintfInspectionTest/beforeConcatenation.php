@@ -0,0 +1,2 @@
+<?php
+$message = sp<caret>rintf("Item %d of %s: it's %s \$%s", $index + 1, $total, strtoupper($name), $price);
@@ -0,0 +1,2 @@
+<?php
+$line = sp<caret>rintf("\xc3\xa9 %d items\r\n", $count);
@@ -0,0 +1,2 @@
+<?php
+$line = sp<caret>rintf("%s:\t%s\n", $key, $value);
@@ -0,0 +1,2 @@
+<?php
+$message = sp<caret>rintf('Hello %s, you have %s%% of "%s"', $user->name, $rate, $files[0]);
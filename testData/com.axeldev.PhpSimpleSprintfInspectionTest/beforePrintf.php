@@ -0,0 +1,2 @@
+<?php
+pr<caret>intf('%d', $count);
@@ -0,0 +1,2 @@
+<?php
+$text = sp<caret>rintf('\u%s', $char->code);
@@ -0,0 +1,6 @@
+<?php
+$simple = "foo";
+$interpolated = "foo $bar {$baz["qux"]}";
+$escaped = 'foo\'s';
+$plain = 'foo';
+$backslash = 'C:\\foo';
@@ -0,0 +1,73 @@
+package com.axeldev;
+
+import com.intellij.codeInsight.intention.IntentionAction;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+
+public class PhpConcatenationInLoopInspectionTest extends LightCodeInsightFixtureTestCase {
+
+    private static class MyDescriptor extends DefaultLightProjectDescriptor {
+        @Override
+        public Sdk getSdk() {
+            return JavaSdk.getInstance().createJdk("1.7", new File(getProjectRootPath(), "mockJDK-1.7").getPath(), false);
+        }
+    }
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return new MyDescriptor();
+    }
+
+    @Override
+    protected String getTestDataPath() {
+        File sourceRoot = getProjectRootPath();
+        return new File(new File(sourceRoot, "testData"), getClass().getName()).getPath();
+    }
+
+    private static File getProjectRootPath() {
+        String testPath = PathManager.getJarPathForClass(PhpConcatenationInLoopInspection.class);
+        return new File(testPath, "../../..");
+    }
+
+    private void phpQuickFixTest(String testName, String quickFixName) {
+        myFixture.enableInspections(new PhpConcatenationInLoopInspection());
+        myFixture.configureByFile("before" + testName + ".php");
+        IntentionAction quickFix = myFixture.findSingleIntention(quickFixName);
+        myFixture.launchAction(quickFix);
+        myFixture.checkResultByFile("after" + testName + ".php");
+    }
+
+    public void testHighlighting() {
+        myFixture.enableInspections(new PhpConcatenationInLoopInspection());
+        myFixture.configureByFile(getTestName(false) + ".php");
+        myFixture.checkHighlighting(false, false, true);
+    }
+
+    public void testImplode() {
+        phpQuickFixTest(getTestName(false), PhpConcatenationInLoopInspection.IMPLODE_FIX_NAME);
+    }
+
+    public void testImplodeZeroIterations() {
+        phpQuickFixTest(getTestName(false), PhpConcatenationInLoopInspection.IMPLODE_FIX_NAME);
+    }
+
+    public void testInterpolatedAppend() {
+        phpQuickFixTest(getTestName(false), PhpConcatenationInLoopInspection.INTERPOLATED_APPEND_FIX_NAME);
+    }
+
+    public void testImplodeNotAvailable() {
+        myFixture.enableInspections(new PhpConcatenationInLoopInspection());
+        myFixture.configureByFile(getTestName(false) + ".php");
+        assertEmpty(myFixture.filterAvailableIntentions(PhpConcatenationInLoopInspection.IMPLODE_FIX_NAME));
+        assertNotEmpty(myFixture.filterAvailableIntentions(PhpConcatenationInLoopInspection.INTERPOLATED_APPEND_FIX_NAME));
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.axeldev;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.List;
+
+public class PhpNormalizeQuotesCheckinHandlerFactoryTest extends LightCodeInsightFixtureTestCase {
+
+    private static class MyDescriptor extends DefaultLightProjectDescriptor {
+        @Override
+        public Sdk getSdk() {
+            return JavaSdk.getInstance().createJdk("1.7", new File(getProjectRootPath(), "mockJDK-1.7").getPath(), false);
+        }
+    }
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return new MyDescriptor();
+    }
+
+    private static File getProjectRootPath() {
+        String testPath = PathManager.getJarPathForClass(PhpNormalizeQuotesCheckinHandlerFactory.class);
+        return new File(testPath, "../../..");
+    }
+
+    public void testOnlyChangedLinesAreNormalized() {
+        String committedContent = "<?php\n$foo = \"foo\";\n$bar = 1;\n$baz = \"baz\";\n";
+        final PsiFile psiFile = myFixture.configureByText("test.php",
+            "<?php\n$foo = \"foo\";\n$bar = \"bar\" . \"$foo\";\n$baz = \"baz\";\n$qux = array(\n    \"qux\",\n);\n");
+        final Document document = myFixture.getEditor().getDocument();
+        List<TextRange> changedLineRanges = PhpNormalizeQuotesCheckinHandlerFactory.computeChangedLineRanges(committedContent, document);
+        assertEquals(2, changedLineRanges.size());
+        final List<PhpQuotesBatchConverter.Replacement> replacements = PhpQuotesBatchConverter.computeStringLiteralRangeReplacements(psiFile,
+            changedLineRanges, PhpNormalizeQuotesCheckinHandlerFactory.IS_SIMPLE_DOUBLE_QUOTED_STRING);
+        new WriteCommandAction.Simple(getProject(), psiFile) {
+            @Override
+            protected void run() throws Throwable {
+                PhpQuotesBatchConverter.applyReplacements(getProject(), document, replacements);
+            }
+        }.execute();
+        myFixture.checkResult("<?php\n$foo = \"foo\";\n$bar = 'bar' . \"$foo\";\n$baz = \"baz\";\n$qux = array(\n    'qux',\n);\n");
+    }
+
+}
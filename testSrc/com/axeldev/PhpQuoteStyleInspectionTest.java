@@ -0,0 +1,66 @@
+package com.axeldev;
+
+import com.intellij.codeInsight.intention.IntentionAction;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+
+public class PhpQuoteStyleInspectionTest extends LightCodeInsightFixtureTestCase {
+
+    private static class MyDescriptor extends DefaultLightProjectDescriptor {
+        @Override
+        public Sdk getSdk() {
+            return JavaSdk.getInstance().createJdk("1.7", new File(getProjectRootPath(), "mockJDK-1.7").getPath(), false);
+        }
+    }
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return new MyDescriptor();
+    }
+
+    @Override
+    protected String getTestDataPath() {
+        File sourceRoot = getProjectRootPath();
+        return new File(new File(sourceRoot, "testData"), getClass().getName()).getPath();
+    }
+
+    private static File getProjectRootPath() {
+        String testPath = PathManager.getJarPathForClass(PhpQuoteStyleInspection.class);
+        return new File(testPath, "../../..");
+    }
+
+    private void enableInspection(boolean cheapestQuoting) {
+        PhpQuoteStyleInspection inspection = new PhpQuoteStyleInspection();
+        inspection.cheapestQuoting = cheapestQuoting;
+        myFixture.enableInspections(inspection);
+    }
+
+    public void testHighlighting() {
+        enableInspection(false);
+        myFixture.configureByFile(getTestName(false) + ".php");
+        myFixture.checkHighlighting(false, false, true);
+    }
+
+    public void testHighlightingCheapestQuoting() {
+        enableInspection(true);
+        myFixture.configureByFile(getTestName(false) + ".php");
+        myFixture.checkHighlighting(false, false, true);
+    }
+
+    public void testFixAllInFile() {
+        enableInspection(false);
+        myFixture.configureByFile("before" + getTestName(false) + ".php");
+        IntentionAction quickFix = myFixture.findSingleIntention(PhpQuoteStyleInspection.FIX_ALL_IN_FILE_NAME);
+        myFixture.launchAction(quickFix);
+        myFixture.checkResultByFile("after" + getTestName(false) + ".php");
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.axeldev;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.List;
+
+public class PhpQuotesBatchConverterTest extends LightCodeInsightFixtureTestCase {
+
+    private static class MyDescriptor extends DefaultLightProjectDescriptor {
+        @Override
+        public Sdk getSdk() {
+            return JavaSdk.getInstance().createJdk("1.7", new File(getProjectRootPath(), "mockJDK-1.7").getPath(), false);
+        }
+    }
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return new MyDescriptor();
+    }
+
+    @Override
+    protected String getTestDataPath() {
+        File sourceRoot = getProjectRootPath();
+        return new File(new File(sourceRoot, "testData"), getClass().getName()).getPath();
+    }
+
+    private static File getProjectRootPath() {
+        String testPath = PathManager.getJarPathForClass(PhpQuotesBatchConverter.class);
+        return new File(testPath, "../../..");
+    }
+
+    private void phpBatchConversionTest(String testName, final boolean concatenateEmbeddedExpressions) {
+        myFixture.configureByFile("before" + testName + ".php");
+        final PsiFile psiFile = myFixture.getFile();
+        new WriteCommandAction.Simple(getProject(), psiFile) {
+            @Override
+            protected void run() throws Throwable {
+                List<PhpQuotesBatchConverter.Replacement> replacements = PhpQuotesBatchConverter.computeDoubleQuotedStringReplacements(psiFile, concatenateEmbeddedExpressions);
+                PhpQuotesBatchConverter.applyReplacements(getProject(), myFixture.getEditor().getDocument(), replacements);
+            }
+        }.execute();
+        myFixture.checkResultByFile("after" + testName + ".php");
+    }
+
+    public void testConcatenations() {
+        myFixture.configureByFile("before" + getTestName(false) + ".php");
+        final PsiFile psiFile = myFixture.getFile();
+        new WriteCommandAction.Simple(getProject(), psiFile) {
+            @Override
+            protected void run() throws Throwable {
+                List<PhpQuotesBatchConverter.Replacement> replacements = PhpQuotesBatchConverter.computeConcatenationReplacements(psiFile);
+                PhpQuotesBatchConverter.applyReplacements(getProject(), myFixture.getEditor().getDocument(), replacements);
+            }
+        }.execute();
+        myFixture.checkResultByFile("after" + getTestName(false) + ".php");
+    }
+
+    public void testSimpleStrings() {
+        phpBatchConversionTest(getTestName(false), false);
+    }
+
+    public void testEmbeddedExpressions() {
+        phpBatchConversionTest(getTestName(false), true);
+    }
+
+}
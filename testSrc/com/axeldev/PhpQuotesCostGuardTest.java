@@ -0,0 +1,108 @@
+package com.axeldev;
+
+import com.intellij.codeInsight.intention.IntentionAction;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+
+public class PhpQuotesCostGuardTest extends LightCodeInsightFixtureTestCase {
+
+    private static class MyDescriptor extends DefaultLightProjectDescriptor {
+        @Override
+        public Sdk getSdk() {
+            return JavaSdk.getInstance().createJdk("1.7", new File(getProjectRootPath(), "mockJDK-1.7").getPath(), false);
+        }
+    }
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return new MyDescriptor();
+    }
+
+    private static File getProjectRootPath() {
+        String testPath = PathManager.getJarPathForClass(PhpQuotesCostGuard.class);
+        return new File(testPath, "../../..");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        PhpQuotesCostGuard.setLargeLiteralLength(PhpQuotesCostGuard.DEFAULT_LARGE_LITERAL_LENGTH);
+        PhpQuotesCostGuard.setSkipExcludedFiles(true);
+        PhpQuotesCostGuard.setSkippedDirectoryNamesText(PhpQuotesCostGuard.DEFAULT_SKIPPED_DIRECTORY_NAMES);
+        super.tearDown();
+    }
+
+    private void configureByFileInProject(String path, String text, String caretMarker) {
+        VirtualFile virtualFile = myFixture.addFileToProject(path, text).getVirtualFile();
+        myFixture.configureFromExistingVirtualFile(virtualFile);
+        myFixture.getEditor().getCaretModel().moveToOffset(text.indexOf(caretMarker));
+    }
+
+    public void testVendorDirectoryIsSkipped() {
+        configureByFileInProject("vendor/acme/test.php", "<?php\n$foo = \"foo\";\n$bar = 'bar';\n", "foo\"");
+        assertNull(myFixture.getAvailableIntention(PhpReplaceDoubleQuotesWithEscapingIntention.INTENTION_NAME_NO_VARS));
+        myFixture.getEditor().getCaretModel().moveToOffset(myFixture.getFile().getText().indexOf("bar'"));
+        assertNull(myFixture.getAvailableIntention(PhpReplaceSingleQuotesWithEscapingIntention.INTENTION_NAME));
+    }
+
+    public void testSkippedDirectoryNamesAreConfigurable() {
+        PhpQuotesCostGuard.setSkippedDirectoryNamesText("fixtures, generated");
+        configureByFileInProject("vendor/acme/test.php", "<?php\n$foo = \"foo\";\n", "foo\"");
+        assertNotNull(myFixture.getAvailableIntention(PhpReplaceDoubleQuotesWithEscapingIntention.INTENTION_NAME_NO_VARS));
+        configureByFileInProject("tests/fixtures/test.php", "<?php\n$foo = \"foo\";\n", "foo\"");
+        assertNull(myFixture.getAvailableIntention(PhpReplaceDoubleQuotesWithEscapingIntention.INTENTION_NAME_NO_VARS));
+    }
+
+    public void testDirectoriesAboveContentRootAreIgnored() {
+        configureByFileInProject("acme/test.php", "<?php\n$foo = \"foo\";\n", "foo\"");
+        VirtualFile contentRoot = ProjectRootManager.getInstance(getProject()).getFileIndex().getContentRootForFile(myFixture.getFile().getVirtualFile());
+        assertNotNull(contentRoot);
+        PhpQuotesCostGuard.setSkippedDirectoryNamesText(contentRoot.getName());
+        assertNotNull(myFixture.getAvailableIntention(PhpReplaceDoubleQuotesWithEscapingIntention.INTENTION_NAME_NO_VARS));
+    }
+
+    public void testLargeDoubleQuotedStringIsReplaced() {
+        PhpQuotesCostGuard.setLargeLiteralLength(4);
+        myFixture.configureByText("test.php", "<?php\n$foo = \"<caret>it's {$bar['baz']}\";\n");
+        assertTrue(PhpQuotesCostGuard.isLargeLiteral(myFixture.getFile().findElementAt(myFixture.getCaretOffset()).getParent()));
+        IntentionAction intention = myFixture.getAvailableIntention(PhpReplaceDoubleQuotesWithEscapingIntention.INTENTION_NAME_EMBEDDED_VARS);
+        assertNotNull(intention);
+        myFixture.launchAction(intention);
+        myFixture.checkResult("<?php\n$foo = 'it\\'s ' . $bar['baz'];\n");
+    }
+
+    public void testLargeSingleQuotedStringIsReplaced() {
+        PhpQuotesCostGuard.setLargeLiteralLength(4);
+        myFixture.configureByText("test.php", "<?php\n$foo = '<caret>say \"$hi\"';\n");
+        IntentionAction intention = myFixture.getAvailableIntention(PhpReplaceSingleQuotesWithEscapingIntention.INTENTION_NAME);
+        assertNotNull(intention);
+        myFixture.launchAction(intention);
+        myFixture.checkResult("<?php\n$foo = \"say \\\"\\$hi\\\"\";\n");
+    }
+
+    public void testHugeStringIsConvertedInChunks() {
+        PhpQuotesCostGuard.setLargeLiteralLength(4);
+        StringBuilder content = new StringBuilder();
+        StringBuilder expectedContent = new StringBuilder();
+        // long enough to be converted in several chunks, with escape sequences around every split
+        while (content.length() <= 2 * PhpStringUtil.CONVERSION_CHUNK_LENGTH) {
+            content.append("\\x41\\u{42} it's ");
+            expectedContent.append("AB it\\'s ");
+        }
+        myFixture.configureByText("test.php", "<?php\n$foo = \"<caret>" + content + "\";\n");
+        IntentionAction intention = myFixture.getAvailableIntention(PhpReplaceDoubleQuotesWithEscapingIntention.INTENTION_NAME_NO_VARS);
+        assertNotNull(intention);
+        myFixture.launchAction(intention);
+        myFixture.checkResult("<?php\n$foo = '" + expectedContent + "';\n");
+    }
+
+}
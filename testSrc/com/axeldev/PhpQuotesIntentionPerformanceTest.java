@@ -0,0 +1,262 @@
+package com.axeldev;
+
+import com.intellij.codeInsight.intention.PsiElementBaseIntentionAction;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import com.intellij.util.ThrowableRunnable;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Latency and allocation budgets for the availability and invocation of the "Replace quotes with escaping" intentions
+ * on generated worst case files, so a codec or PSI path which gets slower or starts copying too much fails the build.
+ * Time budgets are scaled to the speed of the machine by {@link PlatformTestUtil#startPerformanceTest}, allocation
+ * budgets are measured on the test thread and are absolute, and only checked on JVMs able to measure them.
+ */
+public class PhpQuotesIntentionPerformanceTest extends LightCodeInsightFixtureTestCase {
+    private static final int MANY_LITERALS_COUNT             = 10000;
+    private static final int HUGE_LITERAL_LENGTH             = 5 * 1024 * 1024;
+    private static final int MANY_EMBEDDED_VARIABLES_COUNT   = 1000;
+    private static final int DEEP_NESTING_DEPTH              = 1000;
+    private static final int MANY_LITERALS_AVAILABILITY_MS   = 1500;
+    private static final int MANY_LITERALS_INVOCATION_MS     = 1000;
+    private static final int HUGE_LITERAL_AVAILABILITY_MS    = 500;
+    private static final int HUGE_LITERAL_INVOCATION_MS      = 3000;
+    private static final int EMBEDDED_VARIABLES_MS           = 500;
+    private static final int DEEP_NESTING_MS                 = 200;
+    private static final long MANY_LITERALS_ALLOCATION_BYTES = 64L * 1024 * 1024;
+    private static final long HUGE_LITERAL_ALLOCATION_BYTES  = 16L * HUGE_LITERAL_LENGTH;
+    private static final long SMALL_ALLOCATION_BYTES         = 16L * 1024 * 1024;
+
+    private static class MyDescriptor extends DefaultLightProjectDescriptor {
+        @Override
+        public Sdk getSdk() {
+            return JavaSdk.getInstance().createJdk("1.7", new File(getProjectRootPath(), "mockJDK-1.7").getPath(), false);
+        }
+    }
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return new MyDescriptor();
+    }
+
+    private static File getProjectRootPath() {
+        String testPath = PathManager.getJarPathForClass(PhpStringUtil.class);
+        return new File(testPath, "../../..");
+    }
+
+    private static String buildManyLiteralsPhpCode(int literalCount) {
+        StringBuilder phpCode = new StringBuilder("<?php\n$foo = 'foo';\n");
+        for (int i = 0; i < literalCount; i++) {
+            switch (i % 3) {
+                case 0:
+                    phpCode.append("$simple").append(i).append(" = \"simple ").append(i).append(" with \\\"escapes\\\"\\n\";\n");
+                    break;
+                case 1:
+                    phpCode.append("$interpolated").append(i).append(" = \"interpolated $foo ").append(i).append("\";\n");
+                    break;
+                default:
+                    phpCode.append("$single").append(i).append(" = 'single ").append(i).append(" with \\'escapes\\''").append(";\n");
+            }
+        }
+        return phpCode.toString();
+    }
+
+    private static String buildHugeLiteralPhpCode(char quote, String contentChunk, int contentLength) {
+        StringBuilder phpCode = new StringBuilder(contentLength + 32).append("<?php\n$foo = ").append(quote);
+        while (phpCode.length() < contentLength) phpCode.append(contentChunk);
+        return phpCode.append(quote).append(";\n").toString();
+    }
+
+    private static String buildManyEmbeddedVariablesPhpCode(int variableCount) {
+        StringBuilder phpCode = new StringBuilder("<?php\n$foo = \"");
+        for (int i = 0; i < variableCount; i++) phpCode.append("item ").append(i).append(": $item").append(i).append(", ");
+        return phpCode.append("\";\n").toString();
+    }
+
+    private static String buildNestedArraysPhpCode(int nestingDepth) {
+        StringBuilder phpCode = new StringBuilder("<?php\n$foo = ");
+        for (int i = 0; i < nestingDepth; i++) phpCode.append("array(");
+        phpCode.append("\"string\", 42");
+        for (int i = 0; i < nestingDepth; i++) phpCode.append(')');
+        return phpCode.append(";\n").toString();
+    }
+
+    /**
+     * Drops the cached kinds and replacement texts of the string literals, so each measurement pays for them again.
+     */
+    private static void dropCachedValues(List<StringLiteralExpression> stringLiteralExpressions) {
+        for (StringLiteralExpression stringLiteralExpression : stringLiteralExpressions) {
+            stringLiteralExpression.putUserData(PhpStringUtil.CACHED_STRING_LITERAL_KEY, null);
+        }
+    }
+
+    /**
+     * Gets the bytes allocated so far by the test thread, or -1 if the JVM can't measure them.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) return -1;
+        com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        if (!allocationMXBean.isThreadAllocatedMemorySupported() || !allocationMXBean.isThreadAllocatedMemoryEnabled()) return -1;
+        return allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Runs an operation once on the test thread and fails if it allocates more than the given amount of bytes. The
+     * operation is only run when the JVM can't measure the allocated bytes.
+     */
+    private static void assertAllocation(String message, long maxAllocatedBytes, ThrowableRunnable<?> operation) throws Throwable {
+        long startAllocatedBytes = getAllocatedBytes();
+        operation.run();
+        if (startAllocatedBytes < 0) return;
+        long allocatedBytes = getAllocatedBytes() - startAllocatedBytes;
+        assertTrue(message + " allocated " + allocatedBytes + " bytes, expected at most " + maxAllocatedBytes, allocatedBytes <= maxAllocatedBytes);
+    }
+
+    private void assertAvailabilityPerformance(String message, int expectedMs, long maxAllocatedBytes,
+                                               final List<PsiElementBaseIntentionAction> intentions, final List<PsiElement> psiElements) throws Throwable {
+        ThrowableRunnable<RuntimeException> availability = new ThrowableRunnable<RuntimeException>() {
+            @Override
+            public void run() {
+                for (PsiElement psiElement : psiElements) {
+                    for (PsiElementBaseIntentionAction intention : intentions) {
+                        intention.isAvailable(getProject(), myFixture.getEditor(), psiElement);
+                    }
+                }
+            }
+        };
+        final List<StringLiteralExpression> stringLiteralExpressions = new ArrayList<StringLiteralExpression>();
+        for (PsiElement psiElement : psiElements) {
+            StringLiteralExpression stringLiteralExpression = PsiTreeUtil.getParentOfType(psiElement, StringLiteralExpression.class, false);
+            if (stringLiteralExpression != null) stringLiteralExpressions.add(stringLiteralExpression);
+        }
+        availability.run();
+        List<CachedValue<?>> previousCachedValues = new ArrayList<CachedValue<?>>();
+        for (StringLiteralExpression stringLiteralExpression : stringLiteralExpressions) {
+            previousCachedValues.add(stringLiteralExpression.getUserData(PhpStringUtil.CACHED_STRING_LITERAL_KEY));
+        }
+        dropCachedValues(stringLiteralExpressions);
+        assertAllocation(message, maxAllocatedBytes, availability);
+        // the measured run must have classified again every literal the first run cached, rather than reusing it
+        for (int i = 0; i < stringLiteralExpressions.size(); i++) {
+            if (previousCachedValues.get(i) == null) continue;
+            CachedValue<?> cachedValue = stringLiteralExpressions.get(i).getUserData(PhpStringUtil.CACHED_STRING_LITERAL_KEY);
+            assertNotNull(message, cachedValue);
+            assertNotSame(message, previousCachedValues.get(i), cachedValue);
+        }
+        PlatformTestUtil.startPerformanceTest(message, expectedMs, availability).setup(new ThrowableRunnable<RuntimeException>() {
+            @Override
+            public void run() {
+                dropCachedValues(stringLiteralExpressions);
+            }
+        }).cpuBound().assertTiming();
+    }
+
+    /**
+     * Checks the intention is available at the given offset of the code, and then invokes it, every attempt on a fresh
+     * copy of the code, within the given time and allocation budgets.
+     */
+    private void assertInvocationPerformance(final String message, int expectedMs, long maxAllocatedBytes,
+                                             final PsiElementBaseIntentionAction intention, final String phpCode, final int offset) throws Throwable {
+        final PsiElement[] psiElement = new PsiElement[1];
+        ThrowableRunnable<RuntimeException> configuration = new ThrowableRunnable<RuntimeException>() {
+            @Override
+            public void run() {
+                PsiFile psiFile = myFixture.configureByText("test.php", phpCode);
+                psiElement[0] = psiFile.findElementAt(offset);
+                assertTrue(message, intention.isAvailable(getProject(), myFixture.getEditor(), psiElement[0]));
+            }
+        };
+        ThrowableRunnable<RuntimeException> invocation = new ThrowableRunnable<RuntimeException>() {
+            @Override
+            public void run() {
+                new WriteCommandAction.Simple(getProject(), psiElement[0].getContainingFile()) {
+                    @Override
+                    protected void run() throws Throwable {
+                        intention.invoke(getProject(), myFixture.getEditor(), psiElement[0]);
+                    }
+                }.execute();
+            }
+        };
+        configuration.run();
+        assertAllocation(message, maxAllocatedBytes, invocation);
+        PlatformTestUtil.startPerformanceTest(message, expectedMs, invocation).setup(configuration).cpuBound().assertTiming();
+    }
+
+    public void testManyLiteralsAvailability() throws Throwable {
+        String phpCode = buildManyLiteralsPhpCode(MANY_LITERALS_COUNT);
+        PsiFile psiFile = myFixture.configureByText("test.php", phpCode);
+        List<PsiElement> psiElements = new ArrayList<PsiElement>();
+        for (int offset = phpCode.indexOf(" = ") + 4; offset > 3; offset = phpCode.indexOf(" = ", offset) + 4) {
+            psiElements.add(psiFile.findElementAt(offset));
+        }
+        List<PsiElementBaseIntentionAction> intentions = new ArrayList<PsiElementBaseIntentionAction>();
+        intentions.add(new PhpReplaceSimpleDoubleQuotesWithEscapingIntention());
+        intentions.add(new PhpReplaceInterpolatedDoubleQuotesWithEscapingIntention());
+        intentions.add(new PhpReplaceSingleQuotesWithEscapingIntention());
+        assertAvailabilityPerformance("Availability on " + MANY_LITERALS_COUNT + " literals", MANY_LITERALS_AVAILABILITY_MS,
+            MANY_LITERALS_ALLOCATION_BYTES, intentions, psiElements);
+    }
+
+    public void testManyLiteralsInvocation() throws Throwable {
+        String phpCode = buildManyLiteralsPhpCode(MANY_LITERALS_COUNT);
+        int offset = phpCode.lastIndexOf("simple");
+        assertInvocationPerformance("Invocation in a file with " + MANY_LITERALS_COUNT + " literals", MANY_LITERALS_INVOCATION_MS,
+            MANY_LITERALS_ALLOCATION_BYTES, new PhpReplaceSimpleDoubleQuotesWithEscapingIntention(), phpCode, offset);
+    }
+
+    public void testHugeDoubleQuotedLiteral() throws Throwable {
+        String phpCode = buildHugeLiteralPhpCode('"', "text with \\\"escapes\\\", \\$dollars, \\x41\\101\\n and 'quotes' ", HUGE_LITERAL_LENGTH);
+        int offset = phpCode.indexOf("text");
+        PsiElementBaseIntentionAction intention = new PhpReplaceSimpleDoubleQuotesWithEscapingIntention();
+        PsiFile psiFile = myFixture.configureByText("test.php", phpCode);
+        List<PsiElement> psiElements = new ArrayList<PsiElement>();
+        psiElements.add(psiFile.findElementAt(offset));
+        List<PsiElementBaseIntentionAction> intentions = new ArrayList<PsiElementBaseIntentionAction>();
+        intentions.add(intention);
+        assertAvailabilityPerformance("Availability on a " + HUGE_LITERAL_LENGTH + " chars double quoted literal", HUGE_LITERAL_AVAILABILITY_MS,
+            HUGE_LITERAL_ALLOCATION_BYTES, intentions, psiElements);
+        assertInvocationPerformance("Invocation on a " + HUGE_LITERAL_LENGTH + " chars double quoted literal", HUGE_LITERAL_INVOCATION_MS,
+            HUGE_LITERAL_ALLOCATION_BYTES, intention, phpCode, offset);
+    }
+
+    public void testHugeSingleQuotedLiteral() throws Throwable {
+        String phpCode = buildHugeLiteralPhpCode('\'', "text with \\'escapes\\', $dollars, \\\\backslashes and \"quotes\" ", HUGE_LITERAL_LENGTH);
+        int offset = phpCode.indexOf("text");
+        assertInvocationPerformance("Invocation on a " + HUGE_LITERAL_LENGTH + " chars single quoted literal", HUGE_LITERAL_INVOCATION_MS,
+            HUGE_LITERAL_ALLOCATION_BYTES, new PhpReplaceSingleQuotesWithEscapingIntention(), phpCode, offset);
+    }
+
+    public void testManyEmbeddedVariables() throws Throwable {
+        String phpCode = buildManyEmbeddedVariablesPhpCode(MANY_EMBEDDED_VARIABLES_COUNT);
+        int offset = phpCode.indexOf("item");
+        assertInvocationPerformance("Invocation on a literal with " + MANY_EMBEDDED_VARIABLES_COUNT + " embedded variables", EMBEDDED_VARIABLES_MS,
+            SMALL_ALLOCATION_BYTES, new PhpReplaceInterpolatedDoubleQuotesWithEscapingIntention(), phpCode, offset);
+    }
+
+    public void testDeeplyNestedArrays() throws Throwable {
+        String phpCode = buildNestedArraysPhpCode(DEEP_NESTING_DEPTH);
+        int offset = phpCode.indexOf("string");
+        assertInvocationPerformance("Invocation on a literal nested in " + DEEP_NESTING_DEPTH + " arrays", DEEP_NESTING_MS,
+            SMALL_ALLOCATION_BYTES, new PhpReplaceSimpleDoubleQuotesWithEscapingIntention(), phpCode, offset);
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.axeldev;
+
+import com.intellij.codeInsight.intention.IntentionAction;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+
+public class PhpQuotesMetricsTest extends LightCodeInsightFixtureTestCase {
+
+    private static class MyDescriptor extends DefaultLightProjectDescriptor {
+        @Override
+        public Sdk getSdk() {
+            return JavaSdk.getInstance().createJdk("1.7", new File(getProjectRootPath(), "mockJDK-1.7").getPath(), false);
+        }
+    }
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return new MyDescriptor();
+    }
+
+    private static File getProjectRootPath() {
+        String testPath = PathManager.getJarPathForClass(PhpQuotesMetrics.class);
+        return new File(testPath, "../../..");
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        PhpQuotesMetrics.reset();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        PhpQuotesMetrics.setEnabled(false);
+        PhpQuotesMetrics.reset();
+        super.tearDown();
+    }
+
+    private void replaceSingleQuotes() {
+        myFixture.configureByText("test.php", "<?php\n$foo = 'it\\'s <caret>$bar';\n");
+        IntentionAction intention = myFixture.getAvailableIntention(PhpReplaceSingleQuotesWithEscapingIntention.INTENTION_NAME);
+        assertNotNull(intention);
+        myFixture.launchAction(intention);
+        myFixture.checkResult("<?php\n$foo = \"it's <caret>\\$bar\";\n");
+    }
+
+    public void testEnabledMetricsAreRecorded() {
+        PhpQuotesMetrics.setEnabled(true);
+        replaceSingleQuotes();
+        assertTrue(PhpQuotesMetrics.SINGLE_QUOTES_AVAILABILITY.getCount() > 0);
+        assertEquals(1, PhpQuotesMetrics.SINGLE_QUOTES_INVOCATION.getCount());
+        assertEquals(1, PhpQuotesMetrics.CREATED_PSI_ELEMENTS.getCount());
+        assertTrue(PhpQuotesMetrics.UNESCAPING.getChars() > 0);
+        assertTrue(PhpQuotesMetrics.ESCAPING.getChars() > 0);
+        assertTrue(PhpQuotesMetrics.dump().contains("Replace single quotes, invoke: count=1"));
+    }
+
+    public void testDisabledMetricsAreNotRecorded() {
+        PhpQuotesMetrics.setEnabled(false);
+        replaceSingleQuotes();
+        assertEquals(0, PhpQuotesMetrics.SINGLE_QUOTES_AVAILABILITY.getCount());
+        assertEquals(0, PhpQuotesMetrics.SINGLE_QUOTES_INVOCATION.getCount());
+        assertEquals(0, PhpQuotesMetrics.CREATED_PSI_ELEMENTS.getCount());
+        assertEquals(0, PhpQuotesMetrics.UNESCAPING.getChars());
+        assertEquals(0, PhpQuotesMetrics.ESCAPING.getChars());
+    }
+
+}
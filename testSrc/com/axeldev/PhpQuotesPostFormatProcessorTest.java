@@ -0,0 +1,98 @@
+package com.axeldev;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.SelectionModel;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.psi.codeStyle.CodeStyleManager;
+import com.intellij.psi.codeStyle.CodeStyleSettingsManager;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+
+public class PhpQuotesPostFormatProcessorTest extends LightCodeInsightFixtureTestCase {
+
+    private static class MyDescriptor extends DefaultLightProjectDescriptor {
+        @Override
+        public Sdk getSdk() {
+            return JavaSdk.getInstance().createJdk("1.7", new File(getProjectRootPath(), "mockJDK-1.7").getPath(), false);
+        }
+    }
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return new MyDescriptor();
+    }
+
+    private static File getProjectRootPath() {
+        String testPath = PathManager.getJarPathForClass(PhpQuotesPostFormatProcessor.class);
+        return new File(testPath, "../../..");
+    }
+
+    private PhpQuotesCodeStyleSettings getQuotesSettings() {
+        return CodeStyleSettingsManager.getSettings(getProject()).getCustomSettings(PhpQuotesCodeStyleSettings.class);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        getQuotesSettings().QUOTE_STYLE = PhpQuotesCodeStyleSettings.QUOTE_STYLE_AS_IS;
+        super.tearDown();
+    }
+
+    private void phpReformatTest(int quoteStyle, String before, String after) {
+        getQuotesSettings().QUOTE_STYLE = quoteStyle;
+        myFixture.configureByText("test.php", before);
+        SelectionModel selectionModel = myFixture.getEditor().getSelectionModel();
+        final int startOffset = selectionModel.hasSelection() ? selectionModel.getSelectionStart() : 0;
+        final int endOffset = selectionModel.hasSelection() ? selectionModel.getSelectionEnd() : myFixture.getFile().getTextLength();
+        new WriteCommandAction.Simple(getProject(), myFixture.getFile()) {
+            @Override
+            protected void run() throws Throwable {
+                CodeStyleManager.getInstance(getProject()).reformatText(myFixture.getFile(), startOffset, endOffset);
+            }
+        }.execute();
+        myFixture.getEditor().getSelectionModel().removeSelection();
+        myFixture.checkResult(after);
+    }
+
+    public void testKeepQuotesByDefault() {
+        String text = "<?php\n$foo = \"foo\";\n$bar = \"bar $baz\";\n";
+        phpReformatTest(PhpQuotesCodeStyleSettings.QUOTE_STYLE_AS_IS, text, text);
+    }
+
+    public void testSingleQuotes() {
+        phpReformatTest(PhpQuotesCodeStyleSettings.QUOTE_STYLE_SINGLE_QUOTES,
+            "<?php\n$foo = \"foo\";\n$bar = \"bar $baz\";\n$qux = 'it\\'s';\n",
+            "<?php\n$foo = 'foo';\n$bar = 'bar ' . $baz;\n$qux = 'it\\'s';\n");
+    }
+
+    public void testDoubleQuotesForInterpolation() {
+        phpReformatTest(PhpQuotesCodeStyleSettings.QUOTE_STYLE_DOUBLE_QUOTES_FOR_INTERPOLATION,
+            "<?php\n$foo = \"foo \\$bar\";\n$bar = \"bar $baz\";\n",
+            "<?php\n$foo = 'foo $bar';\n$bar = \"bar $baz\";\n");
+    }
+
+    public void testStringsNeedingEscapingAreKept() {
+        String text = "<?php\n$foo = \"line\\n\";\n$bar = \"tab\\t$baz\";\n$qux = \"it's\";\n$quux = \"\\xc3\\xa9\";\n";
+        phpReformatTest(PhpQuotesCodeStyleSettings.QUOTE_STYLE_SINGLE_QUOTES, text, text);
+        phpReformatTest(PhpQuotesCodeStyleSettings.QUOTE_STYLE_DOUBLE_QUOTES_FOR_INTERPOLATION, text, text);
+    }
+
+    public void testCheapest() {
+        phpReformatTest(PhpQuotesCodeStyleSettings.QUOTE_STYLE_CHEAPEST,
+            "<?php\n$foo = \"say \\\"hi\\\"\";\n$bar = \"it's\";\n$qux = 'it\\'s';\n",
+            "<?php\n$foo = 'say \"hi\"';\n$bar = \"it's\";\n$qux = \"it's\";\n");
+    }
+
+    public void testOnlyReformattedRange() {
+        phpReformatTest(PhpQuotesCodeStyleSettings.QUOTE_STYLE_SINGLE_QUOTES,
+            "<?php\n<selection>$foo = \"foo\";\n$bar = \"bar\"</selection> . \"baz\";\n$qux = \"qux\";\n",
+            "<?php\n$foo = 'foo';\n$bar = 'bar' . \"baz\";\n$qux = \"qux\";\n");
+    }
+
+}
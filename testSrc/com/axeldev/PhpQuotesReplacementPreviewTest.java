@@ -0,0 +1,76 @@
+package com.axeldev;
+
+import com.intellij.codeInsight.intention.IntentionAction;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import com.intellij.util.Consumer;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PhpQuotesReplacementPreviewTest extends LightCodeInsightFixtureTestCase {
+
+    private static class MyDescriptor extends DefaultLightProjectDescriptor {
+        @Override
+        public Sdk getSdk() {
+            return JavaSdk.getInstance().createJdk("1.7", new File(getProjectRootPath(), "mockJDK-1.7").getPath(), false);
+        }
+    }
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return new MyDescriptor();
+    }
+
+    private static File getProjectRootPath() {
+        String testPath = PathManager.getJarPathForClass(PhpQuotesReplacementPreview.class);
+        return new File(testPath, "../../..");
+    }
+
+    private String computeReplacementTextInBackground(PsiElement stringLiteralExpression) throws InterruptedException {
+        final AtomicReference<String> replacementText = new AtomicReference<String>();
+        final CountDownLatch computed = new CountDownLatch(1);
+        PhpQuotesReplacementPreview.computeReplacementTextInBackground(stringLiteralExpression, new Consumer<String>() {
+            @Override
+            public void consume(String text) {
+                replacementText.set(text);
+                computed.countDown();
+            }
+        });
+        assertTrue(computed.await(10, TimeUnit.SECONDS));
+        return replacementText.get();
+    }
+
+    public void testPreviewIsReusedByIntention() throws InterruptedException {
+        myFixture.configureByText("test.php", "<?php\n$foo = \"<caret>it's {$bar['baz']}\";\n");
+        StringLiteralExpression stringLiteralExpression = PsiTreeUtil.findChildOfType(myFixture.getFile(), StringLiteralExpression.class);
+        String previewText = computeReplacementTextInBackground(stringLiteralExpression);
+        assertEquals("'it\\'s ' . $bar['baz']", previewText);
+        // the intention reads the very text computed for the preview
+        assertSame(previewText, PhpStringUtil.getCachedPhpStringLiteralReplacementText(stringLiteralExpression));
+        IntentionAction intention = myFixture.getAvailableIntention(PhpReplaceDoubleQuotesWithEscapingIntention.INTENTION_NAME_EMBEDDED_VARS);
+        assertNotNull(intention);
+        myFixture.launchAction(intention);
+        myFixture.checkResult("<?php\n$foo = 'it\\'s ' . $bar['baz'];\n");
+    }
+
+    public void testLongPreviewIsCut() {
+        StringBuilder replacementText = new StringBuilder();
+        while (replacementText.length() <= PhpQuotesReplacementPreview.MAX_PREVIEW_LENGTH) replacementText.append("'foo' . ");
+        String previewText = PhpQuotesReplacementPreview.getPreviewText(replacementText.toString());
+        assertEquals(PhpQuotesReplacementPreview.MAX_PREVIEW_LENGTH + PhpQuotesReplacementPreview.PREVIEW_ELLIPSIS.length(), previewText.length());
+        assertTrue(previewText.endsWith(PhpQuotesReplacementPreview.PREVIEW_ELLIPSIS));
+    }
+
+}
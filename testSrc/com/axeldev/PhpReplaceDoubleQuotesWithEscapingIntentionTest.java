@@ -1,19 +1,35 @@
 package com.axeldev;
 
 import com.intellij.codeInsight.intention.IntentionAction;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.application.PathManager;
 import com.intellij.openapi.projectRoots.JavaSdk;
 import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.util.Computable;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.testFramework.LightProjectDescriptor;
 import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
 import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class PhpReplaceDoubleQuotesWithEscapingIntentionTest extends LightCodeInsightFixtureTestCase {
     public static final String TEST_INTENTION_NAME_NO_VARS       = PhpReplaceDoubleQuotesWithEscapingIntention.INTENTION_NAME_NO_VARS;
     public static final String TEST_INTENTION_NAME_EMBEDDED_VARS = PhpReplaceDoubleQuotesWithEscapingIntention.INTENTION_NAME_EMBEDDED_VARS;
+    private static final int   CONCURRENCY_TEST_FILE_COUNT       = 50;
+    private static final int   CONCURRENCY_TEST_THREAD_COUNT     = 8;
+    private static final int   CONCURRENCY_TEST_ITERATIONS       = 200;
 
     private static class MyDescriptor extends DefaultLightProjectDescriptor {
         @Override
@@ -123,4 +139,80 @@ public class PhpReplaceDoubleQuotesWithEscapingIntentionTest extends LightCodeIn
         phpIntentionTest(getTestName(false), TEST_INTENTION_NAME_EMBEDDED_VARS);
     }
 
+    public void testMultipleCarets() {
+        phpIntentionTest(getTestName(false), TEST_INTENTION_NAME_NO_VARS);
+    }
+
+    public void testSelection() {
+        phpIntentionTest(getTestName(false), TEST_INTENTION_NAME_EMBEDDED_VARS);
+    }
+
+    public void testCachedReplacementTextIsInvalidatedOnFileChange() {
+        PsiFile psiFile = myFixture.configureByText("test.php", "<?php\n$foo = \"foo\";\n<caret>");
+        StringLiteralExpression stringLiteralExpression = PsiTreeUtil.findChildOfType(psiFile, StringLiteralExpression.class);
+        String replacementText = PhpStringUtil.getCachedPhpStringLiteralReplacementText(stringLiteralExpression);
+        assertEquals("'foo'", replacementText);
+        assertSame(replacementText, PhpStringUtil.getCachedPhpStringLiteralReplacementText(stringLiteralExpression));
+        myFixture.type("$bar = \"bar\";\n");
+        PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+        stringLiteralExpression = PsiTreeUtil.findChildOfType(myFixture.getFile(), StringLiteralExpression.class);
+        String updatedReplacementText = PhpStringUtil.getCachedPhpStringLiteralReplacementText(stringLiteralExpression);
+        assertEquals("'foo'", updatedReplacementText);
+        assertNotSame(replacementText, updatedReplacementText);
+    }
+
+    /**
+     * Evaluates the availability of both double quote intentions on many files from many threads at once, checking
+     * every thread always gets the same availability, as intentions are shared instances.
+     */
+    public void testAvailabilityFromManyThreads() throws Exception {
+        final List<PsiElement> simpleStringElements = new ArrayList<PsiElement>();
+        final List<PsiElement> interpolatedStringElements = new ArrayList<PsiElement>();
+        final List<PsiElement> singleQuotedStringElements = new ArrayList<PsiElement>();
+        for (int i = 0; i < CONCURRENCY_TEST_FILE_COUNT; i++) {
+            String phpCode = "<?php\n$foo = \"simple " + i + "\";\n$bar = \"interpolated $foo " + i + "\";\n$baz = 'single " + i + "';\n";
+            PsiFile psiFile = myFixture.addFileToProject("file" + i + ".php", phpCode);
+            simpleStringElements.add(psiFile.findElementAt(phpCode.indexOf("simple")));
+            interpolatedStringElements.add(psiFile.findElementAt(phpCode.indexOf("interpolated")));
+            singleQuotedStringElements.add(psiFile.findElementAt(phpCode.indexOf("single")));
+        }
+        final PhpReplaceDoubleQuotesWithEscapingIntention simpleIntention = new PhpReplaceSimpleDoubleQuotesWithEscapingIntention();
+        final PhpReplaceDoubleQuotesWithEscapingIntention interpolatedIntention = new PhpReplaceInterpolatedDoubleQuotesWithEscapingIntention();
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY_TEST_THREAD_COUNT);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int thread = 0; thread < CONCURRENCY_TEST_THREAD_COUNT; thread++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int iteration = 0; iteration < CONCURRENCY_TEST_ITERATIONS; iteration++) {
+                            ApplicationManager.getApplication().runReadAction(new Computable<Void>() {
+                                @Override
+                                public Void compute() {
+                                    for (int i = 0; i < CONCURRENCY_TEST_FILE_COUNT; i++) {
+                                        assertAvailability(simpleIntention, simpleStringElements.get(i), true);
+                                        assertAvailability(interpolatedIntention, simpleStringElements.get(i), false);
+                                        assertAvailability(simpleIntention, interpolatedStringElements.get(i), false);
+                                        assertAvailability(interpolatedIntention, interpolatedStringElements.get(i), true);
+                                        assertAvailability(simpleIntention, singleQuotedStringElements.get(i), false);
+                                        assertAvailability(interpolatedIntention, singleQuotedStringElements.get(i), false);
+                                    }
+                                    return null;
+                                }
+                            });
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void assertAvailability(PhpReplaceDoubleQuotesWithEscapingIntention intention, PsiElement psiElement, boolean expectedAvailability) {
+        assertEquals(intention.getText() + " at " + psiElement.getText(), expectedAvailability, intention.isAvailable(getProject(), null, psiElement));
+    }
+
 }
@@ -0,0 +1,66 @@
+package com.axeldev;
+
+import com.intellij.codeInsight.intention.IntentionAction;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+
+public class PhpReplaceHeredocWithQuotesIntentionTest extends LightCodeInsightFixtureTestCase {
+    public static final String TEST_INTENTION_NAME = PhpReplaceHeredocWithQuotesIntention.INTENTION_NAME;
+
+    private static class MyDescriptor extends DefaultLightProjectDescriptor {
+        @Override
+        public Sdk getSdk() {
+            return JavaSdk.getInstance().createJdk("1.7", new File(getProjectRootPath(), "mockJDK-1.7").getPath(), false);
+        }
+    }
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return new MyDescriptor();
+    }
+
+    @Override
+    protected String getTestDataPath() {
+        File sourceRoot = getProjectRootPath();
+        return new File(new File(sourceRoot, "testData"), getClass().getName()).getPath();
+    }
+
+    private static File getProjectRootPath() {
+        String testPath = PathManager.getJarPathForClass(PhpReplaceHeredocWithQuotesIntention.class);
+        return new File(testPath, "../../..");
+    }
+
+    private void phpIntentionTest(String testName) {
+        myFixture.configureByFile("before" + testName + ".php");
+        IntentionAction intention = myFixture.getAvailableIntention(TEST_INTENTION_NAME);
+        if (intention == null) throw new AssertionError("Intention \"" + TEST_INTENTION_NAME + "\" is not available at specified document position");
+        myFixture.launchAction(intention);
+        myFixture.checkResultByFile("after" + testName + ".php");
+    }
+
+    public void testIntentionDescriptionExample() {
+        phpIntentionTest(getTestName(false));
+    }
+
+    public void testNowdoc() {
+        phpIntentionTest(getTestName(false));
+    }
+
+    public void testLiteralBackslashesAndQuotes() {
+        phpIntentionTest(getTestName(false));
+    }
+
+    public void testIndentedClosingIdentifier() {
+        myFixture.configureByFile(getTestName(false) + ".php");
+        assertEmpty(myFixture.filterAvailableIntentions(TEST_INTENTION_NAME));
+    }
+
+}
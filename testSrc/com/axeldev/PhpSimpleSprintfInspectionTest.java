@@ -0,0 +1,78 @@
+package com.axeldev;
+
+import com.intellij.codeInsight.intention.IntentionAction;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+
+public class PhpSimpleSprintfInspectionTest extends LightCodeInsightFixtureTestCase {
+
+    private static class MyDescriptor extends DefaultLightProjectDescriptor {
+        @Override
+        public Sdk getSdk() {
+            return JavaSdk.getInstance().createJdk("1.7", new File(getProjectRootPath(), "mockJDK-1.7").getPath(), false);
+        }
+    }
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return new MyDescriptor();
+    }
+
+    @Override
+    protected String getTestDataPath() {
+        File sourceRoot = getProjectRootPath();
+        return new File(new File(sourceRoot, "testData"), getClass().getName()).getPath();
+    }
+
+    private static File getProjectRootPath() {
+        String testPath = PathManager.getJarPathForClass(PhpSimpleSprintfInspection.class);
+        return new File(testPath, "../../..");
+    }
+
+    private void phpQuickFixTest(String testName, String quickFixName) {
+        myFixture.enableInspections(new PhpSimpleSprintfInspection());
+        myFixture.configureByFile("before" + testName + ".php");
+        IntentionAction quickFix = myFixture.findSingleIntention(quickFixName);
+        myFixture.launchAction(quickFix);
+        myFixture.checkResultByFile("after" + testName + ".php");
+    }
+
+    public void testHighlighting() {
+        myFixture.enableInspections(new PhpSimpleSprintfInspection());
+        myFixture.configureByFile(getTestName(false) + ".php");
+        myFixture.checkHighlighting(false, false, true);
+    }
+
+    public void testInterpolation() {
+        phpQuickFixTest(getTestName(false), PhpSimpleSprintfInspection.INTERPOLATION_FIX_NAME);
+    }
+
+    public void testConcatenation() {
+        phpQuickFixTest(getTestName(false), PhpSimpleSprintfInspection.CONCATENATION_FIX_NAME);
+    }
+
+    public void testEscapedFormatInterpolation() {
+        phpQuickFixTest(getTestName(false), PhpSimpleSprintfInspection.INTERPOLATION_FIX_NAME);
+    }
+
+    public void testEscapedFormatConcatenation() {
+        phpQuickFixTest(getTestName(false), PhpSimpleSprintfInspection.CONCATENATION_FIX_NAME);
+    }
+
+    public void testUnicodeEscapeStartInterpolation() {
+        phpQuickFixTest(getTestName(false), PhpSimpleSprintfInspection.INTERPOLATION_FIX_NAME);
+    }
+
+    public void testPrintf() {
+        phpQuickFixTest(getTestName(false), PhpSimpleSprintfInspection.CONCATENATION_FIX_NAME);
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.axeldev;
+
+import com.intellij.openapi.actionSystem.IdeActions;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.ide.CopyPasteManager;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.datatransfer.StringSelection;
+import java.io.File;
+
+public class PhpStringLiteralCopyPastePreProcessorTest extends LightCodeInsightFixtureTestCase {
+
+    private static class MyDescriptor extends DefaultLightProjectDescriptor {
+        @Override
+        public Sdk getSdk() {
+            return JavaSdk.getInstance().createJdk("1.7", new File(getProjectRootPath(), "mockJDK-1.7").getPath(), false);
+        }
+    }
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return new MyDescriptor();
+    }
+
+    private static File getProjectRootPath() {
+        String testPath = PathManager.getJarPathForClass(PhpStringLiteralCopyPastePreProcessor.class);
+        return new File(testPath, "../../..");
+    }
+
+    private void phpPasteTest(String before, String pastedText, String after) {
+        myFixture.configureByText("test.php", before);
+        CopyPasteManager.getInstance().setContents(new StringSelection(pastedText));
+        myFixture.performEditorAction(IdeActions.ACTION_PASTE);
+        myFixture.checkResult(after);
+    }
+
+    public void testPasteIntoSingleQuotedString() {
+        phpPasteTest("<?php\n$foo = 'foo <caret>';\n", "it's C:\\dir\\", "<?php\n$foo = 'foo it\\'s C:\\dir\\\\<caret>';\n");
+    }
+
+    public void testPasteIntoDoubleQuotedString() {
+        phpPasteTest("<?php\n$foo = \"foo <caret>\";\n", "say \"hi\" to $name and {$bar}", "<?php\n$foo = \"foo say \\\"hi\\\" to \\$name and {\\$bar}<caret>\";\n");
+    }
+
+    public void testPasteReplacingSelectionInInterpolatedString() {
+        phpPasteTest("<?php\n$foo = \"<selection>foo<caret></selection> $bar\";\n", "\"baz\"", "<?php\n$foo = \"\\\"baz\\\"<caret> $bar\";\n");
+    }
+
+    public void testPasteNextToEmbeddedVariableIsNotEscaped() {
+        phpPasteTest("<?php\n$foo = \"foo $bar<caret>\";\n", "->baz", "<?php\n$foo = \"foo $bar->baz<caret>\";\n");
+    }
+
+    public void testPastedDollarSignBeforeNameIsEscaped() {
+        phpPasteTest("<?php\n$foo = \"<caret>name\";\n", "$", "<?php\n$foo = \"\\$<caret>name\";\n");
+    }
+
+    public void testPasteAfterEscapedDollarSignIsKept() {
+        phpPasteTest("<?php\n$foo = \"\\$<caret>\";\n", "foo", "<?php\n$foo = \"\\$foo<caret>\";\n");
+    }
+
+    public void testPasteAfterDollarSignIsNotReadAsVariable() {
+        phpPasteTest("<?php\n$foo = \"costs $<caret>\";\n", "foo", "<?php\n$foo = \"costs $\\x66oo<caret>\";\n");
+    }
+
+    public void testPasteAfterIncompleteHexEscapeSequence() {
+        phpPasteTest("<?php\n$foo = \"\\x<caret>\";\n", "41", "<?php\n$foo = \"\\x\\x341<caret>\";\n");
+    }
+
+    public void testPasteAfterLoneBackslash() {
+        phpPasteTest("<?php\n$foo = \"C:\\<caret> dir\";\n", "new", "<?php\n$foo = \"C:\\\\new<caret> dir\";\n");
+    }
+
+    public void testPastedHexEscapeStartBeforeDigits() {
+        phpPasteTest("<?php\n$foo = \"<caret>41\";\n", "\\x", "<?php\n$foo = \"\\\\x<caret>41\";\n");
+    }
+
+    public void testPastedQuoteAfterLoneBackslashInSingleQuotedString() {
+        phpPasteTest("<?php\n$foo = 'C:\\<caret> dir';\n", "'", "<?php\n$foo = 'C:\\\\\\'<caret> dir';\n");
+    }
+
+    public void testPasteOutOfStringIsNotEscaped() {
+        phpPasteTest("<?php\n$foo = <caret>;\n", "'it\\'s'", "<?php\n$foo = 'it\\'s'<caret>;\n");
+    }
+
+    public void testEscapingInChunksGivesSameResult() {
+        StringBuilder unescapedContent = new StringBuilder();
+        while (unescapedContent.length() < 3 * PhpStringLiteralCopyPastePreProcessor.ESCAPING_CHUNK_LENGTH) {
+            unescapedContent.append("{$foo} \\x41 \\u{1F600} \\\\ '$' \"quotes\" \\");
+        }
+        for (PhpStringUtil.Quoting quoting : new PhpStringUtil.Quoting[]{PhpStringUtil.Quoting.SINGLE_QUOTED, PhpStringUtil.Quoting.DOUBLE_QUOTED}) {
+            StringBuilder escapedContentBuffer = new StringBuilder();
+            PhpStringLiteralCopyPastePreProcessor.escapePhpStringContent(unescapedContent, quoting, escapedContentBuffer, null);
+            String expectedContent = quoting == PhpStringUtil.Quoting.DOUBLE_QUOTED ?
+                PhpStringCodec.escapePhpDoubleQuotedStringContent(unescapedContent) : PhpStringCodec.escapePhpSingleQuotedStringContent(unescapedContent);
+            assertEquals(expectedContent, escapedContentBuffer.toString());
+        }
+    }
+
+}
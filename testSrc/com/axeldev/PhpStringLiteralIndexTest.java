@@ -0,0 +1,82 @@
+package com.axeldev;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.Arrays;
+
+public class PhpStringLiteralIndexTest extends LightCodeInsightFixtureTestCase {
+
+    private static class MyDescriptor extends DefaultLightProjectDescriptor {
+        @Override
+        public Sdk getSdk() {
+            return JavaSdk.getInstance().createJdk("1.7", new File(getProjectRootPath(), "mockJDK-1.7").getPath(), false);
+        }
+    }
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return new MyDescriptor();
+    }
+
+    @Override
+    protected String getTestDataPath() {
+        File sourceRoot = getProjectRootPath();
+        return new File(new File(sourceRoot, "testData"), getClass().getName()).getPath();
+    }
+
+    private static File getProjectRootPath() {
+        String testPath = PathManager.getJarPathForClass(PhpStringLiteralIndex.class);
+        return new File(testPath, "../../..");
+    }
+
+    private void assertStringLiteralOffsets(PhpStringLiteralIndex.Kind kind, String... literals) {
+        String text = myFixture.getFile().getText();
+        int[] expectedOffsets = new int[literals.length];
+        for (int i = 0; i < literals.length; i++) {
+            expectedOffsets[i] = text.indexOf(literals[i]);
+            assertTrue(expectedOffsets[i] >= 0);
+        }
+        int[] offsets = PhpStringLiteralIndex.getStringLiteralOffsets(getProject(), myFixture.getFile().getVirtualFile(), kind);
+        assertEquals(Arrays.toString(expectedOffsets), Arrays.toString(offsets));
+    }
+
+    public void testStringLiteralKinds() {
+        myFixture.configureByFile(getTestName(false) + ".php");
+        assertStringLiteralOffsets(PhpStringLiteralIndex.Kind.SIMPLE_DOUBLE_QUOTED, "\"foo\"", "\"qux\"");
+        assertStringLiteralOffsets(PhpStringLiteralIndex.Kind.INTERPOLATED_DOUBLE_QUOTED, "\"foo $bar");
+        assertStringLiteralOffsets(PhpStringLiteralIndex.Kind.ESCAPED_SINGLE_QUOTED, "'foo\\'s'", "'C:\\\\foo'");
+    }
+
+    public void testIndexIsUpdatedOnChange() {
+        myFixture.configureByText("test.php", "<?php\n$foo = 'foo';\n<caret>");
+        VirtualFile virtualFile = myFixture.getFile().getVirtualFile();
+        assertFalse(PhpStringLiteralIndex.hasStringLiterals(getProject(), virtualFile, PhpStringLiteralIndex.Kind.SIMPLE_DOUBLE_QUOTED));
+        myFixture.type("$bar = \"bar\";\n");
+        PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+        assertTrue(PhpStringLiteralIndex.hasStringLiterals(getProject(), virtualFile, PhpStringLiteralIndex.Kind.SIMPLE_DOUBLE_QUOTED));
+    }
+
+    public void testStatistics() {
+        myFixture.configureByText("first.php", "<?php\n$foo = \"foo\" . \"bar\";\n");
+        myFixture.addFileToProject("second.php", "<?php\n$foo = \"foo\";\n$bar = \"$foo\";\n");
+        GlobalSearchScope scope = GlobalSearchScope.projectScope(getProject());
+        PhpStringLiteralIndex.Statistics simpleStatistics = PhpStringLiteralIndex.computeStatistics(PhpStringLiteralIndex.Kind.SIMPLE_DOUBLE_QUOTED, scope);
+        assertEquals(3, simpleStatistics.literalCount);
+        assertEquals(2, simpleStatistics.fileCount);
+        PhpStringLiteralIndex.Statistics interpolatedStatistics = PhpStringLiteralIndex.computeStatistics(PhpStringLiteralIndex.Kind.INTERPOLATED_DOUBLE_QUOTED, scope);
+        assertEquals(1, interpolatedStatistics.literalCount);
+        assertEquals(1, interpolatedStatistics.fileCount);
+    }
+
+}
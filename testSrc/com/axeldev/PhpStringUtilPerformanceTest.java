@@ -0,0 +1,80 @@
+package com.axeldev;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.projectRoots.JavaSdk;
+import com.intellij.openapi.projectRoots.Sdk;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.DefaultLightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+
+public class PhpStringUtilPerformanceTest extends LightCodeInsightFixtureTestCase {
+    private static final int SHALLOW_NESTING_DEPTH     = 2;
+    private static final int DEEP_NESTING_DEPTH        = 500;
+    private static final int LOOKUP_COUNT              = 100000;
+    private static final int MEASUREMENT_RUNS          = 5;
+    private static final int MAX_DEEP_TO_SHALLOW_RATIO = 4;
+
+    private static class MyDescriptor extends DefaultLightProjectDescriptor {
+        @Override
+        public Sdk getSdk() {
+            return JavaSdk.getInstance().createJdk("1.7", new File(getProjectRootPath(), "mockJDK-1.7").getPath(), false);
+        }
+    }
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return new MyDescriptor();
+    }
+
+    private static File getProjectRootPath() {
+        String testPath = PathManager.getJarPathForClass(PhpStringUtil.class);
+        return new File(testPath, "../../..");
+    }
+
+    private static String buildNestedArraysPhpCode(int nestingDepth) {
+        StringBuilder phpCode = new StringBuilder("<?php\n$foo = ");
+        for (int i = 0; i < nestingDepth; i++) phpCode.append("array(");
+        phpCode.append("\"string\", 42");
+        for (int i = 0; i < nestingDepth; i++) phpCode.append(')');
+        return phpCode.append(";\n").toString();
+    }
+
+    /**
+     * Measures the best time out of some runs of looking up the double quoted string of an element inside a string and
+     * of an element outside of any string, both placed at the innermost level of nested arrays.
+     */
+    private long measureDoubleQuotedStringLookup(int nestingDepth) {
+        PsiFile psiFile = myFixture.configureByText("nested.php", buildNestedArraysPhpCode(nestingDepth));
+        String phpCode = psiFile.getText();
+        PsiElement stringPsi = psiFile.findElementAt(phpCode.indexOf("string"));
+        PsiElement numberPsi = psiFile.findElementAt(phpCode.indexOf("42"));
+        assertNotNull(PhpStringUtil.getPhpDoubleQuotedStringExpression(stringPsi));
+        assertNull(PhpStringUtil.getPhpDoubleQuotedStringExpression(numberPsi));
+        long bestTime = Long.MAX_VALUE;
+        for (int run = 0; run < MEASUREMENT_RUNS; run++) {
+            long startTime = System.nanoTime();
+            for (int i = 0; i < LOOKUP_COUNT; i++) {
+                PhpStringUtil.getPhpDoubleQuotedStringExpression(stringPsi);
+                PhpStringUtil.getPhpDoubleQuotedStringExpression(numberPsi);
+            }
+            bestTime = Math.min(bestTime, System.nanoTime() - startTime);
+        }
+        return bestTime;
+    }
+
+    public void testDoubleQuotedStringLookupDoesNotDependOnNestingDepth() {
+        // warm up
+        measureDoubleQuotedStringLookup(SHALLOW_NESTING_DEPTH);
+        long shallowTime = measureDoubleQuotedStringLookup(SHALLOW_NESTING_DEPTH);
+        long deepTime = measureDoubleQuotedStringLookup(DEEP_NESTING_DEPTH);
+        assertTrue("Lookup at nesting depth " + DEEP_NESTING_DEPTH + " took " + deepTime + "ns, while at depth " +
+            SHALLOW_NESTING_DEPTH + " it took " + shallowTime + "ns", deepTime < shallowTime * MAX_DEEP_TO_SHALLOW_RATIO);
+    }
+
+}